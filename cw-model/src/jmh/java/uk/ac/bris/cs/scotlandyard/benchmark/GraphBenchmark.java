@@ -0,0 +1,155 @@
+package uk.ac.bris.cs.scotlandyard.benchmark;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.bris.cs.gamekit.graph.AbstractGraph;
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Benchmarks of the graph primitives on the standard map, as a baseline for
+ * replacing them with primitive specialised ones. <br>
+ * Lookups are measured on an {@link UndirectedGraph}, on an
+ * {@link ImmutableGraph} delegating to it and on the {@link CompactGraph}
+ * backed graph {@link ScotlandYardGraphReader} returns.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+	/**
+	 * The lines, nodes and edges of the standard map
+	 */
+	@State(Scope.Benchmark)
+	public static class StandardMap {
+
+		List<String> lines;
+		List<Node<Integer>> nodes;
+		List<Edge<Integer, Transport>> edges;
+
+		@Setup
+		public void load() throws IOException {
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+					GraphBenchmark.class.getResourceAsStream("/graph.txt"),
+					StandardCharsets.UTF_8))) {
+				lines = reader.lines().collect(toList());
+			}
+			Graph<Integer, Transport> graph = ScotlandYardGraphReader.fromLines(lines);
+			nodes = graph.getNodes();
+			// every edge is there both ways round, addEdge adds the other one
+			edges = graph.getEdges().stream()
+					.filter(e -> e.source().value() < e.destination().value())
+					.collect(toList());
+		}
+	}
+
+	/**
+	 * The standard map as a graph of some kind, and an equal copy of it
+	 */
+	@State(Scope.Thread)
+	public static class Kind {
+
+		@Param({"UNDIRECTED", "IMMUTABLE", "COMPACT"})
+		public String kind;
+		Graph<Integer, Transport> graph;
+		Graph<Integer, Transport> copy;
+
+		@Setup
+		public void create(StandardMap map) {
+			ImmutableGraph<Integer, Transport> compact =
+					ScotlandYardGraphReader.fromLines(map.lines);
+			UndirectedGraph<Integer, Transport> undirected = new UndirectedGraph<>(compact);
+			switch (kind) {
+				case "UNDIRECTED":
+					graph = undirected;
+					break;
+				case "IMMUTABLE":
+					graph = new ImmutableGraph<>(undirected);
+					break;
+				default:
+					graph = compact;
+			}
+			copy = new UndirectedGraph<>(graph);
+		}
+	}
+
+	/**
+	 * Builds the map with {@link UndirectedGraph#addEdge(Edge)}
+	 */
+	@Benchmark
+	public Graph<Integer, Transport> addEdge(StandardMap map) {
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		for (Node<Integer> node : map.nodes) graph.addNode(node);
+		for (Edge<Integer, Transport> edge : map.edges) graph.addEdge(edge);
+		return graph;
+	}
+
+	/**
+	 * Looks up the edges of every node of the map
+	 */
+	@Benchmark
+	public int getEdgesFrom(StandardMap map, Kind kind) {
+		int count = 0;
+		for (Node<Integer> node : map.nodes) count += kind.graph.getEdgesFrom(node).size();
+		return count;
+	}
+
+	/**
+	 * {@link UndirectedGraph} copies its nodes into a new list on every call
+	 */
+	@Benchmark
+	public List<Node<Integer>> getNodes(Kind kind) {
+		return kind.graph.getNodes();
+	}
+
+	/**
+	 * {@link AbstractGraph#equals(Object)} against an equal copy, so that all
+	 * nodes and edges are compared
+	 */
+	@Benchmark
+	public boolean graphEquals(Kind kind) {
+		return kind.graph.equals(kind.copy);
+	}
+
+	@Benchmark
+	public int graphHashCode(Kind kind) {
+		return kind.graph.hashCode();
+	}
+
+	/**
+	 * Reads the map from its lines
+	 */
+	@Benchmark
+	public Graph<Integer, Transport> fromLines(StandardMap map) {
+		return ScotlandYardGraphReader.fromLines(map.lines);
+	}
+
+}
@@ -0,0 +1,76 @@
+package uk.ac.bris.cs.scotlandyard.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.bris.cs.gamekit.matrix.SquareMatrix;
+
+/**
+ * Benchmarks of {@link SquareMatrix}, as a baseline for replacing it with a
+ * primitive specialised one. The sizes are sides of about 10, 100, 10k and
+ * 100k cells.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatrixBenchmark {
+
+	@Param({"3", "10", "100", "316"})
+	public int size;
+
+	private SquareMatrix<Integer> matrix;
+	// each benchmark walks its own index, a state shared with -f 0 starts over
+	private int cell;
+	private int column;
+
+	@Setup
+	public void fill() {
+		cell = 0;
+		column = 0;
+		matrix = new SquareMatrix<>(size, 0);
+		for (int row = 0; row < size; row++)
+			for (int column = 0; column < size; column++)
+				matrix.put(row, column, row * size + column);
+	}
+
+	/**
+	 * Gets the cells one after another, a cell per op
+	 */
+	@Benchmark
+	public Integer get() {
+		int cell = this.cell;
+		this.cell = cell + 1 == size * size ? 0 : cell + 1;
+		return matrix.get(cell / size, cell % size);
+	}
+
+	/**
+	 * Gets the columns one after another, a column per op
+	 */
+	@Benchmark
+	public List<Integer> column() {
+		int column = this.column;
+		this.column = column + 1 == size ? 0 : column + 1;
+		return matrix.column(column);
+	}
+
+	@Benchmark
+	public List<Integer> asList() {
+		return matrix.asList();
+	}
+
+}
@@ -0,0 +1,316 @@
+package uk.ac.bris.cs.scotlandyard.benchmark;
+
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.MoveGenerator;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel.Validation;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.simulation.RandomPlayerFactory;
+
+/**
+ * Benchmarks of {@link ScotlandYardModel} on the standard map, with Mr.X and
+ * five detectives at standard starting locations. <br>
+ * The valid moves of a player are generated by {@link MoveGenerator}, which
+ * is measured on its own as well as through
+ * {@link ScotlandYardModel#startRotate()} for Mr.X. A game accepts a move
+ * only once, so the accept benchmarks take the games they move in from a
+ * batch built before each iteration, and run exactly one batch per iteration
+ * as single shots; their score is the time per batch of {@value #BATCH}
+ * moves. The GC profiler counts building the batch towards their bytes per
+ * op, see {@link #construct(Board)} for how much a game is.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+	// the standard start with the most moves, so double moves dominate
+	private static final int MRX_LOCATION = 78;
+	private static final List<Integer> DETECTIVE_LOCATIONS =
+			StandardGame.DETECTIVE_LOCATIONS.subList(0, 5);
+	private static final int SEEDS = 64;
+	private static final int BATCH = 1000;
+
+	/**
+	 * The standard map, and the moves Mr.X accepts in the accept benchmarks
+	 */
+	@State(Scope.Benchmark)
+	public static class Board {
+
+		ImmutableGraph<Integer, Transport> graph;
+		TicketMove ticketMove;
+		DoubleMove doubleMove;
+
+		@Setup
+		public void load() throws IOException {
+			graph = StandardGame.standardGraph();
+			Waiting mrX = new Waiting();
+			newGame(Validation.GENERATE, graph, mrX, new Waiting(), true).startRotate();
+			for (Move move : mrX.moves) {
+				if (ticketMove == null && move instanceof TicketMove)
+					ticketMove = (TicketMove) move;
+				if (doubleMove == null && move instanceof DoubleMove)
+					doubleMove = (DoubleMove) move;
+			}
+		}
+	}
+
+	/**
+	 * A new game waiting for Mr.X to move
+	 */
+	@State(Scope.Thread)
+	public static class Game {
+
+		ScotlandYardModel model;
+		Waiting mrX = new Waiting();
+
+		@Setup
+		public void create(Board board) {
+			model = newGame(Validation.GENERATE, board.graph, mrX, new Waiting(), true);
+		}
+	}
+
+	/**
+	 * A batch of new games waiting for Mr.X to move, created for every
+	 * iteration
+	 */
+	@State(Scope.Thread)
+	public static class MrXTurn {
+
+		@Param({"GENERATE", "CHECK"})
+		public Validation validation;
+		final ScotlandYardModel[] models = new ScotlandYardModel[BATCH];
+		int next;
+
+		@Setup(Level.Iteration)
+		public void create(Board board) {
+			for (int i = 0; i < models.length; i++) {
+				models[i] = newGame(validation, board.graph, new Waiting(), new Waiting(), true);
+				models[i].startRotate();
+			}
+			next = 0;
+		}
+	}
+
+	/**
+	 * A batch of new games waiting for the first detective to move, who has no
+	 * tickets and can only pass, created for every iteration. The other
+	 * detectives have tickets, or the game would be over.
+	 */
+	@State(Scope.Thread)
+	public static class DetectiveTurn {
+
+		@Param({"GENERATE", "CHECK"})
+		public Validation validation;
+		final ScotlandYardModel[] models = new ScotlandYardModel[BATCH];
+		int next;
+		PassMove pass;
+
+		@Setup(Level.Iteration)
+		public void create(Board board) {
+			for (int i = 0; i < models.length; i++) {
+				models[i] = newGame(validation, board.graph, new Waiting(), new Waiting(), false);
+				models[i].startRotate();
+				models[i].accept(board.ticketMove);
+			}
+			pass = new PassMove(models[0].getCurrentPlayer());
+			next = 0;
+		}
+	}
+
+	/**
+	 * The inputs {@link ScotlandYardModel} generates valid moves from
+	 */
+	@State(Scope.Thread)
+	public static class Generator {
+
+		MoveGenerator generator;
+		int[] mrXTickets = counts(StandardGame.generateMrXTickets());
+		int[] detectiveTickets = counts(StandardGame.generateDetectiveTickets());
+		int[] occupied = DETECTIVE_LOCATIONS.stream().mapToInt(Integer::intValue).toArray();
+
+		@Setup
+		public void create(Board board) {
+			generator = new MoveGenerator(board.graph);
+		}
+
+		private static int[] counts(Map<Ticket, Integer> tickets) {
+			int[] counts = new int[Ticket.values().length];
+			tickets.forEach((ticket, count) -> counts[ticket.ordinal()] = count);
+			return counts;
+		}
+	}
+
+	/**
+	 * Seeds of random playouts, cycled through so that every iteration plays
+	 * the same games
+	 */
+	@State(Scope.Thread)
+	public static class Playout {
+
+		@Param({"GENERATE", "CHECK"})
+		public Validation validation;
+		int game;
+	}
+
+	@Benchmark
+	public ScotlandYardModel construct(Board board) {
+		return newGame(Validation.GENERATE, board.graph, new Waiting(), new Waiting(), true);
+	}
+
+	@Benchmark
+	public Set<Move> mrXValidMoves(Game game) {
+		game.model.startRotate();
+		return game.mrX.moves;
+	}
+
+	@Benchmark
+	public int mrXGenerate(Generator generator) {
+		return generator.generator.generate(BLACK, MRX_LOCATION, generator.mrXTickets,
+				generator.occupied, generator.occupied.length, true);
+	}
+
+	@Benchmark
+	public int detectiveGenerate(Generator generator) {
+		// the detective's own location counts as occupied, as in the model
+		return generator.generator.generate(Colour.BLUE, DETECTIVE_LOCATIONS.get(0),
+				generator.detectiveTickets, generator.occupied, generator.occupied.length,
+				true);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10, batchSize = BATCH)
+	@Measurement(iterations = 20, batchSize = BATCH)
+	public ScotlandYardModel acceptTicket(Board board, MrXTurn turn) {
+		ScotlandYardModel model = turn.models[turn.next++];
+		model.accept(board.ticketMove);
+		return model;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10, batchSize = BATCH)
+	@Measurement(iterations = 20, batchSize = BATCH)
+	public ScotlandYardModel acceptDouble(Board board, MrXTurn turn) {
+		ScotlandYardModel model = turn.models[turn.next++];
+		model.accept(board.doubleMove);
+		return model;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10, batchSize = BATCH)
+	@Measurement(iterations = 20, batchSize = BATCH)
+	public ScotlandYardModel acceptPass(DetectiveTurn turn) {
+		ScotlandYardModel model = turn.models[turn.next++];
+		model.accept(turn.pass);
+		return model;
+	}
+
+	@Benchmark
+	public boolean isGameOver(Game game) {
+		return game.model.isGameOver();
+	}
+
+	@Benchmark
+	public Set<Colour> randomPlayout(Board board, Playout playout) {
+		int seed = playout.game++ % SEEDS;
+		RandomPlayerFactory random = new RandomPlayerFactory(seed);
+		List<Integer> locations = StandardGame.generateDetectiveLocations(seed,
+				DETECTIVE_LOCATIONS.size());
+		PlayerConfiguration[] detectives = new PlayerConfiguration[locations.size()];
+		for (int i = 0; i < detectives.length; i++) {
+			Colour colour = Colour.values()[i + 1];
+			detectives[i] = new PlayerConfiguration.Builder(colour)
+					.using(random.createPlayer(colour))
+					.with(StandardGame.generateDetectiveTickets())
+					.at(locations.get(i))
+					.build();
+		}
+		ScotlandYardModel model = new ScotlandYardModel(playout.validation, StandardGame.ROUNDS,
+				board.graph, new PlayerConfiguration.Builder(BLACK)
+						.using(random.createPlayer(BLACK))
+						.with(StandardGame.generateMrXTickets())
+						.at(StandardGame.generateMrXLocation(seed))
+						.build(),
+				detectives[0], Arrays.copyOfRange(detectives, 1, detectives.length));
+		while (!model.isGameOver()) model.startRotate();
+		return model.getWinningPlayers();
+	}
+
+	private static ScotlandYardModel newGame(Validation validation,
+			ImmutableGraph<Integer, Transport> graph, Player mrX, Player detective,
+			boolean firstDetectiveTickets) {
+		PlayerConfiguration[] detectives = new PlayerConfiguration[DETECTIVE_LOCATIONS.size()];
+		for (int i = 0; i < detectives.length; i++) {
+			Map<Ticket, Integer> tickets = StandardGame.generateDetectiveTickets();
+			if (i == 0 && !firstDetectiveTickets) tickets.replaceAll((ticket, count) -> 0);
+			detectives[i] = new PlayerConfiguration.Builder(Colour.values()[i + 1])
+					.using(detective)
+					.with(tickets)
+					.at(DETECTIVE_LOCATIONS.get(i))
+					.build();
+		}
+		return new ScotlandYardModel(validation, StandardGame.ROUNDS, graph,
+				new PlayerConfiguration.Builder(BLACK)
+						.using(mrX)
+						.with(StandardGame.generateMrXTickets())
+						.at(MRX_LOCATION)
+						.build(),
+				detectives[0], Arrays.copyOfRange(detectives, 1, detectives.length));
+	}
+
+	/**
+	 * A player that keeps the moves it is given and never moves
+	 */
+	static final class Waiting implements Player {
+
+		Set<Move> moves;
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			this.moves = moves;
+		}
+	}
+
+}
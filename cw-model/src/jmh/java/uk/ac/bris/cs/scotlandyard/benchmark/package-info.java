@@ -0,0 +1,5 @@
+/**
+ * JMH benchmarks, built and run with the {@code jmh} profile:
+ * {@code mvn -P jmh compile exec:exec [-Djmh.args="<JMH options>"]}
+ */
+package uk.ac.bris.cs.scotlandyard.benchmark;
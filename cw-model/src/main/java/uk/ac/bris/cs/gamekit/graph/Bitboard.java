@@ -0,0 +1,175 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size set of small non-negative ints(usually node values) stored as
+ * bits in an array of longs, so set operations take one instruction per 64
+ * values. The standard 199 node map fits in four words. <br>
+ * Unlike {@link java.util.BitSet}, a bitboard never grows and none of its
+ * operations allocate; bitboards combined with each other must have the same
+ * capacity.
+ */
+public final class Bitboard {
+
+	final long[] words;
+
+	/**
+	 * Creates an empty bitboard
+	 *
+	 * @param capacity the number of values the bitboard can hold, values
+	 *        range from 0 to {@code capacity - 1}
+	 */
+	public Bitboard(int capacity) {
+		if (capacity < 0) throw new IllegalArgumentException("capacity < 0");
+		this.words = new long[wordsFor(capacity)];
+	}
+
+	/**
+	 * @param capacity the number of values
+	 * @return the number of words needed to hold the given number of values
+	 */
+	public static int wordsFor(int capacity) {
+		return (capacity + 63) >>> 6;
+	}
+
+	/**
+	 * @return the number of values this bitboard can hold, rounded up to a
+	 *         multiple of 64
+	 */
+	public int capacity() {
+		return words.length << 6;
+	}
+
+	/**
+	 * @param value the value
+	 * @return true if the value is in this bitboard; false for values out of
+	 *         range
+	 */
+	public boolean contains(int value) {
+		int word = value >>> 6;
+		return word < words.length && (words[word] & 1L << value) != 0;
+	}
+
+	/**
+	 * @param value the value to add, must be within the capacity
+	 */
+	public void add(int value) {
+		words[value >>> 6] |= 1L << value;
+	}
+
+	/**
+	 * @param value the value to remove, must be within the capacity
+	 */
+	public void remove(int value) {
+		words[value >>> 6] &= ~(1L << value);
+	}
+
+	/**
+	 * Removes all values
+	 */
+	public void clear() {
+		Arrays.fill(words, 0);
+	}
+
+	/**
+	 * @return true if this bitboard has no values
+	 */
+	public boolean isEmpty() {
+		for (long word : words)
+			if (word != 0) return false;
+		return true;
+	}
+
+	/**
+	 * @return the number of values in this bitboard
+	 */
+	public int cardinality() {
+		int count = 0;
+		for (long word : words) count += Long.bitCount(word);
+		return count;
+	}
+
+	/**
+	 * @param from the value to start from, inclusive
+	 * @return the smallest value in this bitboard that is not less than
+	 *         {@code from}, or -1 if there is none
+	 */
+	public int nextSetBit(int from) {
+		int index = from >>> 6;
+		if (from < 0 || index >= words.length) return -1;
+		long word = words[index] & -1L << from;
+		while (word == 0) {
+			if (++index == words.length) return -1;
+			word = words[index];
+		}
+		return (index << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Replaces the values of this bitboard with the values of another
+	 *
+	 * @param other the other bitboard; not null
+	 */
+	public void copyFrom(Bitboard other) {
+		System.arraycopy(other.words, 0, words, 0, words.length);
+	}
+
+	/**
+	 * Adds all values of another bitboard to this one
+	 *
+	 * @param other the other bitboard; not null
+	 */
+	public void or(Bitboard other) {
+		for (int i = 0; i < words.length; i++) words[i] |= other.words[i];
+	}
+
+	/**
+	 * Keeps only the values that are also in another bitboard
+	 *
+	 * @param other the other bitboard; not null
+	 */
+	public void and(Bitboard other) {
+		for (int i = 0; i < words.length; i++) words[i] &= other.words[i];
+	}
+
+	/**
+	 * Removes all values of another bitboard from this one
+	 *
+	 * @param other the other bitboard; not null
+	 */
+	public void andNot(Bitboard other) {
+		for (int i = 0; i < words.length; i++) words[i] &= ~other.words[i];
+	}
+
+	/**
+	 * @param other the other bitboard; not null
+	 * @return true if the two bitboards have any value in common
+	 */
+	public boolean intersects(Bitboard other) {
+		for (int i = 0; i < words.length; i++)
+			if ((words[i] & other.words[i]) != 0) return true;
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return this == o || o instanceof Bitboard && Arrays.equals(words, ((Bitboard) o).words);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(words);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Bitboard{");
+		for (int value = nextSetBit(0); value >= 0; value = nextSetBit(value + 1)) {
+			if (sb.length() > 9) sb.append(", ");
+			sb.append(value);
+		}
+		return sb.append('}').toString();
+	}
+
+}
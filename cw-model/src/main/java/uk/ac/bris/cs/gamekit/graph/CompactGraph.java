@@ -0,0 +1,609 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.io.Serializable;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable undirected graph with integer node values, stored in
+ * compressed sparse row form. Edges from each node occupy a contiguous range
+ * of slots in a pair of flat arrays (target node values and edge data
+ * ordinals), so the int-keyed methods such as {@link #edgesBegin(int)},
+ * {@link #target(int)} and {@link #data(int)} can be used to walk neighbours
+ * without allocating. <br>
+ * The {@link Graph} methods are supported as views over the same arrays; nodes
+ * and edges returned by them are created on access.
+ *
+ * @param <D> the type for {@link Edge} data, must be an enum
+ */
+public final class CompactGraph<D extends Enum<D>> extends AbstractGraph<Integer, D>
+		implements
+		Graph<Integer, D>,
+		Serializable {
+
+	private static final long serialVersionUID = 2915489432075317120L;
+	private static final int ABSENT = -1;
+
+	private final Class<D> type;
+	private final D[] constants;
+	private final int[] values;
+	private final int[] offsets;
+	private final int[] targets;
+	private final byte[] data;
+	private final int[] slots;
+	private final int minValue;
+	private final int maxValue;
+	private final int[] denseIndex;
+	private final int[] sortedValues;
+	private final int[] sortedIndices;
+	// computed on first use by NeighbourMasks.of
+	transient volatile NeighbourMasks<D> neighbourMasks;
+
+	private CompactGraph(Class<D> type, int[] values, int[] offsets, int[] targets,
+			byte[] data, int[] slots) {
+		this.type = type;
+		this.constants = type.getEnumConstants();
+		this.values = values;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.data = data;
+		this.slots = slots;
+		int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+		for (int value : values) {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		this.minValue = values.length == 0 ? 0 : min;
+		this.maxValue = values.length == 0 ? 0 : max;
+		// node values of game maps are small and dense so a flat lookup table
+		// is both the smallest and the fastest option, fall back to binary
+		// search for anything sparse
+		long range = (long) maxValue - minValue + 1;
+		if (values.length == 0 || range <= 4L * values.length + 64) {
+			denseIndex = new int[values.length == 0 ? 0 : (int) range];
+			Arrays.fill(denseIndex, ABSENT);
+			for (int i = 0; i < values.length; i++)
+				denseIndex[values[i] - minValue] = i;
+			sortedValues = null;
+			sortedIndices = null;
+		} else {
+			denseIndex = null;
+			long[] pairs = new long[values.length];
+			for (int i = 0; i < values.length; i++)
+				pairs[i] = ((long) values[i] << 32) | i;
+			Arrays.sort(pairs);
+			sortedValues = new int[values.length];
+			sortedIndices = new int[values.length];
+			for (int i = 0; i < pairs.length; i++) {
+				sortedValues[i] = (int) (pairs[i] >> 32);
+				sortedIndices[i] = (int) pairs[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns a compact copy of the given graph. If the graph is already
+	 * compact(or is an {@link ImmutableGraph} of a compact graph) with the same
+	 * edge data type, the underlying instance is returned as is.
+	 *
+	 * @param graph the graph to copy; not null, edge data must not be null
+	 * @param type the edge data type; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return a compact graph with the same nodes and edges in the same order;
+	 *         never null
+	 */
+	@SuppressWarnings("unchecked")
+	public static <D extends Enum<D>> CompactGraph<D> copyOf(Graph<Integer, D> graph,
+			Class<D> type) {
+		Objects.requireNonNull(type);
+		Graph<Integer, D> actual = Objects.requireNonNull(graph);
+		while (actual instanceof ImmutableGraph)
+			actual = ((ImmutableGraph<Integer, D>) actual).delegate();
+		if (actual instanceof CompactGraph && ((CompactGraph<?>) actual).type == type)
+			return (CompactGraph<D>) actual;
+		Builder<D> builder = new Builder<>(type);
+		for (Node<Integer> node : graph.getNodes())
+			builder.addNode(node.value());
+		for (Edge<Integer, D> edge : graph.getEdges())
+			builder.appendEdge(edge.source().value(), edge.destination().value(),
+					Objects.requireNonNull(edge.data(), "edge data == null"));
+		return builder.build();
+	}
+
+	/**
+	 * Reads a graph written by {@link #writeTo(ByteBuffer)} at the position of
+	 * the buffer, advancing it. The arrays are copied out of the buffer in
+	 * bulk, so the buffer may be a memory mapped file that is unmapped later.
+	 *
+	 * @param buffer the buffer; not null
+	 * @param type the edge data type the graph was written with; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the graph; never null
+	 * @throws IllegalArgumentException if the bytes are not a valid graph of
+	 *         the given edge data type
+	 * @throws BufferUnderflowException if the buffer ends within the graph
+	 */
+	public static <D extends Enum<D>> CompactGraph<D> readFrom(ByteBuffer buffer,
+			Class<D> type) {
+		Objects.requireNonNull(type);
+		int nodeCount = buffer.getInt();
+		int slotCount = buffer.getInt();
+		if (nodeCount < 0 || slotCount < 0) throw new IllegalArgumentException(
+				"Invalid graph of " + nodeCount + " nodes and " + slotCount + " edges");
+		if (Integer.BYTES * (2L * nodeCount + 1 + 2L * slotCount) + slotCount
+				> buffer.remaining())
+			throw new BufferUnderflowException();
+		int[] values = new int[nodeCount];
+		int[] offsets = new int[nodeCount + 1];
+		int[] targets = new int[slotCount];
+		int[] slots = new int[slotCount];
+		byte[] data = new byte[slotCount];
+		getInts(buffer, values);
+		getInts(buffer, offsets);
+		getInts(buffer, targets);
+		getInts(buffer, slots);
+		buffer.get(data);
+
+		if (offsets[0] != 0 || offsets[nodeCount] != slotCount)
+			throw new IllegalArgumentException("Offsets do not cover all edges");
+		for (int i = 0; i < nodeCount; i++)
+			if (offsets[i] > offsets[i + 1])
+				throw new IllegalArgumentException("Offsets decrease at node index " + i);
+		int constants = type.getEnumConstants().length;
+		BitSet seen = new BitSet(slotCount);
+		for (int i = 0; i < slotCount; i++) {
+			if (data[i] < 0 || data[i] >= constants)
+				throw new IllegalArgumentException("Invalid edge data ordinal " + data[i]);
+			if (slots[i] < 0 || slots[i] >= slotCount || seen.get(slots[i]))
+				throw new IllegalArgumentException("Edge order is not a permutation");
+			seen.set(slots[i]);
+		}
+		CompactGraph<D> graph = new CompactGraph<>(type, values, offsets, targets, data, slots);
+		for (int i = 0; i < nodeCount; i++)
+			if (graph.indexOf(values[i]) != i)
+				throw new IllegalArgumentException(new Node<>(values[i]) + " appears twice");
+		for (int target : targets)
+			if (!graph.containsNode(target))
+				throw new IllegalArgumentException(new Node<>(target) + " is not in the graph");
+		return graph;
+	}
+
+	private static void getInts(ByteBuffer buffer, int[] values) {
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + values.length * Integer.BYTES);
+	}
+
+	/**
+	 * @return the number of bytes {@link #writeTo(ByteBuffer)} writes
+	 */
+	public int byteSize() {
+		return Integer.BYTES * (2 + values.length + offsets.length + 2 * targets.length)
+				+ data.length;
+	}
+
+	/**
+	 * Writes the arrays of this graph at the position of the buffer, in the
+	 * byte order of the buffer, advancing it; see
+	 * {@link #readFrom(ByteBuffer, Class)}. Edge data is written as ordinals.
+	 *
+	 * @param buffer the buffer, with at least {@link #byteSize()} bytes
+	 *        remaining; not null
+	 * @throws BufferOverflowException if the graph does not fit in the buffer
+	 */
+	public void writeTo(ByteBuffer buffer) {
+		if (buffer.remaining() < byteSize()) throw new BufferOverflowException();
+		buffer.putInt(values.length).putInt(targets.length);
+		putInts(buffer, values);
+		putInts(buffer, offsets);
+		putInts(buffer, targets);
+		putInts(buffer, slots);
+		buffer.put(data);
+	}
+
+	private static void putInts(ByteBuffer buffer, int[] values) {
+		buffer.asIntBuffer().put(values);
+		buffer.position(buffer.position() + values.length * Integer.BYTES);
+	}
+
+	/**
+	 * @return the index of the node with the given value in insertion order,
+	 *         or -1 if no such node exists
+	 */
+	public int indexOf(int value) {
+		if (denseIndex != null) {
+			long offset = (long) value - minValue;
+			return offset < 0 || offset >= denseIndex.length ? ABSENT : denseIndex[(int) offset];
+		}
+		int found = Arrays.binarySearch(sortedValues, value);
+		return found < 0 ? ABSENT : sortedIndices[found];
+	}
+
+	/**
+	 * @param index the node index, see {@link #indexOf(int)}
+	 * @return the value of the node at the given index
+	 */
+	public int valueAt(int index) {
+		return values[index];
+	}
+
+	/**
+	 * Checks whether a node with the given value exists, like
+	 * {@link #containsNode(Integer)} but without boxing
+	 */
+	public boolean containsNode(int value) {
+		return indexOf(value) != ABSENT;
+	}
+
+	/**
+	 * @return the largest node value in this graph, or 0 if empty
+	 */
+	public int maxValue() {
+		return maxValue;
+	}
+
+	/**
+	 * @return the number of directed edges(slots) in this graph; an undirected
+	 *         edge counts as two
+	 */
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Returns the first edge slot of the given node, slots of a node are
+	 * contiguous and end at {@link #edgesEnd(int)} (exclusive)
+	 *
+	 * @param value the node value; must be in this graph
+	 * @return the first slot
+	 */
+	public int edgesBegin(int value) {
+		return offsets[checkedIndexOf(value)];
+	}
+
+	/**
+	 * @param value the node value; must be in this graph
+	 * @return the slot after the last edge slot of the given node
+	 */
+	public int edgesEnd(int value) {
+		return offsets[checkedIndexOf(value) + 1];
+	}
+
+	/**
+	 * @param value the node value; must be in this graph
+	 * @return the number of edges from the given node
+	 */
+	public int degree(int value) {
+		int index = checkedIndexOf(value);
+		return offsets[index + 1] - offsets[index];
+	}
+
+	/**
+	 * @param slot the edge slot
+	 * @return the value of the destination node of the edge at the given slot
+	 */
+	public int target(int slot) {
+		return targets[slot];
+	}
+
+	/**
+	 * @param slot the edge slot
+	 * @return the ordinal of the data of the edge at the given slot
+	 */
+	public int dataOrdinal(int slot) {
+		return data[slot];
+	}
+
+	/**
+	 * @param slot the edge slot
+	 * @return the data of the edge at the given slot; never null
+	 */
+	public D data(int slot) {
+		return constants[data[slot]];
+	}
+
+	/**
+	 * @return the edge data type of this graph
+	 */
+	public Class<D> dataType() {
+		return type;
+	}
+
+	/**
+	 * Computes a 64 bit hash of the nodes, edges and edge data names of this
+	 * graph, suitable for telling whether something derived from a graph(e.g.
+	 * a cache file) still matches it. Graphs with the same nodes and edges in
+	 * the same order always have the same fingerprint.
+	 *
+	 * @return the fingerprint
+	 */
+	public long fingerprint() {
+		long hash = mix(0x9E3779B97F4A7C15L, values.length);
+		for (D constant : constants)
+			hash = mix(hash, constant.name().hashCode());
+		for (int value : values) hash = mix(hash, value);
+		for (int offset : offsets) hash = mix(hash, offset);
+		for (int target : targets) hash = mix(hash, target);
+		for (byte ordinal : data) hash = mix(hash, ordinal);
+		return hash;
+	}
+
+	private static long mix(long hash, int value) {
+		long z = (hash ^ value) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private int checkedIndexOf(int value) {
+		int index = indexOf(value);
+		if (index == ABSENT)
+			throw new IllegalArgumentException("Node(" + value + ") is not in the graph");
+		return index;
+	}
+
+	private int sourceIndexOfSlot(int slot) {
+		// offsets is non-decreasing, find the last row starting at or before slot
+		int low = 0, high = values.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (offsets[mid] <= slot) low = mid;
+			else high = mid - 1;
+		}
+		return low;
+	}
+
+	private Edge<Integer, D> edgeAt(int source, int slot) {
+		return new Edge<>(new Node<>(source), new Node<>(targets[slot]), data(slot));
+	}
+
+	@Override
+	public void addNode(Node<Integer> node) {
+		throw new UnsupportedOperationException(
+				"Adding node is not supported in a CompactGraph");
+	}
+
+	@Override
+	public void addEdge(Edge<Integer, D> edge) {
+		throw new UnsupportedOperationException(
+				"Adding edge is not supported in a CompactGraph");
+	}
+
+	@Override
+	public Node<Integer> getNode(Integer value) {
+		return value != null && containsNode(value.intValue()) ? new Node<>(value) : null;
+	}
+
+	@Override
+	public boolean containsNode(Integer value) {
+		return value != null && containsNode(value.intValue());
+	}
+
+	@Override
+	public List<Node<Integer>> getNodes() {
+		return new AbstractList<Node<Integer>>() {
+			@Override public Node<Integer> get(int index) { return new Node<>(values[index]); }
+			@Override public int size() { return values.length; }
+		};
+	}
+
+	@Override
+	public Collection<Edge<Integer, D>> getEdges() {
+		return new AbstractList<Edge<Integer, D>>() {
+			@Override public Edge<Integer, D> get(int index) {
+				int slot = slots[index];
+				return edgeAt(values[sourceIndexOfSlot(slot)], slot);
+			}
+			@Override public int size() { return slots.length; }
+		};
+	}
+
+	@Override
+	public Collection<Edge<Integer, D>> getEdgesFrom(Node<Integer> source) {
+		int value = Objects.requireNonNull(source).value();
+		int begin = edgesBegin(value);
+		int end = edgesEnd(value);
+		return new AbstractList<Edge<Integer, D>>() {
+			@Override public Edge<Integer, D> get(int index) {
+				if (index < 0 || index >= end - begin)
+					throw new IndexOutOfBoundsException("Index: " + index);
+				return edgeAt(value, begin + index);
+			}
+			@Override public int size() { return end - begin; }
+		};
+	}
+
+	/**
+	 * Finds all edges going to the given destination node, as the graph is
+	 * undirected these are the edges from the node swapped
+	 */
+	@Override
+	public Collection<Edge<Integer, D>> getEdgesTo(Node<Integer> destination) {
+		int value = Objects.requireNonNull(destination).value();
+		int begin = edgesBegin(value);
+		int end = edgesEnd(value);
+		return new AbstractList<Edge<Integer, D>>() {
+			@Override public Edge<Integer, D> get(int index) {
+				if (index < 0 || index >= end - begin)
+					throw new IndexOutOfBoundsException("Index: " + index);
+				return edgeAt(value, begin + index).swap();
+			}
+			@Override public int size() { return end - begin; }
+		};
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	@Override
+	public String toString() {
+		return "CompactGraph{" + "nodes=" + getNodes() + ", edges=" + getEdges() + '}';
+	}
+
+	/**
+	 * A builder for {@link CompactGraph}. Nodes and edges are buffered in
+	 * insertion order and laid out into rows on {@link #build()}.
+	 *
+	 * @param <D> the type for {@link Edge} data
+	 */
+	public static final class Builder<D extends Enum<D>> {
+
+		private final Class<D> type;
+		private int[] values = new int[64];
+		private int nodeCount;
+		private int[] sources = new int[256];
+		private int[] destinations = new int[256];
+		private byte[] data = new byte[256];
+		private int edgeCount;
+
+		// open addressing from node value to index, indices are stored +1 so
+		// zero marks an empty bucket
+		private int[] keys = new int[128];
+		private int[] indices = new int[128];
+
+		/**
+		 * Creates a builder for a graph with the given edge data type
+		 *
+		 * @param type the edge data type; not null
+		 */
+		public Builder(Class<D> type) {
+			this.type = Objects.requireNonNull(type);
+			if (type.getEnumConstants().length > Byte.MAX_VALUE)
+				throw new IllegalArgumentException(type + " has too many constants");
+		}
+
+		/**
+		 * Adds a node with the given value
+		 *
+		 * @param value the node value; it is an error to add the same value more
+		 *        than once
+		 * @return the builder for chaining; never null
+		 */
+		public Builder<D> addNode(int value) {
+			if (lookup(value) != ABSENT)
+				throw new IllegalArgumentException(new Node<>(value) + " is already in the graph");
+			if (nodeCount == values.length) values = Arrays.copyOf(values, nodeCount * 2);
+			values[nodeCount] = value;
+			insert(value, nodeCount++);
+			return this;
+		}
+
+		/**
+		 * Checks whether a node with the given value was added
+		 */
+		public boolean containsNode(int value) {
+			return lookup(value) != ABSENT;
+		}
+
+		/**
+		 * Adds an undirected edge; like {@link UndirectedGraph#addEdge(Edge)}
+		 * this adds the given edge and the edge with source and destination
+		 * swapped
+		 *
+		 * @param source the source node value; must be added already
+		 * @param destination the destination node value; must be added already
+		 * @param data the edge data; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder<D> addEdge(int source, int destination, D data) {
+			Objects.requireNonNull(data, "data == null");
+			if (!containsNode(source)) throw new IllegalArgumentException(
+					"source of edge(" + new Node<>(source) + ") is not in the graph");
+			if (!containsNode(destination)) throw new IllegalArgumentException(
+					"destination of edge(" + new Node<>(destination) + ") is not in the graph");
+			appendEdge(source, destination, data);
+			appendEdge(destination, source, data);
+			return this;
+		}
+
+		void appendEdge(int source, int destination, D edgeData) {
+			if (edgeCount == sources.length) {
+				int capacity = edgeCount * 2;
+				sources = Arrays.copyOf(sources, capacity);
+				destinations = Arrays.copyOf(destinations, capacity);
+				data = Arrays.copyOf(data, capacity);
+			}
+			sources[edgeCount] = source;
+			destinations[edgeCount] = destination;
+			data[edgeCount] = (byte) edgeData.ordinal();
+			edgeCount++;
+		}
+
+		/**
+		 * Lays out the added nodes and edges
+		 *
+		 * @return the graph; never null
+		 */
+		public CompactGraph<D> build() {
+			int[] offsets = new int[nodeCount + 1];
+			int[] rows = new int[edgeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				rows[i] = lookup(sources[i]);
+				if (rows[i] == ABSENT) throw new IllegalArgumentException(
+						"source of edge(" + new Node<>(sources[i]) + ") is not in the graph");
+				offsets[rows[i] + 1]++;
+			}
+			for (int i = 0; i < nodeCount; i++)
+				offsets[i + 1] += offsets[i];
+			// stable counting sort so edges of a node keep insertion order
+			int[] cursor = Arrays.copyOf(offsets, nodeCount);
+			int[] targets = new int[edgeCount];
+			byte[] slotData = new byte[edgeCount];
+			int[] slots = new int[edgeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				int slot = cursor[rows[i]]++;
+				targets[slot] = destinations[i];
+				slotData[slot] = data[i];
+				slots[i] = slot;
+			}
+			return new CompactGraph<>(type, Arrays.copyOf(values, nodeCount), offsets,
+					targets, slotData, slots);
+		}
+
+		private static int mix(int value) {
+			int h = value * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+
+		private int lookup(int value) {
+			int mask = keys.length - 1;
+			for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+				if (indices[i] == 0) return ABSENT;
+				if (keys[i] == value) return indices[i] - 1;
+			}
+		}
+
+		private void insert(int value, int index) {
+			if (nodeCount * 2 > keys.length) {
+				int[] oldKeys = keys, oldIndices = indices;
+				keys = new int[oldKeys.length * 2];
+				indices = new int[oldKeys.length * 2];
+				for (int i = 0; i < oldKeys.length; i++)
+					if (oldIndices[i] != 0) place(oldKeys[i], oldIndices[i]);
+			}
+			place(value, index + 1);
+		}
+
+		private void place(int key, int storedIndex) {
+			int mask = keys.length - 1;
+			int i = mix(key) & mask;
+			while (indices[i] != 0) i = (i + 1) & mask;
+			keys[i] = key;
+			indices[i] = storedIndex;
+		}
+
+	}
+
+}
@@ -76,6 +76,13 @@ public final class ImmutableGraph<V, D> extends AbstractGraph<V, D>
 		return graph.size();
 	}
 
+	/**
+	 * @return the graph this graph delegates to
+	 */
+	Graph<V, D> delegate() {
+		return graph;
+	}
+
 	@Override
 	public String toString() {
 		return "ImmutableGraph{" + graph + '}';
@@ -0,0 +1,225 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.util.Objects;
+
+/**
+ * Precomputed neighbours of every node of a {@link CompactGraph} as
+ * {@link Bitboard} rows, one row per edge data constant plus one for all
+ * edges. Adjacency tests are a single bit test and neighbour sets can be
+ * combined with occupancy or other sets one word at a time. <br>
+ * Every node has its rows, found through {@link CompactGraph#indexOf(int)},
+ * but a row(like a {@link Bitboard}) has a bit for every value up to the
+ * largest node value. The memory used is therefore the number of nodes times
+ * the largest node value, in bits per row: keep node values small, e.g. the
+ * standard map takes about 30KB. Masks are immutable and cached on the graph,
+ * see {@link #of(CompactGraph)}.
+ *
+ * @param <D> the type for {@link Edge} data
+ */
+public final class NeighbourMasks<D extends Enum<D>> {
+
+	private final CompactGraph<D> graph;
+	private final int capacity;
+	private final int words;
+	private final int rows;
+	private final long[] masks;
+
+	private NeighbourMasks(CompactGraph<D> graph) {
+		this.graph = graph;
+		for (int i = 0; i < graph.size(); i++)
+			if (graph.valueAt(i) < 0)
+				throw new IllegalArgumentException("Node(" + graph.valueAt(i) + ") is negative");
+		this.capacity = graph.isEmpty() ? 0 : graph.maxValue() + 1;
+		this.words = Bitboard.wordsFor(capacity);
+		this.rows = graph.dataType().getEnumConstants().length + 1;
+		long size = (long) graph.size() * rows * words;
+		if (size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Masks of " + graph.size()
+					+ " nodes up to Node(" + (capacity - 1) + ") take " + size + " words");
+		this.masks = new long[(int) size];
+		int all = rows - 1;
+		for (int i = 0; i < graph.size(); i++) {
+			int value = graph.valueAt(i);
+			for (int slot = graph.edgesBegin(value), end = graph.edgesEnd(value); slot < end;
+			     slot++) {
+				int target = graph.target(slot);
+				long bit = 1L << target;
+				masks[row(i, graph.dataOrdinal(slot)) + (target >>> 6)] |= bit;
+				masks[row(i, all) + (target >>> 6)] |= bit;
+			}
+		}
+	}
+
+	/**
+	 * Returns the masks of the given graph, computing them on first use
+	 *
+	 * @param graph the graph; not null, node values must not be negative
+	 * @param <D> the type for {@link Edge} data
+	 * @return the masks; never null
+	 * @throws IllegalArgumentException if a node value is negative or the
+	 *         masks would not fit in an array
+	 */
+	public static <D extends Enum<D>> NeighbourMasks<D> of(CompactGraph<D> graph) {
+		NeighbourMasks<D> masks = Objects.requireNonNull(graph).neighbourMasks;
+		// racing threads compute equal masks, any of them can be kept
+		if (masks == null) graph.neighbourMasks = masks = new NeighbourMasks<>(graph);
+		return masks;
+	}
+
+	/**
+	 * @return the graph the masks were computed from; never null
+	 */
+	public CompactGraph<D> graph() {
+		return graph;
+	}
+
+	/**
+	 * @return a new empty bitboard that can hold every node value of the graph;
+	 *         never null
+	 */
+	public Bitboard newBitboard() {
+		return new Bitboard(capacity);
+	}
+
+	/**
+	 * @param source the source node value
+	 * @param destination the destination node value
+	 * @return true if there is an edge between the two nodes
+	 */
+	public boolean isAdjacent(int source, int destination) {
+		return test(rowOf(source, all()), destination);
+	}
+
+	/**
+	 * @param source the source node value
+	 * @param dataOrdinal the ordinal of the edge data
+	 * @param destination the destination node value
+	 * @return true if there is an edge with the given data between the two
+	 *         nodes
+	 */
+	public boolean hasEdge(int source, int dataOrdinal, int destination) {
+		return test(rowOf(source, checkedOrdinal(dataOrdinal)), destination);
+	}
+
+	/**
+	 * Replaces the values of a bitboard with the neighbours of a node
+	 *
+	 * @param value the node value; must be in the graph
+	 * @param into the bitboard to write to; not null, created by
+	 *        {@link #newBitboard()}
+	 */
+	public void neighbours(int value, Bitboard into) {
+		System.arraycopy(masks, rowOf(value, all()), into.words, 0, words);
+	}
+
+	/**
+	 * Replaces the values of a bitboard with the neighbours of a node reached
+	 * through edges with the given data
+	 *
+	 * @param value the node value; must be in the graph
+	 * @param dataOrdinal the ordinal of the edge data
+	 * @param into the bitboard to write to; not null, created by
+	 *        {@link #newBitboard()}
+	 */
+	public void neighbours(int value, int dataOrdinal, Bitboard into) {
+		System.arraycopy(masks, rowOf(value, checkedOrdinal(dataOrdinal)), into.words, 0,
+				words);
+	}
+
+	/**
+	 * @param value the node value; must be in the graph
+	 * @param excluded nodes to ignore; not null, created by
+	 *        {@link #newBitboard()}
+	 * @return true if the node has a neighbour that is not excluded
+	 */
+	public boolean hasNeighbourOutside(int value, Bitboard excluded) {
+		return hasAnyOutside(rowOf(value, all()), excluded);
+	}
+
+	/**
+	 * @param value the node value; must be in the graph
+	 * @param dataOrdinal the ordinal of the edge data
+	 * @param excluded nodes to ignore; not null, created by
+	 *        {@link #newBitboard()}
+	 * @return true if the node has a neighbour that is not excluded through an
+	 *         edge with the given data
+	 */
+	public boolean hasNeighbourOutside(int value, int dataOrdinal, Bitboard excluded) {
+		return hasAnyOutside(rowOf(value, checkedOrdinal(dataOrdinal)), excluded);
+	}
+
+	/**
+	 * Adds all nodes one edge away from any node in {@code from} to
+	 * {@code into}
+	 *
+	 * @param from the nodes to start from; not null
+	 * @param into the bitboard to add to, must not be {@code from} itself;
+	 *        not null
+	 */
+	public void reachable(Bitboard from, Bitboard into) {
+		addReachable(from, all(), into);
+	}
+
+	/**
+	 * Adds all nodes one edge with the given data away from any node in
+	 * {@code from} to {@code into}
+	 *
+	 * @param from the nodes to start from; not null
+	 * @param dataOrdinal the ordinal of the edge data
+	 * @param into the bitboard to add to, must not be {@code from} itself;
+	 *        not null
+	 */
+	public void reachable(Bitboard from, int dataOrdinal, Bitboard into) {
+		addReachable(from, checkedOrdinal(dataOrdinal), into);
+	}
+
+	private void addReachable(Bitboard from, int dataOrdinal, Bitboard into) {
+		if (from == into) throw new IllegalArgumentException("from == into");
+		long[] source = from.words;
+		long[] target = into.words;
+		for (int w = 0; w < source.length; w++) {
+			for (long word = source[w]; word != 0; word &= word - 1) {
+				int value = (w << 6) + Long.numberOfTrailingZeros(word);
+				if (value >= capacity) break;
+				int index = graph.indexOf(value);
+				if (index < 0) continue;
+				int row = row(index, dataOrdinal);
+				for (int i = 0; i < words; i++) target[i] |= masks[row + i];
+			}
+		}
+	}
+
+	private int row(int index, int dataOrdinal) {
+		return (index * rows + dataOrdinal) * words;
+	}
+
+	private int all() {
+		return rows - 1;
+	}
+
+	private int checkedOrdinal(int dataOrdinal) {
+		if (dataOrdinal < 0 || dataOrdinal >= all())
+			throw new IllegalArgumentException("Invalid data ordinal " + dataOrdinal);
+		return dataOrdinal;
+	}
+
+	private int rowOf(int value, int dataOrdinal) {
+		int index = graph.indexOf(value);
+		if (index < 0)
+			throw new IllegalArgumentException("Node(" + value + ") is not in the graph");
+		return row(index, dataOrdinal);
+	}
+
+	private boolean test(int row, int value) {
+		int word = value >>> 6;
+		return value >= 0 && word < words && (masks[row + word] & 1L << value) != 0;
+	}
+
+	private boolean hasAnyOutside(int row, Bitboard excluded) {
+		long[] other = excluded.words;
+		for (int i = 0; i < words; i++)
+			if ((masks[row + i] & ~other[i]) != 0) return true;
+		return false;
+	}
+
+}
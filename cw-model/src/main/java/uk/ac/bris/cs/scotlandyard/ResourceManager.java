@@ -1,69 +1,134 @@
 package uk.ac.bris.cs.scotlandyard;
 
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
+import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.stream.Stream;
-
-import com.google.common.collect.ImmutableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javafx.geometry.Point2D;
 import javafx.scene.image.Image;
 import uk.ac.bris.cs.gamekit.graph.Graph;
-import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
 import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
-import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.MapBundle;
 import uk.ac.bris.cs.scotlandyard.model.Ticket;
 import uk.ac.bris.cs.scotlandyard.model.Transport;
 
 /**
- * Manager for static resources such as game map and graph
+ * Manager for static resources such as game map and graph <br>
+ * The graph and node coordinates are loaded first as everything else depends
+ * on them, images are then decoded in parallel on a background pool, the map
+ * image first. Images are available as futures so the UI can show up before
+ * they are decoded; the blocking getters wait for them.
  */
 public final class ResourceManager implements ResourceProvider {
 
 	private final Point2D TOP_LEFT_OFFSET = new Point2D(60, 60);
 
 	public enum ImageResource {
-		ICON, MAP, UOB_LOGO
+		ICON("/icon.png"), MAP("/map_large.png"), UOB_LOGO("/uob_logo.png");
+
+		private final String path;
+
+		ImageResource(String path) {
+			this.path = path;
+		}
 	}
 
-	private Map<ImageResource, Image> imageResources;
-	private Map<Ticket, Image> ticketResources;
-	private Map<Integer, Entry<Integer, Integer>> mapCoordinates;
-	private Graph<Integer, Transport> graph;
+	private final StartupTimer timer;
+	private final Map<ImageResource, CompletableFuture<Image>> imageResources =
+			new EnumMap<>(ImageResource.class);
+	private final Map<Ticket, CompletableFuture<Image>> ticketResources =
+			new EnumMap<>(Ticket.class);
+	private MapBundle map;
+
+	public ResourceManager() {
+		this(new StartupTimer());
+	}
 
 	/**
-	 * Loads all resources into memory <br>
+	 * @param timer the timer to mark loading phases with; not null
+	 */
+	public ResourceManager(StartupTimer timer) {
+		this.timer = requireNonNull(timer);
+	}
+
+	/**
+	 * Loads the graph and node coordinates and starts decoding all images in
+	 * the background <br>
 	 * This should be called before any resources are required
 	 *
-	 * @throws IOException if any of the resources cannot be found
+	 * @throws IOException if the graph or coordinates cannot be found
 	 */
 	public void loadAllResources() throws IOException {
+		map = MapBundle.standard();
+		timer.mark("map bundle");
+
+		int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+		ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "resource-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		List<CompletableFuture<Image>> all = new ArrayList<>();
+		// the map is the largest and the first one shown, so it goes first
+		for (ImageResource resource : new ImageResource[]{
+				ImageResource.MAP, ImageResource.ICON, ImageResource.UOB_LOGO}) {
+			CompletableFuture<Image> image = loadImage(resource.path, "image " + resource, pool);
+			imageResources.put(resource, image);
+			all.add(image);
+		}
+		for (Ticket ticket : Ticket.values()) {
+			CompletableFuture<Image> image = loadImage(
+					format("/tickets/%s.png", ticket.name().toLowerCase()),
+					"ticket " + ticket, pool);
+			ticketResources.put(ticket, image);
+			all.add(image);
+		}
+		CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).whenComplete((v, e) -> {
+			pool.shutdown();
+			if (e == null) timer.mark("all images");
+		});
+	}
 
-		// shared images
-		imageResources = ImmutableMap.of(
-				ImageResource.MAP, loadImage("/map_large.png"),
-				ImageResource.UOB_LOGO, loadImage("/uob_logo.png"),
-				ImageResource.ICON, loadImage("/icon.png"));
-
-		ticketResources = ImmutableMap.copyOf(Stream.of(Ticket.values()).collect(toMap(
-				identity(),
-				ticket -> loadImage(format("/tickets/%s.png", ticket.name().toLowerCase())))));
+	private CompletableFuture<Image> loadImage(String path, String phase,
+			ExecutorService pool) {
+		return CompletableFuture.supplyAsync(() -> {
+			Image image = new Image(path, -1, -1, true, true, false);
+			timer.mark(phase);
+			return image;
+		}, pool);
+	}
 
-		mapCoordinates = ImmutableMap.copyOf(StandardGame.pngMapPositionEntries());
-		graph = new ImmutableGraph<>(StandardGame.standardGraph());
+	/**
+	 * @return the timer loading phases are marked with; never null
+	 */
+	public StartupTimer timer() {
+		return timer;
 	}
 
-	private static Image loadImage(String path) {
-		return new Image(path, -1, -1, true, true, false);
+	/**
+	 * @param resource the image
+	 * @return the image, completed once it is decoded; never null
+	 */
+	public CompletableFuture<Image> image(ImageResource resource) {
+		return imageResources.get(resource);
 	}
 
+	/**
+	 * Retrieves an image, waiting for it to be decoded
+	 *
+	 * @param resource the image
+	 * @return the image; never null
+	 */
 	public Image getImage(ImageResource resource) {
-		return imageResources.get(resource);
+		return image(resource).join();
 	}
 
 	@Override
@@ -73,18 +138,18 @@ public final class ResourceManager implements ResourceProvider {
 
 	@Override
 	public Image getTicket(Ticket ticket) {
-		return ticketResources.get(ticket);
+		return ticketResources.get(ticket).join();
 	}
 
 	@Override
 	public Graph<Integer, Transport> getGraph() {
-		return graph;
+		return map.graph();
 	}
 
 	@Override
 	public Point2D coordinateAtNode(int node) {
-		Entry<Integer, Integer> entry = mapCoordinates.get(node);
-		return new Point2D(entry.getKey(), entry.getValue());
+		if (!map.hasCoordinate(node)) return null;
+		return new Point2D(map.x(node), map.y(node));
 	}
 
 }
@@ -0,0 +1,67 @@
+package uk.ac.bris.cs.scotlandyard;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records when each phase of startup finished, measured from the start of the
+ * JVM so that e.g. the time to first frame includes class loading. Phases
+ * may be marked from any thread.
+ */
+public final class StartupTimer {
+
+	private final Map<String, Duration> phases = new LinkedHashMap<>();
+	private final Consumer<String> log;
+
+	/**
+	 * Creates a timer that logs every phase at debug level to the logger of
+	 * this class
+	 */
+	public StartupTimer() {
+		this(LoggerFactory.getLogger(StartupTimer.class)::debug);
+	}
+
+	/**
+	 * @param log receives a line for every phase marked; not null
+	 */
+	public StartupTimer(Consumer<String> log) {
+		this.log = requireNonNull(log);
+	}
+
+	/**
+	 * Marks a phase as finished now, a phase marked again keeps the first
+	 * time
+	 *
+	 * @param phase the name of the phase; not null
+	 * @return the time since the start of the JVM; never null
+	 */
+	public Duration mark(String phase) {
+		requireNonNull(phase);
+		Duration uptime = Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime());
+		synchronized (phases) {
+			if (phases.containsKey(phase)) return phases.get(phase);
+			phases.put(phase, uptime);
+		}
+		log.accept(String.format("Startup: %s at %dms", phase, uptime.toMillis()));
+		return uptime;
+	}
+
+	/**
+	 * @return the phases marked so far in the order they were marked, with
+	 *         their times since the start of the JVM; never null
+	 */
+	public Map<String, Duration> phases() {
+		synchronized (phases) {
+			return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+		}
+	}
+
+}
@@ -7,11 +7,20 @@ import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 
 import com.google.common.base.MoreObjects;
 
@@ -90,21 +99,95 @@ public final class AI {
 				       .toString();
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Finds all {@link ManagedAI}s, from the index written by
+	 * {@link ManagedAIProcessor} at compile time. The classpath is scanned
+	 * instead if there is no index or it names a class that is no longer
+	 * there, e.g. when compiled without annotation processing.
+	 *
+	 * @return the AIs; never null
+	 * @throws RuntimeException if an annotated class does not implement
+	 *         {@link PlayerFactory} or AIs have the same name
+	 */
+	public static List<AI> loadAll() {
+		List<AI> ais = readIndex(AI.class.getClassLoader());
+		return ais != null ? ais : scanClasspath();
+	}
+
+	/**
+	 * Reads all indices written by {@link ManagedAIProcessor} visible to the
+	 * class loader
+	 *
+	 * @param loader the class loader to find the indices and AIs with; not
+	 *        null
+	 * @return the AIs, or null if there is no index or it names a class that
+	 *         cannot be found
+	 * @throws RuntimeException if an indexed class does not implement
+	 *         {@link PlayerFactory} or AIs have the same name
+	 */
+	public static List<AI> readIndex(ClassLoader loader) {
+		Set<String> names = new LinkedHashSet<>();
+		try {
+			Enumeration<URL> indices =
+					requireNonNull(loader).getResources(ManagedAIProcessor.INDEX);
+			while (indices.hasMoreElements()) {
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+						indices.nextElement().openStream(), StandardCharsets.UTF_8))) {
+					for (String line; (line = reader.readLine()) != null; ) {
+						line = line.trim();
+						if (!line.isEmpty()) names.add(line);
+					}
+				}
+			}
+		} catch (IOException e) {
+			return null;
+		}
+		if (names.isEmpty()) return null;
+		List<AI> ais = new ArrayList<>(names.size());
+		for (String name : names) {
+			try {
+				ais.add(fromClass(Class.forName(name, false, loader)));
+			} catch (ClassNotFoundException e) {
+				return null;
+			}
+		}
+		return checkUnique(ais);
+	}
+
+	/**
+	 * Finds all {@link ManagedAI}s by scanning the whole classpath, which is
+	 * slow on a large one; prefer {@link #loadAll()}
+	 *
+	 * @return the AIs; never null
+	 * @throws RuntimeException if an annotated class does not implement
+	 *         {@link PlayerFactory} or AIs have the same name
+	 */
 	public static List<AI> scanClasspath() {
 		List<String> annotated = new FastClasspathScanner().scan()
 				.getNamesOfClassesWithAnnotation(ManagedAI.class);
 		List<AI> ais = annotated.stream().map(c -> {
 			try {
-				Class<?> clazz = Class.forName(c);
-				if (!PlayerFactory.class.isAssignableFrom(clazz))
-					throw new IllegalArgumentException(
-							c + " does not implement " + PlayerFactory.class);
-				return new AI(clazz.getAnnotation(ManagedAI.class), (Class<PlayerFactory>) clazz);
+				return fromClass(Class.forName(c));
 			} catch (ClassNotFoundException e) {
 				throw new RuntimeException(e);
 			}
 		}).collect(toList());
+		return checkUnique(ais);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static AI fromClass(Class<?> clazz) {
+		if (!PlayerFactory.class.isAssignableFrom(clazz))
+			throw new IllegalArgumentException(
+					clazz.getName() + " does not implement " + PlayerFactory.class);
+		ManagedAI ai = clazz.getAnnotation(ManagedAI.class);
+		if (ai == null)
+			throw new IllegalArgumentException(
+					clazz.getName() + " is not annotated with " + ManagedAI.class);
+		return new AI(ai, (Class<PlayerFactory>) clazz);
+	}
+
+	private static List<AI> checkUnique(List<AI> ais) {
 		Map<AI, Long> map = ais.stream().collect(groupingBy(identity(), counting()));
 		Map<AI, Long> histogram = map.entrySet().stream().filter(e -> e.getValue() > 1)
 				.collect(toMap(Entry::getKey, Entry::getValue));
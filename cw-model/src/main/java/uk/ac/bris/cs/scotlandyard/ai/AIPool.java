@@ -1,8 +1,10 @@
 package uk.ac.bris.cs.scotlandyard.ai;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,13 +19,18 @@ import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableSet;
 
+import javafx.geometry.Point2D;
+import javafx.scene.image.Image;
 import javafx.scene.layout.Pane;
+import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.scotlandyard.ResourceManager;
 import uk.ac.bris.cs.scotlandyard.model.Colour;
 import uk.ac.bris.cs.scotlandyard.model.Move;
 import uk.ac.bris.cs.scotlandyard.model.Player;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
 
 /**
  * <b> Not a public API, do not use!</b> <br>
@@ -48,10 +55,11 @@ public class AIPool<G> {
 		groups.computeIfAbsent(group, g -> new AIGroup()).add(colour, ai);
 	}
 
-	public void initialise(ResourceManager manager, ScotlandYardGame game) {
+	public void initialise(ResourceManager manager, ScotlandYardGame game, Duration timeout) {
+		GameResources resources = new GameResources(manager, timeout);
 		groups.values().forEach(group -> {
 			try {
-				group.initialise(manager, game);
+				group.initialise(resources, game);
 			} catch (Exception e) {
 				e.printStackTrace();
 				exceptionHandler.accept(e);
@@ -99,14 +107,14 @@ public class AIPool<G> {
 			ais.put(colour, ai);
 		}
 
-		void initialise(ResourceManager manager, ScotlandYardGame game) throws Exception {
+		void initialise(ResourceProvider provider, ScotlandYardGame game) throws Exception {
 			factories = ais.values().stream()
 					.distinct()
 					.collect(toMap(Function.identity(), AI::instantiate));
 			factories.forEach((ai, factory) -> {
 				factory.createSpectators(game).forEach(game::registerSpectator);
 				Pane pane = surface.onCreate(ai);
-				factory.ready(() -> pane, manager);
+				factory.ready(() -> pane, provider);
 			});
 		}
 
@@ -124,6 +132,55 @@ public class AIPool<G> {
 
 	}
 
+	/**
+	 * Resources of the manager with the timeout of the current game
+	 */
+	static class GameResources implements ResourceProvider {
+
+		private final ResourceManager manager;
+		private final Duration timeout;
+
+		private GameResources(ResourceManager manager, Duration timeout) {
+			this.manager = requireNonNull(manager);
+			this.timeout = requireNonNull(timeout);
+		}
+
+		@Override
+		public Image getMap() {
+			return manager.getMap();
+		}
+
+		@Override
+		public Image getTicket(Ticket ticket) {
+			return manager.getTicket(ticket);
+		}
+
+		@Override
+		public Graph<Integer, Transport> getGraph() {
+			return manager.getGraph();
+		}
+
+		@Override
+		public Point2D coordinateAtNode(int node) {
+			return manager.coordinateAtNode(node);
+		}
+
+		@Override
+		public Duration getMoveTimeout() {
+			return timeout;
+		}
+
+		@Override
+		public DistanceOracle getDistances() {
+			return manager.getDistances();
+		}
+
+		@Override
+		public TicketReachability getReachability() {
+			return manager.getReachability();
+		}
+	}
+
 	static class ThreadedPlayer implements Player {
 
 		final static ExecutorService service = Executors.newWorkStealingPool();
@@ -0,0 +1,297 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * All-pairs shortest path distances(in number of edges) of a game graph,
+ * both over all edges and over the edges of each {@link Transport} on its own.
+ * Distances are computed once with a breadth first search from every node,
+ * split across a {@link ForkJoinPool}, and stored in a flat matrix of one
+ * byte(or two bytes for graphs with more than 255 nodes) per pair, so the
+ * matrix of a graph must fit in {@link Integer#MAX_VALUE} bytes. <br>
+ * {@link #load(Graph, Path)} keeps the matrix in a versioned cache file keyed
+ * by {@link CompactGraph#fingerprint()}, later loads memory map that file
+ * instead of searching again. Instances are immutable and thread safe.
+ */
+public final class DistanceOracle {
+
+	/**
+	 * Distance returned for nodes that cannot reach each other
+	 */
+	public static final int UNREACHABLE = -1;
+
+	private static final int MAGIC = 0x5344_4F31; // "SDO1"
+	private static final int VERSION = 1;
+	private static final int HEADER = 4 + 4 + 8 + 4 + 4 + 4;
+	private static final int LAYERS = Transport.values().length + 1;
+	private static final int ALL = 0;
+	// searching from this many sources is worth a task of its own
+	private static final int SOURCES_PER_TASK = 16;
+
+	private static final Map<Long, DistanceOracle> SHARED = new ConcurrentHashMap<>();
+
+	private final CompactGraph<Transport> graph;
+	private final int nodes;
+	private final int width;
+	private final int unreachable;
+	private final ByteBuffer distances;
+
+	private DistanceOracle(CompactGraph<Transport> graph, int width, ByteBuffer distances) {
+		this.graph = graph;
+		this.nodes = graph.size();
+		this.width = width;
+		this.unreachable = width == 1 ? 0xFF : 0xFFFF;
+		this.distances = distances;
+	}
+
+	/**
+	 * Computes the distances of the given graph without touching any cache
+	 *
+	 * @param graph the graph; not null
+	 * @return the distances; never null
+	 * @throws IllegalArgumentException if the graph has too many nodes for the
+	 *         matrix to fit in an array
+	 */
+	public static DistanceOracle compute(Graph<Integer, Transport> graph) {
+		CompactGraph<Transport> compact = CompactGraph.copyOf(Objects.requireNonNull(graph),
+				Transport.class);
+		int nodes = compact.size();
+		int width = nodes < 0xFF ? 1 : 2;
+		byte[] matrix = new byte[matrixSize(nodes, width)];
+		ForkJoinPool.commonPool().invoke(new Search(compact, width, matrix, 0, nodes));
+		return new DistanceOracle(compact, width, ByteBuffer.wrap(matrix));
+	}
+
+	/**
+	 * Loads the distances of the given graph from a cache file in the given
+	 * directory, computing and writing the file first if it does not exist or
+	 * does not match the graph
+	 *
+	 * @param graph the graph; not null
+	 * @param directory the cache directory, created if missing; not null
+	 * @return the distances; never null
+	 * @throws IOException if the cache file cannot be read or written
+	 * @throws IllegalArgumentException as {@link #compute(Graph)}
+	 */
+	public static DistanceOracle load(Graph<Integer, Transport> graph, Path directory)
+			throws IOException {
+		CompactGraph<Transport> compact = CompactGraph.copyOf(Objects.requireNonNull(graph),
+				Transport.class);
+		Path file = Objects.requireNonNull(directory).resolve(
+				String.format("distances-%016x.bin", compact.fingerprint()));
+		if (Files.isRegularFile(file)) {
+			DistanceOracle cached = map(compact, file);
+			if (cached != null) return cached;
+		}
+		DistanceOracle computed = compute(compact);
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, "distances", ".tmp");
+		try {
+			computed.write(temporary);
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		return computed;
+	}
+
+	/**
+	 * Returns the distances of the given graph, shared between all callers
+	 * with the same graph. The distances are cached in
+	 * {@link #defaultDirectory()}; if the cache cannot be used they are
+	 * computed in memory instead.
+	 *
+	 * @param graph the graph; not null
+	 * @return the distances; never null
+	 */
+	public static DistanceOracle of(Graph<Integer, Transport> graph) {
+		CompactGraph<Transport> compact = CompactGraph.copyOf(Objects.requireNonNull(graph),
+				Transport.class);
+		return SHARED.computeIfAbsent(compact.fingerprint(), fingerprint -> {
+			try {
+				return load(compact, defaultDirectory());
+			} catch (IOException e) {
+				return compute(compact);
+			}
+		});
+	}
+
+	/**
+	 * @return {@link StandardGame#cacheDirectory()}; never null
+	 */
+	public static Path defaultDirectory() {
+		return StandardGame.cacheDirectory();
+	}
+
+	private static DistanceOracle map(CompactGraph<Transport> graph, Path file)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER) return null;
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			int nodes = graph.size();
+			int width = nodes < 0xFF ? 1 : 2;
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+					|| buffer.getLong() != graph.fingerprint() || buffer.getInt() != nodes
+					|| buffer.getInt() != LAYERS || buffer.getInt() != width
+					|| buffer.remaining() != matrixSize(nodes, width))
+				return null;
+			return new DistanceOracle(graph, width, buffer.slice());
+		}
+	}
+
+	/**
+	 * Writes the distances to a file in the cache format
+	 *
+	 * @param file the file to write, replaced if it exists; not null
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER);
+		header.putInt(MAGIC).putInt(VERSION).putLong(graph.fingerprint()).putInt(nodes)
+				.putInt(LAYERS).putInt(width).flip();
+		ByteBuffer body = distances.duplicate();
+		body.clear();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (header.hasRemaining()) channel.write(header);
+			while (body.hasRemaining()) channel.write(body);
+		}
+	}
+
+	/**
+	 * @return the graph the distances belong to; never null
+	 */
+	public CompactGraph<Transport> graph() {
+		return graph;
+	}
+
+	/**
+	 * @param from the source node value; must be in the graph
+	 * @param to the destination node value; must be in the graph
+	 * @return the least number of edges between the nodes, or
+	 *         {@link #UNREACHABLE}
+	 */
+	public int distance(int from, int to) {
+		return read(ALL, from, to);
+	}
+
+	/**
+	 * @param from the source node value; must be in the graph
+	 * @param to the destination node value; must be in the graph
+	 * @param transport only follow edges of this transport; not null
+	 * @return the least number of edges of the given transport between the
+	 *         nodes, or {@link #UNREACHABLE}
+	 */
+	public int distance(int from, int to, Transport transport) {
+		return read(transport.ordinal() + 1, from, to);
+	}
+
+	private int read(int layer, int from, int to) {
+		int index = ((layer * nodes + indexOf(from)) * nodes + indexOf(to)) * width;
+		int distance = width == 1 ? distances.get(index) & 0xFF
+				: distances.getShort(index) & 0xFFFF;
+		return distance == unreachable ? UNREACHABLE : distance;
+	}
+
+	private static int matrixSize(int nodes, int width) {
+		long size = (long) LAYERS * nodes * nodes * width;
+		if (size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Distances of " + nodes + " nodes take " + size
+					+ " bytes, more than the " + Integer.MAX_VALUE + " supported");
+		return (int) size;
+	}
+
+	private int indexOf(int value) {
+		int index = graph.indexOf(value);
+		if (index < 0)
+			throw new IllegalArgumentException("Node(" + value + ") is not in the graph");
+		return index;
+	}
+
+	private static final class Search extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CompactGraph<Transport> graph;
+		private final int width;
+		private final byte[] matrix;
+		private final int from;
+		private final int to;
+
+		Search(CompactGraph<Transport> graph, int width, byte[] matrix, int from, int to) {
+			this.graph = graph;
+			this.width = width;
+			this.matrix = matrix;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > SOURCES_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Search(graph, width, matrix, from, middle),
+						new Search(graph, width, matrix, middle, to));
+				return;
+			}
+			int nodes = graph.size();
+			int[] queue = new int[nodes];
+			int[] distance = new int[nodes];
+			for (int source = from; source < to; source++)
+				for (int layer = 0; layer < LAYERS; layer++) {
+					search(source, layer, queue, distance);
+					int row = (layer * nodes + source) * nodes;
+					for (int target = 0; target < nodes; target++)
+						store(row + target, distance[target]);
+				}
+		}
+
+		private void search(int source, int layer, int[] queue, int[] distance) {
+			Arrays.fill(distance, -1);
+			int head = 0, tail = 0;
+			distance[source] = 0;
+			queue[tail++] = source;
+			while (head < tail) {
+				int node = queue[head++];
+				int value = graph.valueAt(node);
+				for (int slot = graph.edgesBegin(value), end = graph.edgesEnd(value);
+				     slot < end; slot++) {
+					if (layer != ALL && graph.dataOrdinal(slot) != layer - 1) continue;
+					int next = graph.indexOf(graph.target(slot));
+					if (distance[next] >= 0) continue;
+					distance[next] = distance[node] + 1;
+					queue[tail++] = next;
+				}
+			}
+		}
+
+		private void store(int index, int distance) {
+			int stored = distance < 0 ? (width == 1 ? 0xFF : 0xFFFF) : distance;
+			if (width == 1) {
+				matrix[index] = (byte) stored;
+			} else {
+				matrix[index * 2] = (byte) (stored >>> 8);
+				matrix[index * 2 + 1] = (byte) stored;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * <b> Not a public API, do not use!</b> <br>
+ * Writes the index of {@link ManagedAI}s read by {@link AI#loadAll()}, so
+ * that finding them at runtime does not have to scan the classpath. <br>
+ * The index is written to {@link #INDEX} in the class output, the binary name
+ * of an annotated class per line. Annotated classes that do not implement
+ * {@link PlayerFactory} and AIs with the same name are compile errors. The
+ * processor is registered as a service, so it runs wherever this jar is on
+ * the compile classpath. <br>
+ * An incremental compile(e.g. in an IDE) only processes the classes that
+ * changed, so the index in the class output is merged with rather than
+ * replaced: indexed classes are kept as long as they can still be found and
+ * are still annotated.
+ */
+public final class ManagedAIProcessor extends AbstractProcessor {
+
+	/**
+	 * The resource path of the index
+	 */
+	public static final String INDEX = "META-INF/scotlandyard/managed-ai";
+
+	// the processor is compiled on its own before everything else, so it
+	// refers to PlayerFactory by name only
+	private static final String PLAYER_FACTORY = "uk.ac.bris.cs.scotlandyard.ai.PlayerFactory";
+
+	private final Map<String, TypeElement> byName = new LinkedHashMap<>();
+	private final List<Element> originating = new ArrayList<>();
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton(ManagedAI.class.getCanonicalName());
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+		TypeElement factory = processingEnv.getElementUtils().getTypeElement(PLAYER_FACTORY);
+		for (Element element : round.getElementsAnnotatedWith(ManagedAI.class)) {
+			if (!isFactory(element, factory)) {
+				error(element,
+						element + " is not a concrete class implementing " + PLAYER_FACTORY);
+				continue;
+			}
+			String name = element.getAnnotation(ManagedAI.class).value();
+			TypeElement existing = byName.putIfAbsent(name, (TypeElement) element);
+			if (existing != null) {
+				error(element, "AIs with same name are not allowed as it becomes ambiguous which "
+						+ "AI is selected during runtime. " + name + " is also used by " + existing);
+				continue;
+			}
+			originating.add(element);
+		}
+		if (round.processingOver() && !byName.isEmpty() && !round.errorRaised()) write();
+		return true;
+	}
+
+	private boolean isFactory(Element element, TypeElement factory) {
+		if (element.getKind() != ElementKind.CLASS
+				|| element.getModifiers().contains(Modifier.ABSTRACT)) return false;
+		if (factory == null) return false;
+		TypeMirror type = processingEnv.getTypeUtils().erasure(factory.asType());
+		return processingEnv.getTypeUtils().isAssignable(element.asType(), type);
+	}
+
+	private void write() {
+		Set<String> processed = new HashSet<>();
+		for (TypeElement element : byName.values()) processed.add(binaryName(element));
+		TypeElement factory = processingEnv.getElementUtils().getTypeElement(PLAYER_FACTORY);
+		Map<String, TypeElement> merged = new LinkedHashMap<>();
+		for (String binaryName : readIndex()) {
+			if (processed.contains(binaryName)) continue;
+			TypeElement element = processingEnv.getElementUtils()
+					.getTypeElement(binaryName.replace('$', '.'));
+			// removed or no longer an AI since the index was written
+			if (element == null || element.getAnnotation(ManagedAI.class) == null
+					|| !isFactory(element, factory)) continue;
+			merged.putIfAbsent(element.getAnnotation(ManagedAI.class).value(), element);
+		}
+		boolean unique = true;
+		for (Map.Entry<String, TypeElement> entry : byName.entrySet()) {
+			TypeElement existing = merged.put(entry.getKey(), entry.getValue());
+			if (existing != null) {
+				error(entry.getValue(), "AIs with same name are not allowed as it becomes "
+						+ "ambiguous which AI is selected during runtime. " + entry.getKey()
+						+ " is also used by " + existing);
+				unique = false;
+			}
+		}
+		if (!unique) return;
+		try {
+			FileObject index = processingEnv.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", INDEX,
+					originating.toArray(new Element[0]));
+			try (Writer writer = new OutputStreamWriter(index.openOutputStream(),
+					StandardCharsets.UTF_8)) {
+				for (TypeElement element : merged.values()) {
+					writer.write(binaryName(element));
+					writer.write('\n');
+				}
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+					"Unable to write " + INDEX + ": " + e.getMessage());
+		}
+	}
+
+	private List<String> readIndex() {
+		List<String> names = new ArrayList<>();
+		try {
+			FileObject index = processingEnv.getFiler().getResource(
+					StandardLocation.CLASS_OUTPUT, "", INDEX);
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+					index.openInputStream(), StandardCharsets.UTF_8))) {
+				for (String line; (line = reader.readLine()) != null; ) {
+					line = line.trim();
+					if (!line.isEmpty()) names.add(line);
+				}
+			}
+		} catch (IOException e) {
+			// no index yet
+		}
+		return names;
+	}
+
+	private String binaryName(TypeElement element) {
+		return processingEnv.getElementUtils().getBinaryName(element).toString();
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+	}
+
+}
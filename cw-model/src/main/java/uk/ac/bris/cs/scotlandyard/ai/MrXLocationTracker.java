@@ -0,0 +1,155 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.Bitboard;
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.NeighbourMasks;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * A {@link Spectator} that keeps track of every location Mr.X could be at,
+ * using only what the detectives can see. Each of Mr.X's moves advances the
+ * set by one step along edges the used ticket allows, a move in a reveal round
+ * collapses it to the revealed location and detective moves remove their
+ * destinations. The set is a {@link Bitboard}, so every update is a handful of
+ * word operations. <br>
+ * Double moves need no special handling as the model reports both halves as
+ * separate moves after the double move itself. <br>
+ * Register an instance before the game starts, e.g. from
+ * {@link PlayerFactory#createSpectators(ScotlandYardView)}. The set may be read
+ * from other threads.
+ */
+public final class MrXLocationTracker implements Spectator {
+
+	private static final Transport[] TRANSPORTS = Transport.values();
+
+	private final NeighbourMasks<Transport> masks;
+	private final Bitboard detectives;
+	private Bitboard possible;
+	private Bitboard next;
+
+	/**
+	 * Creates a tracker where Mr.X could start at any of the given locations
+	 *
+	 * @param graph the graph of the game; not null
+	 * @param startLocations locations Mr.X may start at, e.g.
+	 *        {@link uk.ac.bris.cs.scotlandyard.model.StandardGame#MRX_LOCATIONS};
+	 *        not null
+	 */
+	public MrXLocationTracker(Graph<Integer, Transport> graph,
+			Collection<Integer> startLocations) {
+		this.masks = NeighbourMasks.of(CompactGraph.copyOf(Objects.requireNonNull(graph),
+				Transport.class));
+		this.detectives = masks.newBitboard();
+		this.possible = masks.newBitboard();
+		this.next = masks.newBitboard();
+		reset(startLocations);
+	}
+
+	/**
+	 * Creates a tracker where Mr.X could start anywhere on the graph
+	 *
+	 * @param graph the graph of the game; not null
+	 */
+	public MrXLocationTracker(Graph<Integer, Transport> graph) {
+		this(graph, Collections.emptyList());
+		CompactGraph<Transport> compact = masks.graph();
+		for (int i = 0; i < compact.size(); i++) possible.add(compact.valueAt(i));
+	}
+
+	/**
+	 * Replaces the possible locations
+	 *
+	 * @param locations locations Mr.X may be at; not null
+	 */
+	public synchronized void reset(Collection<Integer> locations) {
+		possible.clear();
+		for (int location : locations)
+			if (masks.graph().containsNode(location)) possible.add(location);
+	}
+
+	@Override
+	public synchronized void onMoveMade(ScotlandYardView view, Move move) {
+		if (!(move instanceof TicketMove)) return;
+		TicketMove ticketMove = (TicketMove) move;
+		if (move.colour().isDetective()) {
+			possible.remove(ticketMove.destination());
+			return;
+		}
+		// the round has already been started when the move is reported
+		int round = view.getCurrentRound();
+		if (view.getRounds().get(round - 1)) {
+			possible.clear();
+			possible.add(ticketMove.destination());
+			return;
+		}
+		advance(ticketMove.ticket(), view);
+	}
+
+	private void advance(Ticket ticket, ScotlandYardView view) {
+		next.clear();
+		if (ticket == Ticket.SECRET) {
+			masks.reachable(possible, next);
+		} else {
+			for (Transport transport : TRANSPORTS)
+				if (Ticket.fromTransport(transport) == ticket)
+					masks.reachable(possible, transport.ordinal(), next);
+		}
+		// Mr.X can never move onto a detective
+		detectives.clear();
+		for (Colour colour : view.getPlayers())
+			if (colour.isDetective())
+				view.getPlayerLocation(colour).ifPresent(detectives::add);
+		next.andNot(detectives);
+		Bitboard previous = possible;
+		possible = next;
+		next = previous;
+	}
+
+	/**
+	 * @return the number of locations Mr.X could be at
+	 */
+	public synchronized int count() {
+		return possible.cardinality();
+	}
+
+	/**
+	 * @param location the location
+	 * @return true if Mr.X could be at the given location
+	 */
+	public synchronized boolean isPossible(int location) {
+		return possible.contains(location);
+	}
+
+	/**
+	 * @return a copy of the locations Mr.X could be at; never null
+	 */
+	public synchronized Bitboard possibleLocations() {
+		Bitboard copy = masks.newBitboard();
+		copy.copyFrom(possible);
+		return copy;
+	}
+
+	/**
+	 * @return the locations Mr.X could be at in ascending order; never null
+	 */
+	public synchronized Set<Integer> possibleLocationSet() {
+		Set<Integer> locations = new LinkedHashSet<>();
+		for (int v = possible.nextSetBit(0); v >= 0; v = possible.nextSetBit(v + 1))
+			locations.add(v);
+		return Collections.unmodifiableSet(locations);
+	}
+
+}
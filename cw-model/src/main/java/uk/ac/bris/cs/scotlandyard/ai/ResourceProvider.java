@@ -1,5 +1,7 @@
 package uk.ac.bris.cs.scotlandyard.ai;
 
+import java.time.Duration;
+
 import javafx.geometry.Point2D;
 import javafx.scene.image.Image;
 import uk.ac.bris.cs.gamekit.graph.Graph;
@@ -45,4 +47,36 @@ public interface ResourceProvider {
 	 */
 	Point2D coordinateAtNode(int node);
 
+	/**
+	 * Retrieves how long a player has to make a move in the current game, a
+	 * player that has not chosen a move by then loses the game
+	 *
+	 * @return the timeout, defaults to a minute; never null
+	 */
+	default Duration getMoveTimeout() {
+		return Duration.ofMinutes(1);
+	}
+
+	/**
+	 * Retrieves the shortest path distances of the game graph, computed once
+	 * and shared by everyone using the same graph
+	 *
+	 * @return the distances; never null
+	 * @see DistanceOracle#of(Graph)
+	 */
+	default DistanceOracle getDistances() {
+		return DistanceOracle.of(getGraph());
+	}
+
+	/**
+	 * Retrieves reachability queries that respect ticket counts for the game
+	 * graph, shared by everyone using the same graph
+	 *
+	 * @return the reachability queries; never null
+	 * @see TicketReachability#of(Graph)
+	 */
+	default TicketReachability getReachability() {
+		return TicketReachability.of(getGraph());
+	}
+
 }
@@ -0,0 +1,282 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.bris.cs.gamekit.graph.Bitboard;
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.NeighbourMasks;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Answers reachability questions that respect a player's tickets, e.g. how
+ * many moves a detective without underground tickets needs to get somewhere.
+ * Every move uses one ticket of the edge's transport, or a
+ * {@link Ticket#SECRET} ticket for any edge; {@link Ticket#DOUBLE} tickets are
+ * ignored and other players do not block the way. <br>
+ * Answers come from a breadth first search over (node, remaining tickets)
+ * states. A state is skipped when the same node has already been reached with
+ * at least as many tickets of every kind, which keeps the search close to the
+ * size of the graph. The distances from a source with a given set of tickets
+ * are memoised, so repeated queries from the same position are lookups. <br>
+ * Instances are thread safe.
+ */
+public final class TicketReachability {
+
+	/**
+	 * Number of moves returned for destinations that cannot be reached
+	 */
+	public static final int UNREACHABLE = -1;
+
+	// ticket counts are packed one per byte and capped so that byte-wise
+	// comparisons cannot overflow
+	private static final int MAX_TICKETS = 0x7F;
+	private static final int SECRET_SHIFT = 24;
+	private static final int[] SHIFT_OF_TRANSPORT = new int[Transport.values().length];
+	private static final int MEMO_SIZE = 1024;
+
+	private static final Map<Long, TicketReachability> SHARED = new ConcurrentHashMap<>();
+
+	static {
+		for (Transport transport : Transport.values())
+			SHIFT_OF_TRANSPORT[transport.ordinal()] = shiftOf(Ticket.fromTransport(transport));
+	}
+
+	private final CompactGraph<Transport> graph;
+	private final NeighbourMasks<Transport> masks;
+	private final Map<Long, int[]> memo = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+			return size() > MEMO_SIZE;
+		}
+	};
+
+	/**
+	 * @param graph the graph; not null
+	 */
+	public TicketReachability(Graph<Integer, Transport> graph) {
+		this.graph = CompactGraph.copyOf(Objects.requireNonNull(graph), Transport.class);
+		this.masks = NeighbourMasks.of(this.graph);
+	}
+
+	/**
+	 * Returns an instance for the given graph, shared between all callers with
+	 * the same graph so the memoised answers are shared as well
+	 *
+	 * @param graph the graph; not null
+	 * @return the instance; never null
+	 */
+	public static TicketReachability of(Graph<Integer, Transport> graph) {
+		CompactGraph<Transport> compact = CompactGraph.copyOf(Objects.requireNonNull(graph),
+				Transport.class);
+		return SHARED.computeIfAbsent(compact.fingerprint(),
+				fingerprint -> new TicketReachability(compact));
+	}
+
+	/**
+	 * Reads the tickets of a player from a view
+	 *
+	 * @param view the view; not null
+	 * @param colour the colour of the player; not null
+	 * @return ticket counts indexed by {@link Ticket#ordinal()}; never null
+	 */
+	public static int[] ticketsOf(ScotlandYardView view, Colour colour) {
+		int[] tickets = new int[Ticket.values().length];
+		for (Ticket ticket : Ticket.values())
+			tickets[ticket.ordinal()] = view.getPlayerTickets(colour, ticket).orElse(0);
+		return tickets;
+	}
+
+	/**
+	 * @param from the source node value; must be in the graph
+	 * @param to the destination node value; must be in the graph
+	 * @param tickets the tickets available; not null, missing tickets count as
+	 *        zero
+	 * @return the least number of moves from {@code from} to {@code to} with
+	 *         the given tickets, or {@link #UNREACHABLE}
+	 */
+	public int minMoves(int from, int to, Map<Ticket, Integer> tickets) {
+		return minMoves(from, to, toArray(tickets));
+	}
+
+	/**
+	 * @param from the source node value; must be in the graph
+	 * @param to the destination node value; must be in the graph
+	 * @param tickets ticket counts indexed by {@link Ticket#ordinal()}; not null
+	 * @return the least number of moves from {@code from} to {@code to} with
+	 *         the given tickets, or {@link #UNREACHABLE}
+	 */
+	public int minMoves(int from, int to, int[] tickets) {
+		return distances(from, tickets)[indexOf(to)];
+	}
+
+	/**
+	 * @param from the source node value; must be in the graph
+	 * @param moves the maximum number of moves
+	 * @param tickets the tickets available; not null, missing tickets count as
+	 *        zero
+	 * @return the values of all nodes reachable in at most the given number of
+	 *         moves in ascending order, including {@code from}; never null
+	 */
+	public Set<Integer> reachableWithin(int from, int moves, Map<Ticket, Integer> tickets) {
+		Bitboard reachable = reachableWithin(from, moves, toArray(tickets));
+		Set<Integer> values = new LinkedHashSet<>();
+		for (int v = reachable.nextSetBit(0); v >= 0; v = reachable.nextSetBit(v + 1))
+			values.add(v);
+		return Collections.unmodifiableSet(values);
+	}
+
+	/**
+	 * @param from the source node value; must be in the graph
+	 * @param moves the maximum number of moves
+	 * @param tickets ticket counts indexed by {@link Ticket#ordinal()}; not null
+	 * @return a new bitboard of all nodes reachable in at most the given number
+	 *         of moves, including {@code from}; never null
+	 */
+	public Bitboard reachableWithin(int from, int moves, int[] tickets) {
+		int[] distances = distances(from, tickets);
+		Bitboard reachable = masks.newBitboard();
+		for (int i = 0; i < distances.length; i++)
+			if (distances[i] != UNREACHABLE && distances[i] <= moves)
+				reachable.add(graph.valueAt(i));
+		return reachable;
+	}
+
+	private int[] distances(int from, int[] tickets) {
+		int source = indexOf(from);
+		int budget = pack(tickets);
+		Long key = (long) source << 32 | budget & 0xFFFFFFFFL;
+		synchronized (memo) {
+			int[] cached = memo.get(key);
+			if (cached != null) return cached;
+		}
+		int[] distances = search(source, budget);
+		synchronized (memo) {
+			memo.put(key, distances);
+		}
+		return distances;
+	}
+
+	private int[] search(int source, int budget) {
+		int nodes = graph.size();
+		int[] distances = new int[nodes];
+		Arrays.fill(distances, UNREACHABLE);
+		// ticket vectors each node has been reached with, none of them covers
+		// another
+		int[][] seen = new int[nodes][];
+		int[] seenCount = new int[nodes];
+		int[] frontierNodes = {source};
+		int[] frontierBudgets = {budget};
+		int frontier = 1;
+		distances[source] = 0;
+		remember(seen, seenCount, source, budget);
+		for (int moves = 1; frontier > 0; moves++) {
+			int[] nextNodes = new int[Math.max(16, frontier * 2)];
+			int[] nextBudgets = new int[nextNodes.length];
+			int next = 0;
+			for (int i = 0; i < frontier; i++) {
+				int value = graph.valueAt(frontierNodes[i]);
+				int remaining = frontierBudgets[i];
+				boolean secret = (remaining >>> SECRET_SHIFT & 0xFF) > 0;
+				for (int slot = graph.edgesBegin(value), end = graph.edgesEnd(value);
+				     slot < end; slot++) {
+					int target = graph.indexOf(graph.target(slot));
+					int shift = SHIFT_OF_TRANSPORT[graph.dataOrdinal(slot)];
+					for (int option = 0; option < 2; option++) {
+						int used = option == 0 ? shift : SECRET_SHIFT;
+						if (option == 0 && shift == SECRET_SHIFT || option == 1 && !secret
+								|| (remaining >>> used & 0xFF) == 0) continue;
+						int left = remaining - (1 << used);
+						if (!remember(seen, seenCount, target, left)) continue;
+						if (distances[target] == UNREACHABLE) distances[target] = moves;
+						if (next == nextNodes.length) {
+							nextNodes = Arrays.copyOf(nextNodes, next * 2);
+							nextBudgets = Arrays.copyOf(nextBudgets, next * 2);
+						}
+						nextNodes[next] = target;
+						nextBudgets[next++] = left;
+					}
+				}
+			}
+			frontierNodes = nextNodes;
+			frontierBudgets = nextBudgets;
+			frontier = next;
+		}
+		return distances;
+	}
+
+	// adds the budget to the node unless it is covered by a known one,
+	// dropping known budgets it covers
+	private static boolean remember(int[][] seen, int[] seenCount, int node, int budget) {
+		int[] budgets = seen[node];
+		int count = seenCount[node];
+		for (int i = 0; i < count; i++)
+			if (covers(budgets[i], budget)) return false;
+		int kept = 0;
+		for (int i = 0; i < count; i++)
+			if (!covers(budget, budgets[i])) budgets[kept++] = budgets[i];
+		if (budgets == null) budgets = seen[node] = new int[4];
+		else if (kept == budgets.length) budgets = seen[node] = Arrays.copyOf(budgets, kept * 2);
+		budgets[kept++] = budget;
+		seenCount[node] = kept;
+		return true;
+	}
+
+	// whether every ticket count of a is at least the one of b
+	private static boolean covers(int a, int b) {
+		return ((a | 0x80808080) - b & 0x80808080) == 0x80808080;
+	}
+
+	private static int pack(int[] tickets) {
+		int packed = 0;
+		for (Ticket ticket : Ticket.values()) {
+			if (ticket == Ticket.DOUBLE) continue;
+			int count = Math.max(0, Math.min(MAX_TICKETS, tickets[ticket.ordinal()]));
+			packed |= count << shiftOf(ticket);
+		}
+		return packed;
+	}
+
+	private static int shiftOf(Ticket ticket) {
+		switch (ticket) {
+			case TAXI:
+				return 0;
+			case BUS:
+				return 8;
+			case UNDERGROUND:
+				return 16;
+			case SECRET:
+				return SECRET_SHIFT;
+			default:
+				throw new IllegalArgumentException("No shift for " + ticket);
+		}
+	}
+
+	private static int[] toArray(Map<Ticket, Integer> tickets) {
+		int[] counts = new int[Ticket.values().length];
+		for (Map.Entry<Ticket, Integer> entry : tickets.entrySet())
+			if (entry.getKey() != null && entry.getValue() != null)
+				counts[entry.getKey().ordinal()] = entry.getValue();
+		return counts;
+	}
+
+	private int indexOf(int value) {
+		int index = graph.indexOf(value);
+		if (index < 0)
+			throw new IllegalArgumentException("Node(" + value + ") is not in the graph");
+		return index;
+	}
+
+}
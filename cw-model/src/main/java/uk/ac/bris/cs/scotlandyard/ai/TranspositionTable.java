@@ -0,0 +1,195 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.Arrays;
+
+import uk.ac.bris.cs.scotlandyard.model.PackedMove;
+import uk.ac.bris.cs.scotlandyard.model.SearchState;
+
+/**
+ * A fixed size hash table of search results keyed by
+ * {@link SearchState#hash()}, meant to be shared by all players of a side, e.g.
+ * as a field of their common {@link PlayerFactory}. <br>
+ * Entries live in a flat {@code long[]} in buckets of four, each entry being
+ * two longs: the key xor the data, and the data. Threads read and write
+ * without locks; an entry torn by a concurrent write no longer xors back to
+ * its key and is treated as a miss. When a bucket is full the entry with the
+ * least depth from the oldest search is replaced.
+ */
+public final class TranspositionTable {
+
+	/**
+	 * Returned by {@link #probe(long)} when there is no entry for a key
+	 */
+	public static final long MISS = 0;
+
+	/**
+	 * Bound of a score that is exact
+	 */
+	public static final int EXACT = 0;
+
+	/**
+	 * Bound of a score that is at least the stored score(a fail high)
+	 */
+	public static final int LOWER = 1;
+
+	/**
+	 * Bound of a score that is at most the stored score(a fail low)
+	 */
+	public static final int UPPER = 2;
+
+	private static final int BUCKET = 4;
+	private static final int MAX_DEPTH = 0xFF;
+	private static final int GENERATIONS = 0x20;
+	private static final long VALID = 1L << 63;
+	private static final int MAX_BUCKETS = 1 << 26;
+
+	private final long[] table;
+	private final int bucketMask;
+	private volatile int generation;
+
+	/**
+	 * Creates a table with room for at least the given number of entries,
+	 * rounded up to a power of two
+	 *
+	 * @param entries the number of entries, at least 1
+	 */
+	public TranspositionTable(int entries) {
+		if (entries < 1) throw new IllegalArgumentException("entries < 1");
+		int needed = (int) (((long) entries + BUCKET - 1) / BUCKET);
+		if (needed > MAX_BUCKETS) throw new IllegalArgumentException("Too many entries");
+		int buckets = needed == 1 ? 1 : Integer.highestOneBit(needed - 1) << 1;
+		this.table = new long[buckets * BUCKET * 2];
+		this.bucketMask = buckets - 1;
+	}
+
+	/**
+	 * Creates a table that uses about the given amount of memory
+	 *
+	 * @param megabytes the size of the table in megabytes, at least 1
+	 * @return a new table; never null
+	 */
+	public static TranspositionTable ofMegabytes(int megabytes) {
+		if (megabytes < 1) throw new IllegalArgumentException("megabytes < 1");
+		long entries = (long) megabytes * (1 << 20) / 16;
+		return new TranspositionTable((int) Math.min(entries, (long) MAX_BUCKETS * BUCKET));
+	}
+
+	/**
+	 * @return the number of entries the table can hold
+	 */
+	public int capacity() {
+		return table.length / 2;
+	}
+
+	/**
+	 * Marks the start of a new search, entries from older searches are
+	 * replaced first
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & (GENERATIONS - 1);
+	}
+
+	/**
+	 * Removes all entries, must not be called while other threads use the
+	 * table
+	 */
+	public void clear() {
+		Arrays.fill(table, 0);
+	}
+
+	/**
+	 * Stores a search result
+	 *
+	 * @param key the hash of the state
+	 * @param move the best move found, a {@link PackedMove}
+	 * @param score the score, clamped to a short
+	 * @param depth the remaining depth the state was searched to, clamped to
+	 *        [0, 255]
+	 * @param bound one of {@link #EXACT}, {@link #LOWER} and {@link #UPPER}
+	 */
+	public void store(long key, int move, int score, int depth, int bound) {
+		int current = generation;
+		long data = pack(move, score, depth, bound, current);
+		int base = bucketOf(key);
+		int replace = base;
+		int worst = Integer.MAX_VALUE;
+		for (int i = base; i < base + BUCKET * 2; i += 2) {
+			long stored = table[i + 1];
+			if (stored == MISS || (table[i] ^ stored) == key) {
+				replace = i;
+				break;
+			}
+			// prefer replacing shallow entries from old searches
+			int age = (current - generation(stored)) & (GENERATIONS - 1);
+			int value = depth(stored) - age * 8;
+			if (value < worst) {
+				worst = value;
+				replace = i;
+			}
+		}
+		table[replace] = key ^ data;
+		table[replace + 1] = data;
+	}
+
+	/**
+	 * @param key the hash of the state
+	 * @return the stored entry, or {@link #MISS}; read it with
+	 *         {@link #move(long)}, {@link #score(long)}, {@link #depth(long)} and
+	 *         {@link #bound(long)}
+	 */
+	public long probe(long key) {
+		int base = bucketOf(key);
+		for (int i = base; i < base + BUCKET * 2; i += 2) {
+			long data = table[i + 1];
+			if (data != MISS && (table[i] ^ data) == key) return data;
+		}
+		return MISS;
+	}
+
+	/**
+	 * @return the move of an entry
+	 */
+	public static int move(long entry) {
+		return (int) entry;
+	}
+
+	/**
+	 * @return the score of an entry
+	 */
+	public static int score(long entry) {
+		return (short) (entry >>> 32);
+	}
+
+	/**
+	 * @return the depth of an entry
+	 */
+	public static int depth(long entry) {
+		return (int) (entry >>> 48) & MAX_DEPTH;
+	}
+
+	/**
+	 * @return the bound of an entry
+	 */
+	public static int bound(long entry) {
+		return (int) (entry >>> 56) & 0x3;
+	}
+
+	private static int generation(long entry) {
+		return (int) (entry >>> 58) & (GENERATIONS - 1);
+	}
+
+	private static long pack(int move, int score, int depth, int bound, int generation) {
+		int clampedScore = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score));
+		int clampedDepth = Math.max(0, Math.min(MAX_DEPTH, depth));
+		return VALID | (move & 0xFFFFFFFFL) | (clampedScore & 0xFFFFL) << 32
+				| (long) clampedDepth << 48 | (long) (bound & 0x3) << 56
+				| (long) generation << 58;
+	}
+
+	private int bucketOf(long key) {
+		// the low bits are as random as the high ones for Zobrist keys, fold
+		// them anyway so other keys spread too
+		return (int) ((key ^ key >>> 32) & bucketMask) * BUCKET * 2;
+	}
+
+}
@@ -0,0 +1,165 @@
+package uk.ac.bris.cs.scotlandyard.ai.alphabeta;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.LoggerFactory;
+
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.ai.DistanceOracle;
+import uk.ac.bris.cs.scotlandyard.ai.ManagedAI;
+import uk.ac.bris.cs.scotlandyard.ai.MrXLocationTracker;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
+import uk.ac.bris.cs.scotlandyard.ai.TranspositionTable;
+import uk.ac.bris.cs.scotlandyard.ai.Visualiser;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.PackedMove;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.SearchState;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+
+/**
+ * An iterative deepening alpha-beta AI for both Mr.X and the detectives, see
+ * {@link AlphaBetaSearch}. <br>
+ * Each move is searched for half of the game's move timeout(see
+ * {@link ResourceProvider#getMoveTimeout()}), but at most
+ * {@link #DEFAULT_THINKING_TIME}, on the thread calling
+ * {@link Player#makeMove}. Every move is logged with the depth reached and
+ * the nodes searched per second. <br>
+ * Detectives do not know where Mr.X is, so they search as if he were at one
+ * of the locations a {@link MrXLocationTracker} shared by the side still
+ * considers possible, picked at random for every move.
+ */
+@ManagedAI("AlphaBeta")
+public final class AlphaBetaPlayerFactory implements PlayerFactory {
+
+	/**
+	 * The most time spent on a move when created through the no-arg
+	 * constructor
+	 */
+	public static final Duration DEFAULT_THINKING_TIME = Duration.ofSeconds(5);
+
+	private static final int MAX_DEPTH = 64;
+	private static final int TABLE_MEGABYTES = 32;
+
+	private final Duration thinkingTime;
+	private final Consumer<String> log;
+	private volatile Duration moveTimeout = Duration.ofMinutes(1);
+	private volatile DistanceOracle distances;
+	private volatile TranspositionTable table;
+	private volatile MrXLocationTracker tracker;
+
+	/**
+	 * Creates a factory that searches for at most
+	 * {@link #DEFAULT_THINKING_TIME} per move and logs at info level to the
+	 * logger of this class
+	 */
+	public AlphaBetaPlayerFactory() {
+		this(DEFAULT_THINKING_TIME, LoggerFactory.getLogger(AlphaBetaPlayerFactory.class)::info);
+	}
+
+	/**
+	 * @param thinkingTime the most time spent on a move; not null
+	 * @param log receives a line for every move; not null
+	 */
+	public AlphaBetaPlayerFactory(Duration thinkingTime, Consumer<String> log) {
+		if (requireNonNull(thinkingTime).isNegative() || thinkingTime.isZero())
+			throw new IllegalArgumentException("thinkingTime must be positive");
+		this.thinkingTime = thinkingTime;
+		this.log = requireNonNull(log);
+	}
+
+	@Override
+	public Player createPlayer(Colour colour) {
+		return new AlphaBetaPlayer();
+	}
+
+	@Override
+	public List<Spectator> createSpectators(ScotlandYardView view) {
+		tracker = new MrXLocationTracker(view.getGraph());
+		return Collections.singletonList(tracker);
+	}
+
+	@Override
+	public void ready(Visualiser visualiser, ResourceProvider provider) {
+		moveTimeout = provider.getMoveTimeout();
+		distances = provider.getDistances();
+	}
+
+	private TranspositionTable table() {
+		TranspositionTable current = table;
+		if (current == null) {
+			synchronized (this) {
+				if (table == null) table = TranspositionTable.ofMegabytes(TABLE_MEGABYTES);
+				current = table;
+			}
+		}
+		return current;
+	}
+
+	private class AlphaBetaPlayer implements Player {
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			List<Move> options = new ArrayList<>(moves);
+			if (options.size() == 1) {
+				callback.accept(options.get(0));
+				return;
+			}
+			long start = System.nanoTime();
+			long budget = Math.max(1,
+					Math.min(thinkingTime.toNanos(), moveTimeout.toNanos() / 2));
+			int[] rootMoves = new int[options.size()];
+			for (int i = 0; i < rootMoves.length; i++)
+				rootMoves[i] = PackedMove.fromMove(options.get(i));
+
+			DistanceOracle oracle = distances;
+			if (oracle == null) oracle = DistanceOracle.of(view.getGraph());
+			TranspositionTable table = table();
+			table.newSearch();
+			int mrXLocation = view.getCurrentPlayer().isMrX() ? location : guessMrXLocation(view);
+			AlphaBetaSearch search = new AlphaBetaSearch(SearchState.fromView(view, mrXLocation),
+					oracle, table);
+			int best = search.search(rootMoves, start + budget, MAX_DEPTH);
+
+			long elapsed = Math.max(1, System.nanoTime() - start);
+			log.accept(String.format(
+					"AlphaBeta: %s, round %d, depth %d, %d nodes in %dms (%.0f nodes/s), score %d, %s",
+					view.getCurrentPlayer(), view.getCurrentRound(), search.depthReached(), search.nodes(),
+					TimeUnit.NANOSECONDS.toMillis(elapsed), search.nodes() * 1e9 / elapsed,
+					search.score(), options.get(best)));
+			callback.accept(options.get(best));
+		}
+
+		private int guessMrXLocation(ScotlandYardView view) {
+			List<Integer> detectives = new ArrayList<>();
+			for (Colour colour : view.getPlayers())
+				if (colour.isDetective()) view.getPlayerLocation(colour).ifPresent(detectives::add);
+			List<Integer> candidates = new ArrayList<>();
+			MrXLocationTracker current = tracker;
+			if (current != null) {
+				for (int location : current.possibleLocationSet())
+					if (!detectives.contains(location)) candidates.add(location);
+			}
+			if (candidates.isEmpty()) {
+				// the tracker lost track(e.g. not registered), assume anywhere
+				for (Node<Integer> node : view.getGraph().getNodes())
+					if (!detectives.contains(node.value())) candidates.add(node.value());
+			}
+			return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+		}
+	}
+
+}
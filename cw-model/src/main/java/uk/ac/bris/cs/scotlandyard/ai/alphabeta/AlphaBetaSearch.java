@@ -0,0 +1,282 @@
+package uk.ac.bris.cs.scotlandyard.ai.alphabeta;
+
+import uk.ac.bris.cs.scotlandyard.ai.DistanceOracle;
+import uk.ac.bris.cs.scotlandyard.ai.TranspositionTable;
+import uk.ac.bris.cs.scotlandyard.model.PackedMove;
+import uk.ac.bris.cs.scotlandyard.model.SearchState;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+
+/**
+ * Iterative deepening paranoid alpha-beta search: Mr.X maximises the score
+ * and every detective minimises it, all of them knowing where Mr.X is. The
+ * search can start on any player's turn; for a detective the state holds a
+ * guess of Mr.X's location. <br>
+ * Moves are tried in the order: the move stored in the
+ * {@link TranspositionTable}, the two killer moves of the ply, then the rest
+ * by history score plus how far(or near, for detectives) their destination is
+ * from the other side according to a {@link DistanceOracle}. <br>
+ * The search is anytime: the clock is read every {@link #CHECK_INTERVAL}
+ * nodes and a search past its deadline unwinds at once, keeping the best move
+ * of the deepest iteration that got far enough to have one. A search is used
+ * by one thread at a time.
+ */
+final class AlphaBetaSearch {
+
+	static final int CHECK_INTERVAL = 1 << 10;
+
+	static final int WIN = 30000;
+	// scores beyond this are wins or losses in a known number of plies
+	private static final int WIN_BOUND = WIN - 1000;
+	private static final int INFINITY = WIN + 1;
+	private static final int MAX_PLY = 128;
+
+	private final SearchState state;
+	private final DistanceOracle distances;
+	private final TranspositionTable table;
+	private final int[][] moves = new int[MAX_PLY][];
+	private final int[][] scores = new int[MAX_PLY][];
+	private final int[][] killers = new int[MAX_PLY][2];
+	// indexed by side(0 for Mr.X) and final destination
+	private final int[][] history = new int[2][PackedMove.MAX_DESTINATION + 1];
+
+	private long deadline;
+	private boolean aborted;
+	private long nodes;
+	private int depthReached;
+	private int score;
+
+	AlphaBetaSearch(SearchState state, DistanceOracle distances, TranspositionTable table) {
+		this.state = state;
+		this.distances = distances;
+		this.table = table;
+	}
+
+	/**
+	 * Searches until the deadline or until the maximum depth is reached
+	 *
+	 * @param rootMoves the moves to choose from, valid moves of the current
+	 *        player in the state
+	 * @param deadline the {@link System#nanoTime()} to stop at
+	 * @param maxDepth the deepest iteration
+	 * @return the index of the best move in {@code rootMoves}
+	 */
+	int search(int[] rootMoves, long deadline, int maxDepth) {
+		this.deadline = deadline;
+		this.aborted = false;
+		this.nodes = 0;
+		this.depthReached = 0;
+		this.score = 0;
+		int[] order = new int[rootMoves.length];
+		for (int i = 0; i < order.length; i++) order[i] = i;
+		boolean maximising = state.currentPlayer() == 0;
+		int best = 0;
+		for (int depth = 1; depth <= maxDepth; depth++) {
+			int alpha = -INFINITY, beta = INFINITY;
+			int iterationBest = -1;
+			for (int i = 0; i < order.length; i++) {
+				state.apply(rootMoves[order[i]]);
+				int value = alphaBeta(depth - 1, alpha, beta, 1);
+				state.undo();
+				if (aborted) break;
+				if (maximising ? value > alpha : value < beta) {
+					if (maximising) alpha = value;
+					else beta = value;
+					iterationBest = i;
+				}
+			}
+			// the previous best is searched first, so a partial iteration
+			// can only have found something better
+			if (iterationBest >= 0) {
+				best = order[iterationBest];
+				score = maximising ? alpha : beta;
+				int moved = order[iterationBest];
+				System.arraycopy(order, 0, order, 1, iterationBest);
+				order[0] = moved;
+			}
+			if (aborted) break;
+			depthReached = depth;
+			if (Math.abs(score) > WIN_BOUND) break;
+		}
+		return best;
+	}
+
+	/**
+	 * @return the number of nodes visited by the last search
+	 */
+	long nodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return the depth of the last completed iteration of the last search
+	 */
+	int depthReached() {
+		return depthReached;
+	}
+
+	/**
+	 * @return the score of the best move of the last search, from Mr.X's side
+	 */
+	int score() {
+		return score;
+	}
+
+	private int alphaBeta(int depth, int alpha, int beta, int ply) {
+		if ((++nodes & (CHECK_INTERVAL - 1)) == 0 && System.nanoTime() - deadline >= 0)
+			aborted = true;
+		if (aborted) return 0;
+		if (state.isGameOver()) return state.mrXWon() ? WIN - ply : -WIN + ply;
+		if (depth <= 0 || ply >= MAX_PLY) return evaluate();
+
+		long hash = state.hash();
+		long entry = table.probe(hash);
+		int hashMove = PackedMove.NONE;
+		if (entry != TranspositionTable.MISS) {
+			hashMove = TranspositionTable.move(entry);
+			if (TranspositionTable.depth(entry) >= depth) {
+				int stored = fromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.EXACT) return stored;
+				if (bound == TranspositionTable.LOWER && stored >= beta) return stored;
+				if (bound == TranspositionTable.UPPER && stored <= alpha) return stored;
+			}
+		}
+
+		boolean maximising = state.currentPlayer() == 0;
+		int count = order(ply, hashMove, maximising);
+		int[] plyMoves = moves[ply];
+		int[] plyScores = scores[ply];
+		int originalAlpha = alpha, originalBeta = beta;
+		int best = maximising ? -INFINITY : INFINITY;
+		int bestMove = count == 0 ? PackedMove.NONE : plyMoves[0];
+		for (int i = 0; i < count; i++) {
+			pickNext(plyMoves, plyScores, i, count);
+			int move = plyMoves[i];
+			state.apply(move);
+			int value = alphaBeta(depth - 1, alpha, beta, ply + 1);
+			state.undo();
+			if (aborted) return 0;
+			if (maximising ? value > best : value < best) {
+				best = value;
+				bestMove = move;
+			}
+			if (maximising) alpha = Math.max(alpha, value);
+			else beta = Math.min(beta, value);
+			if (alpha >= beta) {
+				int[] killer = killers[ply];
+				if (killer[0] != move) {
+					killer[1] = killer[0];
+					killer[0] = move;
+				}
+				history[maximising ? 0 : 1][destinationOf(move)] += depth * depth;
+				break;
+			}
+		}
+		int bound = best <= originalAlpha ? TranspositionTable.UPPER
+				: best >= originalBeta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+		table.store(hash, bestMove, toTable(best, ply), depth, bound);
+		return best;
+	}
+
+	/**
+	 * Generates the moves of the current player into the buffers of the ply and
+	 * scores them for ordering
+	 *
+	 * @return the number of moves
+	 */
+	private int order(int ply, int hashMove, boolean maximising) {
+		int count = state.generateMoves();
+		if (moves[ply] == null || moves[ply].length < count) {
+			moves[ply] = new int[Math.max(count, 64)];
+			scores[ply] = new int[moves[ply].length];
+		}
+		int[] plyMoves = moves[ply];
+		int[] plyScores = scores[ply];
+		int[] killer = killers[ply];
+		int[] sideHistory = history[maximising ? 0 : 1];
+		int mrX = state.location(0);
+		for (int i = 0; i < count; i++) {
+			int move = state.move(i);
+			plyMoves[i] = move;
+			int score;
+			if (move == hashMove) score = Integer.MAX_VALUE;
+			else if (move == killer[0]) score = Integer.MAX_VALUE - 1;
+			else if (move == killer[1]) score = Integer.MAX_VALUE - 2;
+			else {
+				int destination = destinationOf(move);
+				// Mr.X runs from the nearest detective, detectives close in on
+				// Mr.X
+				int distance = maximising ? nearestDetective(destination)
+						: distance(destination, mrX);
+				score = sideHistory[destination] + (maximising ? distance : -distance) * 64;
+			}
+			plyScores[i] = score;
+		}
+		return count;
+	}
+
+	private static void pickNext(int[] moves, int[] scores, int from, int count) {
+		int best = from;
+		for (int i = from + 1; i < count; i++) if (scores[i] > scores[best]) best = i;
+		if (best == from) return;
+		int move = moves[from];
+		moves[from] = moves[best];
+		moves[best] = move;
+		int score = scores[from];
+		scores[from] = scores[best];
+		scores[best] = score;
+	}
+
+	/**
+	 * Scores a state from Mr.X's side: staying far from the nearest detective
+	 * matters most, then being far from the rest, then keeping secret and
+	 * double tickets, whose worth a search that lets detectives see Mr.X
+	 * cannot tell
+	 */
+	private int evaluate() {
+		int mrX = state.location(0);
+		int nearest = Integer.MAX_VALUE;
+		int total = 0;
+		for (int i = 1; i < state.playerCount(); i++) {
+			int distance = distance(mrX, state.location(i));
+			nearest = Math.min(nearest, distance);
+			total += Math.min(distance, 6);
+		}
+		return 100 * Math.min(nearest, 5) + 10 * total
+				+ 15 * state.tickets(0, Ticket.SECRET) + 40 * state.tickets(0, Ticket.DOUBLE);
+	}
+
+	private int nearestDetective(int location) {
+		int nearest = Integer.MAX_VALUE;
+		for (int i = 1; i < state.playerCount(); i++)
+			nearest = Math.min(nearest, distance(location, state.location(i)));
+		return nearest;
+	}
+
+	private int distance(int from, int to) {
+		int distance = distances.distance(from, to);
+		return distance == DistanceOracle.UNREACHABLE ? 10 : distance;
+	}
+
+	private int destinationOf(int move) {
+		return PackedMove.kind(move) == PackedMove.PASS
+				? state.location(state.currentPlayer())
+				: PackedMove.finalDestination(move);
+	}
+
+	// wins and losses are stored relative to the node so they stay correct
+	// when the same state is reached at another ply
+
+	private static int toTable(int score, int ply) {
+		if (score > WIN_BOUND) return score + ply;
+		if (score < -WIN_BOUND) return score - ply;
+		return score;
+	}
+
+	private static int fromTable(int score, int ply) {
+		if (score > WIN_BOUND) return score - ply;
+		if (score < -WIN_BOUND) return score + ply;
+		return score;
+	}
+
+}
@@ -0,0 +1,185 @@
+package uk.ac.bris.cs.scotlandyard.ai.mcts;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.Bitboard;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.ai.ManagedAI;
+import uk.ac.bris.cs.scotlandyard.ai.MrXLocationTracker;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
+import uk.ac.bris.cs.scotlandyard.ai.Visualiser;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.PackedMove;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.SearchState;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * A Monte Carlo tree search AI for both Mr.X and the detectives. <br>
+ * Each move is searched on all processors for half of the game's move
+ * timeout(see {@link ResourceProvider#getMoveTimeout()}), but at most
+ * {@link #DEFAULT_THINKING_TIME}. {@link Player#makeMove} returns at once;
+ * the move visited most by the time the budget runs out is handed to the
+ * callback from a worker thread. A search that fails logs the failure and
+ * hands over the move visited most until then, or the first move. <br>
+ * The workers of all factories share one pool with a thread per processor,
+ * so many games searching at once, e.g. in a
+ * {@link uk.ac.bris.cs.scotlandyard.simulation.Simulator}, queue for
+ * processors rather than starting threads of their own. <br>
+ * Detectives do not know where Mr.X is, so their searches are determinized
+ * over the locations a {@link MrXLocationTracker} shared by the side still
+ * considers possible.
+ */
+@ManagedAI("MCTS")
+public final class MctsPlayerFactory implements PlayerFactory {
+
+	/**
+	 * The most time spent on a move when created through the no-arg
+	 * constructor
+	 */
+	public static final Duration DEFAULT_THINKING_TIME = Duration.ofSeconds(5);
+
+	private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread thread = new Thread(runnable, "mcts-worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	private static final ScheduledExecutorService DEADLINES = Executors
+			.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "mcts-deadline");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	private final Duration thinkingTime;
+	private final int threads;
+	private final Set<Search> searches = ConcurrentHashMap.newKeySet();
+	private volatile Duration moveTimeout = Duration.ofMinutes(1);
+	private volatile MrXLocationTracker tracker;
+
+	/**
+	 * Creates a factory that searches on all processors for at most
+	 * {@link #DEFAULT_THINKING_TIME} per move
+	 */
+	public MctsPlayerFactory() {
+		this(DEFAULT_THINKING_TIME, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param thinkingTime the most time spent on a move; not null
+	 * @param threads the number of workers searching a move, at least 1; no
+	 *        more than one per processor run at once
+	 */
+	public MctsPlayerFactory(Duration thinkingTime, int threads) {
+		if (requireNonNull(thinkingTime).isNegative() || thinkingTime.isZero())
+			throw new IllegalArgumentException("thinkingTime must be positive");
+		if (threads < 1) throw new IllegalArgumentException("threads < 1");
+		this.thinkingTime = thinkingTime;
+		this.threads = threads;
+	}
+
+	@Override
+	public Player createPlayer(Colour colour) {
+		return new MctsPlayer();
+	}
+
+	@Override
+	public List<Spectator> createSpectators(ScotlandYardView view) {
+		tracker = new MrXLocationTracker(view.getGraph());
+		return Collections.singletonList(tracker);
+	}
+
+	@Override
+	public void ready(Visualiser visualiser, ResourceProvider provider) {
+		moveTimeout = provider.getMoveTimeout();
+	}
+
+	@Override
+	public void finish() {
+		for (Search search : searches) search.cancel();
+		searches.clear();
+	}
+
+	private long budgetMillis() {
+		return Math.max(1, Math.min(thinkingTime.toMillis(), moveTimeout.toMillis() / 2));
+	}
+
+	private class MctsPlayer implements Player {
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			List<Move> options = new ArrayList<>(moves);
+			if (options.size() == 1) {
+				callback.accept(options.get(0));
+				return;
+			}
+			int[] rootMoves = new int[options.size()];
+			for (int i = 0; i < rootMoves.length; i++)
+				rootMoves[i] = PackedMove.fromMove(options.get(i));
+
+			// everything taken from the view is copied before returning
+			SearchState base;
+			int[] mrXLocations = null;
+			if (view.getCurrentPlayer().isMrX()) {
+				base = SearchState.fromView(view, location);
+			} else {
+				mrXLocations = possibleMrXLocations(view);
+				base = SearchState.fromView(view, mrXLocations[0]);
+			}
+
+			Search search = new Search(base, mrXLocations, rootMoves, best -> {
+				callback.accept(options.get(best));
+			});
+			searches.add(search);
+			search.start(WORKERS, threads, ThreadLocalRandom.current().nextLong());
+			DEADLINES.schedule(() -> {
+				searches.remove(search);
+				search.stop();
+			}, budgetMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		private int[] possibleMrXLocations(ScotlandYardView view) {
+			MrXLocationTracker current = tracker;
+			Bitboard possible = current == null ? null : current.possibleLocations();
+			List<Integer> detectives = new ArrayList<>();
+			for (Colour colour : view.getPlayers())
+				if (colour.isDetective()) view.getPlayerLocation(colour).ifPresent(detectives::add);
+			List<Integer> locations = new ArrayList<>();
+			if (possible != null) {
+				for (int v = possible.nextSetBit(0); v >= 0; v = possible.nextSetBit(v + 1))
+					if (!detectives.contains(v)) locations.add(v);
+			}
+			if (locations.isEmpty()) {
+				// the tracker lost track(e.g. not registered), assume anywhere
+				Graph<Integer, Transport> graph = view.getGraph();
+				for (Node<Integer> node : graph.getNodes())
+					if (!detectives.contains(node.value())) locations.add(node.value());
+			}
+			int[] array = new int[locations.size()];
+			for (int i = 0; i < array.length; i++) array[i] = locations.get(i);
+			return array;
+		}
+	}
+
+}
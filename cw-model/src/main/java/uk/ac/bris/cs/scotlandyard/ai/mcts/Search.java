@@ -0,0 +1,161 @@
+package uk.ac.bris.cs.scotlandyard.ai.mcts;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+import org.slf4j.LoggerFactory;
+
+import uk.ac.bris.cs.scotlandyard.model.SearchState;
+
+/**
+ * A root parallel search for a single move. Every worker grows its own tree,
+ * so workers never contend on nodes, and adds the visits of its root's
+ * children to counts shared by all workers. <br>
+ * When searching for a detective, each tree is grown on a determinization: a
+ * copy of the state with Mr.X at one of his possible locations. Workers
+ * start a new tree on a fresh determinization every
+ * {@link #ITERATIONS_PER_DETERMINIZATION} iterations, so the shared counts
+ * favour moves that are good wherever Mr.X is. <br>
+ * Every worker runs at least one iteration, so a search whose workers were
+ * queued until after it was stopped still chooses from visited moves. If a
+ * worker fails, the others stop, the failure is logged and the move visited
+ * most until then(the first move if none was) is reported, so the game goes
+ * on.
+ */
+final class Search {
+
+	static final int ITERATIONS_PER_DETERMINIZATION = 500;
+	private static final double EXPLORATION = 0.7;
+
+	private final SearchState base;
+	private final int[] mrXLocations;
+	private final int[] rootMoves;
+	private final AtomicLongArray visits;
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private final IntConsumer done;
+	private volatile boolean stopped;
+	private volatile boolean cancelled;
+
+	/**
+	 * @param base the state to search from, never modified
+	 * @param mrXLocations the locations to determinize Mr.X at, or null to
+	 *        search {@code base} as it is
+	 * @param rootMoves the moves to choose from, valid moves of {@code base}
+	 * @param done called with the index of the best move when every worker
+	 *        has stopped, unless the search was cancelled
+	 */
+	Search(SearchState base, int[] mrXLocations, int[] rootMoves, IntConsumer done) {
+		this.base = base;
+		this.mrXLocations = mrXLocations;
+		this.rootMoves = rootMoves;
+		this.visits = new AtomicLongArray(rootMoves.length);
+		this.done = done;
+	}
+
+	/**
+	 * Starts the workers, returns without waiting for them
+	 */
+	void start(Executor workers, int threads, long seed) {
+		running.set(threads);
+		SplittableRandom seeds = new SplittableRandom(seed);
+		for (int i = 0; i < threads; i++) {
+			SplittableRandom random = seeds.split();
+			workers.execute(() -> work(random));
+		}
+	}
+
+	/**
+	 * Makes workers stop after their current iteration, the last one to stop
+	 * reports the best move
+	 */
+	void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * Stops the workers without reporting a move
+	 */
+	void cancel() {
+		cancelled = true;
+		stopped = true;
+	}
+
+	/**
+	 * @return the index of the root move visited most so far
+	 */
+	int best() {
+		int best = 0;
+		for (int i = 1; i < rootMoves.length; i++)
+			if (visits.get(i) > visits.get(best)) best = i;
+		return best;
+	}
+
+	private void work(SplittableRandom random) {
+		try {
+			do {
+				SearchState state = mrXLocations == null ? base.copy()
+						: base.withMrXAt(mrXLocations[random.nextInt(mrXLocations.length)]);
+				TreeNode root = TreeNode.root(rootMoves);
+				for (int i = 0; i == 0 || !stopped
+						&& (mrXLocations == null || i < ITERATIONS_PER_DETERMINIZATION); i++)
+					iterate(root, state, random);
+				for (int i = 0; i < rootMoves.length; i++) {
+					TreeNode child = root.child(i);
+					if (child != null) visits.addAndGet(i, child.visits);
+				}
+			} while (!stopped);
+		} catch (RuntimeException | Error e) {
+			failure.compareAndSet(null, e);
+			stopped = true;
+		} finally {
+			if (running.decrementAndGet() == 0) finished();
+		}
+	}
+
+	private void finished() {
+		Throwable failed = failure.get();
+		// looked up here as setting up logging is too slow for a move
+		if (failed != null)
+			LoggerFactory.getLogger(Search.class).error(
+					"Search failed, playing the move visited most so far", failed);
+		if (!cancelled) done.accept(best());
+	}
+
+	private static void iterate(TreeNode root, SearchState state, SplittableRandom random) {
+		TreeNode[] path = new TreeNode[64];
+		int length = 0;
+		path[length++] = root;
+		TreeNode node = root;
+		while (!state.isGameOver()) {
+			TreeNode child = node.expand(state, random);
+			boolean expanded = child != null;
+			if (!expanded) child = node.select(EXPLORATION);
+			if (child == null) break;
+			state.apply(child.move);
+			if (length == path.length) path = Arrays.copyOf(path, length * 2);
+			path[length++] = child;
+			node = child;
+			if (expanded) break;
+		}
+		// a uniformly random playout to the end of the game
+		while (!state.isGameOver()) {
+			int count = state.generateMoves();
+			if (count == 0) break;
+			state.apply(state.move(random.nextInt(count)));
+		}
+		double reward = state.mrXWon() ? 1 : 0;
+		while (state.depth() > 0) state.undo();
+		for (int i = 0; i < length; i++) {
+			TreeNode visited = path[i];
+			visited.visits++;
+			visited.reward += visited.byMrX ? reward : 1 - reward;
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+package uk.ac.bris.cs.scotlandyard.ai.mcts;
+
+import java.util.SplittableRandom;
+
+import uk.ac.bris.cs.scotlandyard.model.PackedMove;
+import uk.ac.bris.cs.scotlandyard.model.SearchState;
+
+/**
+ * A node of a search tree, only ever touched by the thread that owns the
+ * tree. Children are created one at a time in a random order, so a node with
+ * many moves(e.g. Mr.X with double moves) costs little until it is visited
+ * often.
+ */
+final class TreeNode {
+
+	final int move;
+	final boolean byMrX;
+	private int[] moves;
+	private TreeNode[] children;
+	private int expanded;
+	int visits;
+	// sum of rewards for the side that made the move leading here
+	double reward;
+
+	private TreeNode(int move, boolean byMrX) {
+		this.move = move;
+		this.byMrX = byMrX;
+	}
+
+	/**
+	 * @param moves the moves at the root, children are in the same order
+	 * @return a new root
+	 */
+	static TreeNode root(int[] moves) {
+		TreeNode root = new TreeNode(PackedMove.NONE, false);
+		root.moves = moves;
+		root.children = new TreeNode[moves.length];
+		return root;
+	}
+
+	/**
+	 * @return the child at the given index, or null if it was never visited
+	 */
+	TreeNode child(int index) {
+		return children[index];
+	}
+
+	/**
+	 * Creates a child for a move that has no child yet, generating the moves
+	 * of the state first if needed
+	 *
+	 * @return the new child, or null if every move has a child
+	 */
+	TreeNode expand(SearchState state, SplittableRandom random) {
+		if (moves == null) {
+			int count = state.generateMoves();
+			moves = new int[count];
+			for (int i = 0; i < count; i++) {
+				// inside out Fisher-Yates
+				int j = random.nextInt(i + 1);
+				moves[i] = moves[j];
+				moves[j] = state.move(i);
+			}
+			children = new TreeNode[count];
+		}
+		if (expanded == moves.length) return null;
+		int index = expanded++;
+		TreeNode child = new TreeNode(moves[index], state.currentPlayer() == 0);
+		children[index] = child;
+		return child;
+	}
+
+	/**
+	 * @param exploration the UCT exploration constant
+	 * @return the child with the highest upper confidence bound; null if there
+	 *         are no children
+	 */
+	TreeNode select(double exploration) {
+		double logVisits = Math.log(Math.max(1, visits));
+		TreeNode best = null;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < expanded; i++) {
+			TreeNode child = children[i];
+			double value = child.reward / child.visits
+					+ exploration * Math.sqrt(logVisits / child.visits);
+			if (value > bestValue) {
+				bestValue = value;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+}
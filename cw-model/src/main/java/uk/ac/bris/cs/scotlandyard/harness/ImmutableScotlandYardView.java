@@ -3,19 +3,23 @@ package uk.ac.bris.cs.scotlandyard.harness;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Stream;
 
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
 import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
-import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
 import uk.ac.bris.cs.scotlandyard.model.Colour;
 import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
 import uk.ac.bris.cs.scotlandyard.model.Move;
@@ -75,9 +79,20 @@ public final class ImmutableScotlandYardView implements ScotlandYardView {
 		}
 	}
 
+	// snapshots share one graph per distinct board rather than copying it
+	// every time; keyed by the compact graph behind the view so snapshots of
+	// one game skip hashing, then by content so games on equal boards share.
+	// Values are weak in both as a shared graph wraps the compact graph it
+	// was made from, it goes once no snapshot uses it
+	private static final ConcurrentMap<CompactGraph<Transport>, ImmutableGraph<Integer, Transport>>
+			BY_INSTANCE = new MapMaker().weakKeys().weakValues().makeMap();
+	private static final ConcurrentMap<Long, ImmutableGraph<Integer, Transport>>
+			BY_FINGERPRINT = new MapMaker().weakValues().makeMap();
+
 	private final ImmutableList<Colour> colours;
 	private final ImmutableList<Boolean> rounds;
 	private final ImmutableGraph<Integer, Transport> graph;
+	private final Map<Colour, ImmutablePlayer> byColour;
 
 	final ImmutableList<ImmutablePlayer> players;
 	final ImmutableSet<Colour> winning;
@@ -100,6 +115,7 @@ public final class ImmutableScotlandYardView implements ScotlandYardView {
 		this.rounds = rounds;
 		this.graph = graph;
 		this.players = players;
+		this.byColour = index(players);
 		this.winning = winning;
 		this.gameOver = gameOver;
 		this.currentPlayer = currentPlayer;
@@ -107,36 +123,55 @@ public final class ImmutableScotlandYardView implements ScotlandYardView {
 	}
 	private ImmutableScotlandYardView(ScotlandYardView view) {
 //		Thread.dumpStack();
-		players = view.getPlayers()
-				.stream()
-				.map(p -> {
-					Integer location = view.getPlayerLocation(p).orElseThrow(AssertionError::new);
-					ImmutableMap<Ticket, Integer> tickets = Stream.of(Ticket.values())
-							.collect(ImmutableMap.toImmutableMap(identity(), t -> view
-									.getPlayerTickets(p, t)
-									.orElseThrow(AssertionError::new)));
-					return new ImmutablePlayer(p, location, tickets);
-				}).collect(ImmutableList.toImmutableList());
 		colours = ImmutableList.copyOf(view.getPlayers());
+		ImmutableList.Builder<ImmutablePlayer> builder = ImmutableList.builder();
+		for (Colour colour : colours) {
+			int location = view.getPlayerLocation(colour).orElseThrow(AssertionError::new);
+			ImmutableMap.Builder<Ticket, Integer> tickets = ImmutableMap.builder();
+			for (Ticket ticket : Ticket.values())
+				tickets.put(ticket, view.getPlayerTickets(colour, ticket)
+						.orElseThrow(AssertionError::new));
+			builder.add(new ImmutablePlayer(colour, location, tickets.build()));
+		}
+		players = builder.build();
+		byColour = index(players);
 		winning = ImmutableSet.copyOf(view.getWinningPlayers());
 		gameOver = view.isGameOver();
 		currentRound = view.getCurrentRound();
 		currentPlayer = view.getCurrentPlayer();
 		rounds = ImmutableList.copyOf((view.getRounds()));
-		graph = new ImmutableGraph<>(new UndirectedGraph<>(view.getGraph()));
+		graph = canonical(view.getGraph());
+	}
+
+	private static Map<Colour, ImmutablePlayer> index(List<ImmutablePlayer> players) {
+		Map<Colour, ImmutablePlayer> byColour = new EnumMap<>(Colour.class);
+		for (ImmutablePlayer player : players) byColour.put(player.colour, player);
+		return byColour;
+	}
+
+	private static ImmutableGraph<Integer, Transport> canonical(Graph<Integer, Transport> graph) {
+		// free for graphs backed by a compact graph(e.g. the standard map),
+		// a copy otherwise
+		CompactGraph<Transport> compact = CompactGraph.copyOf(graph, Transport.class);
+		ImmutableGraph<Integer, Transport> shared = BY_INSTANCE.get(compact);
+		if (shared != null) return shared;
+		ImmutableGraph<Integer, Transport> created = new ImmutableGraph<>(compact);
+		shared = BY_FINGERPRINT.putIfAbsent(compact.fingerprint(), created);
+		// a colliding fingerprint of another board keeps its own graph
+		if (shared == null || !shared.equals(created)) shared = created;
+		BY_INSTANCE.put(compact, shared);
+		return shared;
 	}
 
 	@Override public List<Colour> getPlayers() { return colours; }
 	@Override public Set<Colour> getWinningPlayers() { return winning; }
 	@Override public Optional<Integer> getPlayerLocation(Colour colour) {
-		return players.stream()
-				.filter(p -> p.colour == colour)
-				.map(p -> p.location).findFirst();
+		ImmutablePlayer player = byColour.get(colour);
+		return player == null ? Optional.empty() : Optional.of(player.location);
 	}
 	@Override public Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket) {
-		return players.stream()
-				.filter(p -> p.colour == colour)
-				.map(p -> p.tickets.get(ticket)).findFirst();
+		ImmutablePlayer player = byColour.get(colour);
+		return player == null ? Optional.empty() : Optional.ofNullable(player.tickets.get(ticket));
 	}
 	@Override public boolean isGameOver() { return gameOver; }
 	@Override public Colour getCurrentPlayer() { return currentPlayer; }
@@ -146,7 +181,7 @@ public final class ImmutableScotlandYardView implements ScotlandYardView {
 
 
 	private void checkPlayer(Colour colour) {
-		if (players.stream().noneMatch(c -> c.colour == colour))
+		if (!byColour.containsKey(colour))
 			throw new IllegalArgumentException("Player " + colour +
 					" is not part of " + players);
 	}
@@ -0,0 +1,293 @@
+package uk.ac.bris.cs.scotlandyard.journal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.MoveCodec;
+import uk.ac.bris.cs.scotlandyard.model.PackedMove;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Appends played games to a directory of journal segments. <br>
+ * Every game is a start record holding its rounds, the
+ * {@link CompactGraph#fingerprint()} of its graph and the initial
+ * {@link PlayerConfiguration}s, followed by a record for each move handed to
+ * the game and an end record. Records are varints tagged with the id of their
+ * game, so games played at the same time may interleave. A move record is a
+ * tag, the varint id and the move encoded by {@link MoveCodec#WIDE}, 3 to 6
+ * bytes for the first 128 games. <br>
+ * Records are gathered in a buffer and written through a {@link FileChannel}
+ * when it fills up, so recording a move is a few stores under a lock. A
+ * segment is never written to again once the journal moves on to the next, be
+ * it because it is full or because the journal was reopened; see
+ * {@link JournalReader} for reading them back. <br>
+ * Safe to use from many threads at once.
+ */
+public final class GameJournal implements Closeable {
+
+	/**
+	 * The size a segment is allowed to grow to by default
+	 */
+	public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+	static final int MAGIC = 0x53594A4C; // SYJL
+	static final byte VERSION = 2;
+	static final int HEADER_BYTES = Integer.BYTES + 1;
+
+	static final byte START = 1;
+	static final byte MOVE = 2;
+	static final byte END = 3;
+
+	private static final int MIN_SEGMENT_BYTES = 4 << 10;
+	private static final int BUFFER_BYTES = 64 << 10;
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private final Path directory;
+	private final long segmentBytes;
+	private final ByteBuffer buffer;
+	private int segment;
+	private FileChannel channel;
+	// bytes of the current segment already written to the channel
+	private long written;
+	private long nextId;
+	private boolean closed;
+	// games of a batch share their graph, which is only fingerprinted once
+	private Graph<Integer, Transport> lastGraph;
+	private long lastFingerprint;
+
+	private GameJournal(Path directory, long segmentBytes, int segment, long nextId)
+			throws IOException {
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_BYTES, segmentBytes));
+		this.segment = segment;
+		this.nextId = nextId;
+		openSegment();
+	}
+
+	/**
+	 * Opens a journal with segments of {@link #DEFAULT_SEGMENT_BYTES}, see
+	 * {@link #open(Path, long)}
+	 *
+	 * @param directory the directory of the segments; not null
+	 * @return the journal; never null
+	 * @throws IOException if the journal cannot be opened
+	 */
+	public static GameJournal open(Path directory) throws IOException {
+		return open(directory, DEFAULT_SEGMENT_BYTES);
+	}
+
+	/**
+	 * Opens the journal in the given directory, creating the directory if
+	 * missing. Games recorded from now on go to a new segment and get ids
+	 * following those already in the journal.
+	 *
+	 * @param directory the directory of the segments; not null
+	 * @param segmentBytes the size a segment is allowed to grow to, at least
+	 *        4KiB
+	 * @return the journal; never null
+	 * @throws IOException if the directory or the existing segments cannot be
+	 *         read, or the new segment cannot be created
+	 */
+	public static GameJournal open(Path directory, long segmentBytes) throws IOException {
+		requireNonNull(directory);
+		if (segmentBytes < MIN_SEGMENT_BYTES)
+			throw new IllegalArgumentException("segmentBytes < " + MIN_SEGMENT_BYTES);
+		Files.createDirectories(directory);
+		List<Path> segments = JournalReader.segments(directory);
+		int last = segments.isEmpty() ? 0
+				: JournalReader.segmentIndex(segments.get(segments.size() - 1));
+		return new GameJournal(directory, segmentBytes, last + 1,
+				JournalReader.lastGameId(segments) + 1);
+	}
+
+	/**
+	 * Records the start of a game
+	 *
+	 * @param rounds the rounds of the game; not null
+	 * @param graph the graph of the game; not null
+	 * @param players the initial configurations of all players, Mr.X first;
+	 *        not null
+	 * @return the recording to hand every move of the game to, in the order
+	 *         they are played; never null
+	 */
+	public Recording start(List<Boolean> rounds, Graph<Integer, Transport> graph,
+			List<PlayerConfiguration> players) {
+		requireNonNull(rounds);
+		requireNonNull(players);
+		long fingerprint = fingerprint(requireNonNull(graph));
+		int size = 1 + Varint.MAX_BYTES + Long.BYTES + 5 + (rounds.size() + 7) / 8 + 5
+				+ players.size() * (1 + 5 + 5 * TICKETS.length);
+		if (size > buffer.capacity() - HEADER_BYTES)
+			throw new IllegalArgumentException("Too many rounds to record");
+		synchronized (this) {
+			reserve(size);
+			long id = nextId++;
+			buffer.put(START);
+			Varint.put(buffer, id);
+			buffer.putLong(fingerprint);
+			Varint.put(buffer, rounds.size());
+			for (int i = 0; i < rounds.size(); i += 8) {
+				int bits = 0;
+				for (int j = 0; j < 8 && i + j < rounds.size(); j++)
+					if (rounds.get(i + j)) bits |= 1 << j;
+				buffer.put((byte) bits);
+			}
+			Varint.put(buffer, players.size());
+			for (PlayerConfiguration player : players) {
+				buffer.put((byte) player.colour.ordinal());
+				Varint.put(buffer, player.location);
+				for (Ticket ticket : TICKETS) Varint.put(buffer, player.tickets.get(ticket));
+			}
+			return new Recording(id);
+		}
+	}
+
+	private long fingerprint(Graph<Integer, Transport> graph) {
+		synchronized (this) {
+			if (graph == lastGraph) return lastFingerprint;
+		}
+		long fingerprint = CompactGraph.copyOf(graph, Transport.class).fingerprint();
+		synchronized (this) {
+			lastGraph = graph;
+			lastFingerprint = fingerprint;
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Writes all buffered records to the current segment
+	 *
+	 * @throws IOException if writing fails
+	 */
+	public synchronized void flush() throws IOException {
+		checkOpen();
+		buffer.flip();
+		while (buffer.hasRemaining()) written += channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Writes all buffered records and closes the current segment; recordings
+	 * of this journal can no longer be used. Does nothing if already closed.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) return;
+		try {
+			flush();
+		} finally {
+			closed = true;
+			channel.close();
+		}
+	}
+
+	/**
+	 * Records a move of a game
+	 */
+	private synchronized void move(long id, Move move) {
+		int packed = PackedMove.fromMove(requireNonNull(move));
+		if (packed == PackedMove.NONE)
+			throw new IllegalArgumentException("Cannot record " + move);
+		reserve(1 + Varint.MAX_BYTES + MoveCodec.WIDE.encodedSize(packed));
+		buffer.put(MOVE);
+		Varint.put(buffer, id);
+		MoveCodec.WIDE.encodePacked(packed, buffer);
+	}
+
+	private synchronized void end(long id) {
+		reserve(1 + Varint.MAX_BYTES);
+		buffer.put(END);
+		Varint.put(buffer, id);
+	}
+
+	// makes room for a record of at most the given size, moving on to the
+	// next segment if it would not fit in this one
+	private void reserve(int size) {
+		try {
+			checkOpen();
+			if (written + buffer.position() + size > segmentBytes) {
+				flush();
+				channel.close();
+				segment++;
+				openSegment();
+			} else if (buffer.remaining() < size) {
+				flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void openSegment() throws IOException {
+		channel = FileChannel.open(JournalReader.segmentPath(directory, segment),
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		written = 0;
+		buffer.putInt(MAGIC);
+		buffer.put(VERSION);
+	}
+
+	private void checkOpen() {
+		if (closed) throw new IllegalStateException("Journal is closed");
+	}
+
+	/**
+	 * The moves of one game being recorded, to be handed every move in the
+	 * order the game is given them
+	 */
+	public final class Recording implements Consumer<Move> {
+
+		private final long id;
+
+		private Recording(long id) {
+			this.id = id;
+		}
+
+		/**
+		 * @return the id of the game in the journal
+		 */
+		public long id() {
+			return id;
+		}
+
+		/**
+		 * Records a move
+		 *
+		 * @param move the move; not null
+		 * @throws UncheckedIOException if the journal cannot be written
+		 * @throws IllegalStateException if the journal is closed
+		 */
+		@Override
+		public void accept(Move move) {
+			move(id, move);
+		}
+
+		/**
+		 * Records that the game is over
+		 *
+		 * @throws UncheckedIOException if the journal cannot be written
+		 * @throws IllegalStateException if the journal is closed
+		 */
+		public void end() {
+			GameJournal.this.end(id);
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package uk.ac.bris.cs.scotlandyard.journal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Rebuilds the state of a {@link RecordedGame} by setting up a
+ * {@link ScotlandYardModel} the way the game was set up and playing its
+ * recorded moves on it
+ */
+public final class GameReplayer {
+
+	private GameReplayer() {}
+
+	/**
+	 * Replays all moves of a game, see {@link #replay(RecordedGame, Graph, int)}
+	 *
+	 * @param game the game; not null
+	 * @param graph the graph the game was played on; not null
+	 * @return the game after all moves; never null
+	 */
+	public static ScotlandYardGame replay(RecordedGame game, Graph<Integer, Transport> graph) {
+		return replay(game, graph, game.moveCount());
+	}
+
+	/**
+	 * Replays the first moves of a game. The returned game is left waiting
+	 * for the player to make the move after the last one replayed; that
+	 * player is never answered.
+	 *
+	 * @param game the game; not null
+	 * @param graph the graph the game was played on; not null
+	 * @param moves the number of moves to replay, within [0,
+	 *        {@link RecordedGame#moveCount()}]
+	 * @return the game after the moves; never null
+	 * @throws IllegalArgumentException if the graph is not the one the game
+	 *         was played on, or a recorded move is not valid
+	 */
+	public static ScotlandYardGame replay(RecordedGame game, Graph<Integer, Transport> graph,
+			int moves) {
+		requireNonNull(game);
+		if (CompactGraph.copyOf(requireNonNull(graph), Transport.class)
+				.fingerprint() != game.graphFingerprint())
+			throw new IllegalArgumentException("Game " + game.id() + " was played on another graph");
+		if (moves < 0 || moves > game.moveCount())
+			throw new IllegalArgumentException(
+					"moves must be within [0, " + game.moveCount() + "], was " + moves);
+
+		ReplayPlayer player = new ReplayPlayer(game.moves().subList(0, moves));
+		List<PlayerConfiguration> configurations = game.configurations(player);
+		ScotlandYardModel model = new ScotlandYardModel(game.rounds(), graph,
+				configurations.get(0), configurations.get(1), configurations
+				.subList(2, configurations.size()).toArray(new PlayerConfiguration[0]));
+		while (player.next < moves && !model.isGameOver()) model.startRotate();
+		if (player.next < moves)
+			throw new IllegalArgumentException("Game " + game.id() + " is over after "
+					+ player.next + " moves, but has " + moves);
+		return model;
+	}
+
+	// answers with the recorded moves until there are none left
+	private static final class ReplayPlayer implements Player {
+
+		private final List<Move> moves;
+		private int next;
+
+		ReplayPlayer(List<Move> moves) {
+			this.moves = moves;
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> valid,
+				Consumer<Move> callback) {
+			if (next == moves.size()) return;
+			Move move = moves.get(next);
+			if (!valid.contains(move))
+				throw new IllegalArgumentException("Recorded move " + next + ", " + move
+						+ ", is not valid");
+			next++;
+			callback.accept(move);
+		}
+	}
+
+}
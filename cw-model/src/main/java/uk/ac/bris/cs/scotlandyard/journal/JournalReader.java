@@ -0,0 +1,182 @@
+package uk.ac.bris.cs.scotlandyard.journal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.MoveCodec;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+
+/**
+ * Reads the games of a {@link GameJournal} back. <br>
+ * Segments are memory mapped and read in order. A segment ends at its last
+ * complete record, so a journal whose writer died halfway through a record
+ * still reads; the game that was being written is then simply not
+ * {@link RecordedGame#isFinished() finished}.
+ */
+public final class JournalReader {
+
+	private static final Pattern SEGMENT = Pattern.compile("segment-(\\d{8})\\.journal");
+	private static final Colour[] COLOURS = Colour.values();
+	private static final int TICKETS = Ticket.values().length;
+
+	private JournalReader() {}
+
+	/**
+	 * Reads all games of the journal in the given directory
+	 *
+	 * @param directory the directory of the segments; not null
+	 * @return the games in the order they were started; never null
+	 * @throws IOException if a segment cannot be read or is not a journal
+	 *         segment
+	 */
+	public static List<RecordedGame> read(Path directory) throws IOException {
+		Map<Long, RecordedGame> games = new LinkedHashMap<>();
+		for (Path segment : segments(requireNonNull(directory))) {
+			read(segment, new Records() {
+				@Override public void start(RecordedGame game) { games.put(game.id(), game); }
+				@Override public void move(long id, int move) throws IOException {
+					game(id).addMove(move);
+				}
+				@Override public void end(long id) throws IOException { game(id).finish(); }
+
+				private RecordedGame game(long id) throws IOException {
+					RecordedGame game = games.get(id);
+					if (game == null)
+						throw new IOException(segment + " has moves of unknown game " + id);
+					return game;
+				}
+			});
+		}
+		return new ArrayList<>(games.values());
+	}
+
+	static List<Path> segments(Path directory) throws IOException {
+		List<Path> segments = new ArrayList<>();
+		if (!Files.isDirectory(directory)) return segments;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path path : stream)
+				if (SEGMENT.matcher(path.getFileName().toString()).matches()) segments.add(path);
+		}
+		segments.sort(Comparator.comparingInt(JournalReader::segmentIndex));
+		return segments;
+	}
+
+	static int segmentIndex(Path segment) {
+		Matcher matcher = SEGMENT.matcher(segment.getFileName().toString());
+		if (!matcher.matches()) throw new IllegalArgumentException(segment + " is not a segment");
+		return Integer.parseInt(matcher.group(1));
+	}
+
+	static Path segmentPath(Path directory, int index) {
+		return directory.resolve(String.format("segment-%08d.journal", index));
+	}
+
+	/**
+	 * @return the largest game id in the given segments, or -1 if there are
+	 *         no games
+	 */
+	static long lastGameId(List<Path> segments) throws IOException {
+		long[] last = {-1};
+		boolean[] started = {false};
+		// ids are handed out in order, so the last segment with a start
+		// record holds the largest id
+		for (int i = segments.size() - 1; i >= 0 && !started[0]; i--) {
+			read(segments.get(i), new Records() {
+				@Override public void start(RecordedGame game) {
+					started[0] = true;
+					last[0] = Math.max(last[0], game.id());
+				}
+				@Override public void move(long id, int move) { last[0] = Math.max(last[0], id); }
+				@Override public void end(long id) { last[0] = Math.max(last[0], id); }
+			});
+		}
+		return last[0];
+	}
+
+	private static void read(Path segment, Records records) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.remaining() < GameJournal.HEADER_BYTES) return;
+		if (buffer.getInt() != GameJournal.MAGIC)
+			throw new IOException(segment + " is not a journal segment");
+		byte version = buffer.get();
+		if (version != GameJournal.VERSION)
+			throw new IOException(segment + " has unsupported version " + version);
+		while (buffer.hasRemaining()) {
+			int offset = buffer.position();
+			byte tag = buffer.get();
+			try {
+				switch (tag) {
+					case GameJournal.START:
+						records.start(readStart(buffer));
+						break;
+					case GameJournal.MOVE:
+						long id = Varint.get(buffer);
+						records.move(id, MoveCodec.WIDE.decodePacked(buffer));
+						break;
+					case GameJournal.END:
+						records.end(Varint.get(buffer));
+						break;
+					case 0:
+						// never written, e.g. space left by a crash
+						return;
+					default:
+						throw new IOException(
+								segment + " has unknown record " + tag + " at " + offset);
+				}
+			} catch (BufferUnderflowException e) {
+				// a record cut short by a crash
+				return;
+			} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+				throw new IOException(segment + " has a corrupt record at " + offset, e);
+			}
+		}
+	}
+
+	private static RecordedGame readStart(ByteBuffer buffer) {
+		long id = Varint.get(buffer);
+		long fingerprint = buffer.getLong();
+		int roundCount = (int) Varint.get(buffer);
+		List<Boolean> rounds = new ArrayList<>(roundCount);
+		for (int i = 0; i < roundCount; i += 8) {
+			int bits = buffer.get();
+			for (int j = 0; j < 8 && i + j < roundCount; j++) rounds.add((bits & 1 << j) != 0);
+		}
+		int playerCount = (int) Varint.get(buffer);
+		List<Colour> players = new ArrayList<>(playerCount);
+		int[] locations = new int[playerCount];
+		int[][] tickets = new int[playerCount][TICKETS];
+		for (int i = 0; i < playerCount; i++) {
+			players.add(COLOURS[buffer.get()]);
+			locations[i] = (int) Varint.get(buffer);
+			for (int t = 0; t < TICKETS; t++) tickets[i][t] = (int) Varint.get(buffer);
+		}
+		return new RecordedGame(id, fingerprint, rounds, players, locations, tickets);
+	}
+
+	private interface Records {
+		void start(RecordedGame game) throws IOException;
+		void move(long id, int move) throws IOException;
+		void end(long id) throws IOException;
+	}
+
+}
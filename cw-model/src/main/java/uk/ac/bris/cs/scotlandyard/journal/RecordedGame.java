@@ -0,0 +1,163 @@
+package uk.ac.bris.cs.scotlandyard.journal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.PackedMove;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+
+/**
+ * A game read back from a {@link GameJournal}: how it was set up and the
+ * moves played, see {@link GameReplayer} for rebuilding it
+ */
+public final class RecordedGame {
+
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private final long id;
+	private final long graphFingerprint;
+	private final List<Boolean> rounds;
+	private final List<Colour> players;
+	private final int[] locations;
+	private final int[][] tickets;
+	private int[] moves = new int[64];
+	private int moveCount;
+	private boolean finished;
+
+	RecordedGame(long id, long graphFingerprint, List<Boolean> rounds, List<Colour> players,
+			int[] locations, int[][] tickets) {
+		this.id = id;
+		this.graphFingerprint = graphFingerprint;
+		this.rounds = Collections.unmodifiableList(rounds);
+		this.players = Collections.unmodifiableList(players);
+		this.locations = locations;
+		this.tickets = tickets;
+	}
+
+	void addMove(int move) {
+		if (moveCount == moves.length) moves = Arrays.copyOf(moves, moveCount * 2);
+		moves[moveCount++] = move;
+	}
+
+	void finish() {
+		finished = true;
+	}
+
+	/**
+	 * @return the id of the game in its journal
+	 */
+	public long id() {
+		return id;
+	}
+
+	/**
+	 * @return the {@link uk.ac.bris.cs.gamekit.graph.CompactGraph#fingerprint()}
+	 *         of the graph the game was played on
+	 */
+	public long graphFingerprint() {
+		return graphFingerprint;
+	}
+
+	/**
+	 * @return the rounds of the game; never null
+	 */
+	public List<Boolean> rounds() {
+		return rounds;
+	}
+
+	/**
+	 * @return the colours of the players in the order they play, Mr.X first;
+	 *         never null
+	 */
+	public List<Colour> players() {
+		return players;
+	}
+
+	/**
+	 * @param colour a player of the game; not null
+	 * @return the initial location of the player
+	 * @throws IllegalArgumentException if the colour is not in the game
+	 */
+	public int location(Colour colour) {
+		return locations[indexOf(colour)];
+	}
+
+	/**
+	 * @param colour a player of the game; not null
+	 * @return the initial tickets of the player; never null
+	 * @throws IllegalArgumentException if the colour is not in the game
+	 */
+	public Map<Ticket, Integer> tickets(Colour colour) {
+		int[] counts = tickets[indexOf(colour)];
+		Map<Ticket, Integer> map = new EnumMap<>(Ticket.class);
+		for (Ticket ticket : TICKETS) map.put(ticket, counts[ticket.ordinal()]);
+		return map;
+	}
+
+	/**
+	 * @param player the player to use for all colours; not null
+	 * @return the initial configurations of all players, Mr.X first; never
+	 *         null
+	 */
+	public List<PlayerConfiguration> configurations(Player player) {
+		requireNonNull(player);
+		List<PlayerConfiguration> configurations = new ArrayList<>();
+		for (Colour colour : players)
+			configurations.add(new PlayerConfiguration.Builder(colour).using(player)
+					.with(tickets(colour)).at(location(colour)).build());
+		return configurations;
+	}
+
+	/**
+	 * @return the number of moves recorded
+	 */
+	public int moveCount() {
+		return moveCount;
+	}
+
+	/**
+	 * @return the moves in the order they were played, unpacked when read;
+	 *         never null
+	 */
+	public List<Move> moves() {
+		return new AbstractList<Move>() {
+			@Override public Move get(int index) {
+				if (index < 0 || index >= moveCount)
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + moveCount);
+				return PackedMove.toMove(moves[index]);
+			}
+			@Override public int size() { return moveCount; }
+		};
+	}
+
+	/**
+	 * @return whether the end of the game was recorded
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	private int indexOf(Colour colour) {
+		int index = players.indexOf(requireNonNull(colour));
+		if (index < 0) throw new IllegalArgumentException(colour + " is not in game " + id);
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		return "RecordedGame{id=" + id + ", players=" + players + ", moves=" + moveCount
+				+ ", finished=" + finished + "}";
+	}
+
+}
@@ -0,0 +1,42 @@
+package uk.ac.bris.cs.scotlandyard.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Unsigned LEB128 varints: seven bits per byte, least significant group
+ * first, the top bit set on every byte but the last
+ */
+final class Varint {
+
+	/**
+	 * The most bytes a long takes
+	 */
+	static final int MAX_BYTES = 10;
+
+	private Varint() {}
+
+	static void put(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * @throws java.nio.BufferUnderflowException if the buffer ends within
+	 *         the varint
+	 * @throws IllegalArgumentException if the varint is longer than
+	 *         {@link #MAX_BYTES}
+	 */
+	static long get(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 7 * MAX_BYTES; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+		throw new IllegalArgumentException("Varint longer than " + MAX_BYTES + " bytes");
+	}
+
+}
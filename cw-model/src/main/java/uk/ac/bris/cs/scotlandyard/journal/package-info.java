@@ -0,0 +1,5 @@
+/**
+ * An append-only binary journal of played games and a replayer that rebuilds
+ * any recorded game from it
+ */
+package uk.ac.bris.cs.scotlandyard.journal;
@@ -0,0 +1,147 @@
+package uk.ac.bris.cs.scotlandyard.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.GameProbe;
+
+/**
+ * Counts and times what happens in one game, or in all games of a
+ * {@link ModelInstrumentation}; created by it. The metrics of a game are
+ * added to the aggregate as they are recorded. Thread safe.
+ */
+public final class GameMetrics implements GameProbe, GameMetricsMXBean, AutoCloseable {
+
+	private final GameMetrics aggregate;
+	private final Runnable onClose;
+	private final AtomicBoolean closed = new AtomicBoolean();
+	private final LongAdder movesAccepted = new LongAdder();
+	private final LongAdder movesRejected = new LongAdder();
+	private final LongAdder roundsPlayed = new LongAdder();
+	private final LongAdder gamesFinished = new LongAdder();
+	private final LatencyHistogram moveGeneration = new LatencyHistogram();
+	private final LatencyHistogram accept = new LatencyHistogram();
+	private final LatencyHistogram spectatorDispatch = new LatencyHistogram();
+	private final Map<Colour, LatencyHistogram> decisionTimes = new EnumMap<>(Colour.class);
+
+	/**
+	 * @param aggregate the metrics of all games, null if these are them
+	 * @param onClose called once when the metrics are closed
+	 */
+	GameMetrics(GameMetrics aggregate, Runnable onClose) {
+		this.aggregate = aggregate;
+		this.onClose = onClose;
+		// all filled in up front, so the map is only ever read afterwards
+		for (Colour colour : Colour.values()) decisionTimes.put(colour, new LatencyHistogram());
+	}
+
+	@Override
+	public void movesGenerated(Colour colour, long nanos) {
+		moveGeneration.record(nanos);
+		if (aggregate != null) aggregate.movesGenerated(colour, nanos);
+	}
+
+	@Override
+	public void moveDecided(Colour colour, long nanos) {
+		decisionTimes.get(colour).record(nanos);
+		if (aggregate != null) aggregate.moveDecided(colour, nanos);
+	}
+
+	@Override
+	public void moveAccepted(Colour colour, long nanos) {
+		movesAccepted.increment();
+		accept.record(nanos);
+		if (aggregate != null) aggregate.moveAccepted(colour, nanos);
+	}
+
+	@Override
+	public void moveRejected(Colour colour) {
+		movesRejected.increment();
+		if (aggregate != null) aggregate.moveRejected(colour);
+	}
+
+	@Override
+	public void roundStarted(int round) {
+		roundsPlayed.increment();
+		if (aggregate != null) aggregate.roundStarted(round);
+	}
+
+	@Override
+	public void spectatorsNotified(long nanos) {
+		spectatorDispatch.record(nanos);
+		if (aggregate != null) aggregate.spectatorsNotified(nanos);
+	}
+
+	/**
+	 * Counts the game as finished and closes the metrics of a game
+	 */
+	@Override
+	public void gameOver(Set<Colour> winningPlayers) {
+		gamesFinished.increment();
+		if (aggregate != null) {
+			aggregate.gameOver(winningPlayers);
+			close();
+		}
+	}
+
+	/**
+	 * Stops showing the metrics of a game through JMX, e.g. when it is
+	 * abandoned before it is over; games that are over are closed already.
+	 * Recorded metrics stay in the aggregate.
+	 */
+	@Override
+	public void close() {
+		if (closed.compareAndSet(false, true) && onClose != null) onClose.run();
+	}
+
+	@Override
+	public long getMovesAccepted() {
+		return movesAccepted.sum();
+	}
+
+	@Override
+	public long getMovesRejected() {
+		return movesRejected.sum();
+	}
+
+	@Override
+	public long getRoundsPlayed() {
+		return roundsPlayed.sum();
+	}
+
+	@Override
+	public long getGamesFinished() {
+		return gamesFinished.sum();
+	}
+
+	@Override
+	public LatencySnapshot getMoveGeneration() {
+		return moveGeneration.snapshot();
+	}
+
+	@Override
+	public LatencySnapshot getAccept() {
+		return accept.snapshot();
+	}
+
+	@Override
+	public LatencySnapshot getSpectatorDispatch() {
+		return spectatorDispatch.snapshot();
+	}
+
+	@Override
+	public Map<Colour, LatencySnapshot> getDecisionTimes() {
+		Map<Colour, LatencySnapshot> snapshots = new EnumMap<>(Colour.class);
+		decisionTimes.forEach((colour, histogram) -> {
+			LatencySnapshot snapshot = histogram.snapshot();
+			if (snapshot.getCount() > 0) snapshots.put(colour, snapshot);
+		});
+		return Collections.unmodifiableMap(snapshots);
+	}
+
+}
@@ -0,0 +1,43 @@
+package uk.ac.bris.cs.scotlandyard.metrics;
+
+import java.util.Map;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+
+/**
+ * What happened in one game, or in all games of a
+ * {@link ModelInstrumentation}, as seen through JMX
+ */
+public interface GameMetricsMXBean {
+
+	long getMovesAccepted();
+
+	long getMovesRejected();
+
+	long getRoundsPlayed();
+
+	long getGamesFinished();
+
+	/**
+	 * @return how long generating the valid moves of a player took
+	 */
+	LatencySnapshot getMoveGeneration();
+
+	/**
+	 * @return how long accepting a move took, excluding asking the next
+	 *         player
+	 */
+	LatencySnapshot getAccept();
+
+	/**
+	 * @return how long telling all spectators about an event took
+	 */
+	LatencySnapshot getSpectatorDispatch();
+
+	/**
+	 * @return how long players took to decide on a move, of the colours that
+	 *         moved
+	 */
+	Map<Colour, LatencySnapshot> getDecisionTimes();
+
+}
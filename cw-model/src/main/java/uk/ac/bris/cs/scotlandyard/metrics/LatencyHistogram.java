@@ -0,0 +1,86 @@
+package uk.ac.bris.cs.scotlandyard.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in the style of HdrHistogram: buckets are linear
+ * up to {@code 2^SUB_BITS} and log-linear above, with {@code 2^(SUB_BITS-1)}
+ * buckets for every power of two, so a recorded value is off by at most
+ * 1/32 of it. Values from 0 to about 18 minutes in nanoseconds are tracked,
+ * larger ones are counted as the largest. <br>
+ * Recording is lock free and may happen from any number of threads at once,
+ * a {@link #snapshot()} taken meanwhile may be off by the values being
+ * recorded.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BITS = 6;
+	private static final int HALF = 1 << (SUB_BITS - 1);
+	private static final long MAX_VALUE = (1L << 40) - 1;
+	private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Records a value
+	 *
+	 * @param nanos the value, negative values are recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+		counts.incrementAndGet(index(value));
+		sum.add(value);
+		min.accumulateAndGet(value, Math::min);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * @return the values recorded so far; never null
+	 */
+	public LatencySnapshot snapshot() {
+		long[] buckets = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) total += buckets[i] = counts.get(i);
+		if (total == 0) return new LatencySnapshot(0, 0, 0, 0, 0, 0, 0, 0);
+		long lowest = min.get();
+		long highest = max.get();
+		return new LatencySnapshot(total, lowest, highest, (double) sum.sum() / total,
+				percentile(buckets, total, 50, lowest, highest),
+				percentile(buckets, total, 90, lowest, highest),
+				percentile(buckets, total, 99, lowest, highest),
+				percentile(buckets, total, 99.9, lowest, highest));
+	}
+
+	/**
+	 * @return the highest value equivalent to the value at the percentile,
+	 *         within [lowest, highest]
+	 */
+	private static long percentile(long[] buckets, long total, double percentile, long lowest,
+			long highest) {
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) return Math.max(lowest, Math.min(highest, highestIn(i)));
+		}
+		return highest;
+	}
+
+	static int index(long value) {
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1));
+		return shift * HALF + (int) (value >>> shift);
+	}
+
+	static long highestIn(int index) {
+		if (index < 2 * HALF) return index;
+		int shift = index / HALF - 1;
+		long mantissa = index - shift * HALF;
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+}
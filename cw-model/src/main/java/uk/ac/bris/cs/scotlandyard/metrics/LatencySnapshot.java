@@ -0,0 +1,85 @@
+package uk.ac.bris.cs.scotlandyard.metrics;
+
+import java.beans.ConstructorProperties;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * The values of a {@link LatencyHistogram} at some point, shown as a
+ * composite attribute through JMX. All values are in nanoseconds and 0 if
+ * nothing was recorded. Percentiles are exact to within 1/32.
+ */
+public final class LatencySnapshot {
+
+	private final long count;
+	private final long minNanos;
+	private final long maxNanos;
+	private final double meanNanos;
+	private final long p50Nanos;
+	private final long p90Nanos;
+	private final long p99Nanos;
+	private final long p999Nanos;
+
+	@ConstructorProperties({"count", "minNanos", "maxNanos", "meanNanos", "p50Nanos",
+			"p90Nanos", "p99Nanos", "p999Nanos"})
+	public LatencySnapshot(long count, long minNanos, long maxNanos, double meanNanos,
+			long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos) {
+		this.count = count;
+		this.minNanos = minNanos;
+		this.maxNanos = maxNanos;
+		this.meanNanos = meanNanos;
+		this.p50Nanos = p50Nanos;
+		this.p90Nanos = p90Nanos;
+		this.p99Nanos = p99Nanos;
+		this.p999Nanos = p999Nanos;
+	}
+
+	/**
+	 * @return the number of values recorded
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	public long getMinNanos() {
+		return minNanos;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	public double getMeanNanos() {
+		return meanNanos;
+	}
+
+	public long getP50Nanos() {
+		return p50Nanos;
+	}
+
+	public long getP90Nanos() {
+		return p90Nanos;
+	}
+
+	public long getP99Nanos() {
+		return p99Nanos;
+	}
+
+	public long getP999Nanos() {
+		return p999Nanos;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+				       .add("count", count)
+				       .add("min", minNanos)
+				       .add("p50", p50Nanos)
+				       .add("p90", p90Nanos)
+				       .add("p99", p99Nanos)
+				       .add("p999", p999Nanos)
+				       .add("max", maxNanos)
+				       .toString();
+	}
+
+}
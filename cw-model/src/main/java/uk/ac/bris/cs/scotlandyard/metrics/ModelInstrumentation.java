@@ -0,0 +1,129 @@
+package uk.ac.bris.cs.scotlandyard.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGameFactory;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+
+/**
+ * Shows what happens inside {@link ScotlandYardModel}s through JMX, see
+ * {@link GameMetricsMXBean}. <br>
+ * The metrics of all games instrumented by an instance are registered as
+ * {@code uk.ac.bris.cs.scotlandyard:type=Games,name=<name>}, and those of
+ * every game as {@code uk.ac.bris.cs.scotlandyard:type=Game,name=<name>,id=<n>}
+ * until it is over or its metrics are {@link GameMetrics#close() closed}.
+ * Games that are not instrumented are not timed at all.
+ */
+public final class ModelInstrumentation {
+
+	/**
+	 * The domain of all object names
+	 */
+	public static final String DOMAIN = "uk.ac.bris.cs.scotlandyard";
+
+	private static ModelInstrumentation platform;
+
+	private final MBeanServer server;
+	private final String name;
+	private final GameMetrics aggregate = new GameMetrics(null, null);
+	private final AtomicLong games = new AtomicLong();
+
+	/**
+	 * @param server the server to register with; not null
+	 * @param name the name of this instance in object names, unique within
+	 *        the server; not null
+	 * @throws IllegalStateException if the metrics of all games cannot be
+	 *         registered, e.g. the name is taken
+	 */
+	public ModelInstrumentation(MBeanServer server, String name) {
+		this.server = requireNonNull(server);
+		this.name = ObjectName.quote(requireNonNull(name));
+		register(aggregate, objectName("type=Games,name=" + this.name));
+	}
+
+	/**
+	 * @return the instance on the platform MBean server, named {@code model};
+	 *         never null
+	 */
+	public static synchronized ModelInstrumentation platform() {
+		if (platform == null)
+			platform = new ModelInstrumentation(ManagementFactory.getPlatformMBeanServer(), "model");
+		return platform;
+	}
+
+	/**
+	 * @return the metrics of all games instrumented so far; never null
+	 */
+	public GameMetrics aggregate() {
+		return aggregate;
+	}
+
+	/**
+	 * Instruments a game and registers its metrics
+	 *
+	 * @param model the game, which must not be instrumented already; not null
+	 * @return the metrics of the game; never null
+	 */
+	public GameMetrics instrument(ScotlandYardModel model) {
+		requireNonNull(model);
+		ObjectName objectName = objectName(
+				"type=Game,name=" + name + ",id=" + games.incrementAndGet());
+		GameMetrics metrics = new GameMetrics(aggregate, () -> unregister(objectName));
+		register(metrics, objectName);
+		model.setProbe(metrics);
+		return metrics;
+	}
+
+	/**
+	 * @param factory the factory to instrument the games of; not null
+	 * @return a factory that instruments every {@link ScotlandYardModel}
+	 *         created by the given factory, other games are returned as they
+	 *         are; never null
+	 */
+	public ScotlandYardGameFactory instrument(ScotlandYardGameFactory factory) {
+		requireNonNull(factory);
+		return (rounds, graph, mrX, firstDetective, restOfTheDetectives) -> {
+			ScotlandYardGame game = factory.createGame(rounds, graph, mrX, firstDetective,
+					restOfTheDetectives);
+			if (game instanceof ScotlandYardModel) instrument((ScotlandYardModel) game);
+			return game;
+		};
+	}
+
+	private static ObjectName objectName(String properties) {
+		try {
+			return new ObjectName(DOMAIN + ":" + properties);
+		} catch (JMException e) {
+			throw new IllegalArgumentException(properties, e);
+		}
+	}
+
+	private void register(GameMetrics metrics, ObjectName objectName) {
+		try {
+			server.registerMBean(metrics, objectName);
+		} catch (JMException e) {
+			throw new IllegalStateException("Unable to register " + objectName, e);
+		}
+	}
+
+	private void unregister(ObjectName objectName) {
+		try {
+			server.unregisterMBean(objectName);
+		} catch (InstanceNotFoundException e) {
+			// unregistered by someone else, which is fine
+		} catch (MBeanRegistrationException e) {
+			throw new IllegalStateException("Unable to unregister " + objectName, e);
+		}
+	}
+
+}
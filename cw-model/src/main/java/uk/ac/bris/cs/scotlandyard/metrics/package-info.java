@@ -0,0 +1,5 @@
+/**
+ * Runtime metrics of {@link uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel}
+ * games shown through JMX, e.g. in JConsole or VisualVM
+ */
+package uk.ac.bris.cs.scotlandyard.metrics;
@@ -0,0 +1,66 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Set;
+
+/**
+ * Is told what happens inside a {@link ScotlandYardModel} and how long it
+ * took, see {@link ScotlandYardModel#setProbe(GameProbe)}. <br>
+ * Methods are called on the thread of the game while it waits, so they
+ * should return quickly. Times are in nanoseconds.
+ */
+public interface GameProbe {
+
+	/**
+	 * The valid moves of a player were generated
+	 *
+	 * @param colour the player
+	 * @param nanos how long generating took
+	 */
+	default void movesGenerated(Colour colour, long nanos) {}
+
+	/**
+	 * A player handed in a move, valid or not
+	 *
+	 * @param colour the player
+	 * @param nanos how long since the player was given its valid moves
+	 */
+	default void moveDecided(Colour colour, long nanos) {}
+
+	/**
+	 * A move was accepted
+	 *
+	 * @param colour the player of the move
+	 * @param nanos how long validating and making the move took, including
+	 *        telling spectators about it but not asking the next player
+	 */
+	default void moveAccepted(Colour colour, long nanos) {}
+
+	/**
+	 * A move was rejected as invalid
+	 *
+	 * @param colour the player of the move
+	 */
+	default void moveRejected(Colour colour) {}
+
+	/**
+	 * A round started
+	 *
+	 * @param round the round
+	 */
+	default void roundStarted(int round) {}
+
+	/**
+	 * All spectators were told about an event, see {@link Spectator}
+	 *
+	 * @param nanos how long telling them took
+	 */
+	default void spectatorsNotified(long nanos) {}
+
+	/**
+	 * The game is over, this is the last call
+	 *
+	 * @param winningPlayers the winners
+	 */
+	default void gameOver(Set<Colour> winningPlayers) {}
+
+}
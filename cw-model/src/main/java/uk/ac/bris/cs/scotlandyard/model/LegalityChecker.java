@@ -0,0 +1,101 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.Bitboard;
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.NeighbourMasks;
+
+/**
+ * Checks whether a single {@link PackedMove} is valid by looking at the graph,
+ * ticket counts and detective locations directly, without generating the
+ * other valid moves. A move is valid exactly when
+ * {@link MoveGenerator#generate(Colour, int, int[], int[], int, boolean)} would
+ * generate it for the same arguments. <br>
+ * Instances are not thread safe, use one checker per thread.
+ */
+public final class LegalityChecker {
+
+	private static final int SECRET = Ticket.SECRET.ordinal();
+	private static final int DOUBLE = Ticket.DOUBLE.ordinal();
+	private static final int TRANSPORTS = Transport.values().length;
+
+	private final CompactGraph<Transport> graph;
+	private final NeighbourMasks<Transport> masks;
+	private final Bitboard occupiedBoard;
+
+	/**
+	 * Creates a checker for the given graph
+	 *
+	 * @param graph the graph; not null
+	 */
+	public LegalityChecker(Graph<Integer, Transport> graph) {
+		this.graph = CompactGraph.copyOf(Objects.requireNonNull(graph), Transport.class);
+		this.masks = NeighbourMasks.of(this.graph);
+		this.occupiedBoard = masks.newBitboard();
+	}
+
+	/**
+	 * Checks whether a move is valid for the given player
+	 *
+	 * @param move the packed move; {@link PackedMove#NONE} is never valid
+	 * @param colour the colour of the player making the move; not null
+	 * @param location the location of the player
+	 * @param tickets ticket counts of the player indexed by
+	 *        {@link Ticket#ordinal()}; not null
+	 * @param occupied locations of the detectives, the first
+	 *        {@code occupiedCount} elements are used; not null
+	 * @param occupiedCount number of occupied locations
+	 * @param doubleAllowed whether there are enough rounds left for a double
+	 *        move
+	 * @return true if the move is valid
+	 */
+	public boolean isValid(int move, Colour colour, int location, int[] tickets,
+			int[] occupied, int occupiedCount, boolean doubleAllowed) {
+		if (move == PackedMove.NONE || PackedMove.colour(move) != colour) return false;
+		boolean mrX = colour.isMrX();
+		occupiedBoard.clear();
+		for (int i = 0; i < occupiedCount; i++)
+			if (occupied[i] >= 0 && occupied[i] < occupiedBoard.capacity())
+				occupiedBoard.add(occupied[i]);
+		switch (PackedMove.kind(move)) {
+			case PackedMove.PASS:
+				return !mrX && !canMove(location, tickets);
+			case PackedMove.TICKET:
+				return canMove(mrX, location, PackedMove.ticketOrdinal(move),
+						PackedMove.destination(move), tickets, 0);
+			case PackedMove.DOUBLE: {
+				if (!mrX || !doubleAllowed || tickets[DOUBLE] == 0) return false;
+				int first = PackedMove.ticketOrdinal(move);
+				int firstDestination = PackedMove.destination(move);
+				int second = PackedMove.secondTicketOrdinal(move);
+				// the first ticket is spent by the time the second move is made
+				return canMove(true, location, first, firstDestination, tickets, 0)
+						&& canMove(true, firstDestination, second,
+						PackedMove.secondDestination(move), tickets, first == second ? 1 : 0);
+			}
+			default:
+				return false;
+		}
+	}
+
+	private boolean canMove(boolean mrX, int location, int ticket, int destination,
+			int[] tickets, int spent) {
+		if (ticket == DOUBLE || tickets[ticket] <= spent) return false;
+		if (!graph.containsNode(location) || occupiedBoard.contains(destination)) return false;
+		if (mrX && ticket == SECRET) return masks.isAdjacent(location, destination);
+		for (int transport = 0; transport < TRANSPORTS; transport++)
+			if (MoveGenerator.ticketOfTransport(transport) == ticket
+					&& masks.hasEdge(location, transport, destination)) return true;
+		return false;
+	}
+
+	private boolean canMove(int location, int[] tickets) {
+		for (int transport = 0; transport < TRANSPORTS; transport++)
+			if (tickets[MoveGenerator.ticketOfTransport(transport)] > 0
+					&& masks.hasNeighbourOutside(location, transport, occupiedBoard)) return true;
+		return false;
+	}
+
+}
@@ -0,0 +1,321 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+
+/**
+ * A game map compiled into a single binary file: the nodes and edges of the
+ * graph in the compressed sparse row form of {@link CompactGraph}, with a
+ * {@link Transport} byte per edge, followed by the pixel coordinates of every
+ * node on the map image. <br>
+ * {@link #load(Path)} memory maps a bundle. The graph arrays are copied out of
+ * the mapping in bulk and coordinates are read from it as they are looked up,
+ * so loading a map does no parsing at all. The build compiles the standard
+ * map into the {@link #STANDARD_RESOURCE} resource, which
+ * {@link #standard()} loads as it is; only without it, e.g. when run from
+ * sources that were not built with Maven, is the standard map compiled from
+ * graph.txt and pos.txt at runtime. Instances are immutable and thread safe.
+ */
+public final class MapBundle {
+
+	/**
+	 * The resource the build compiles the standard map into
+	 */
+	public static final String STANDARD_RESOURCE = "standard.bundle";
+
+	static final int MAGIC = 0x5359_4D42; // "SYMB"
+	static final int VERSION = 1;
+	private static final int NO_COORDINATE = Integer.MIN_VALUE;
+
+	private final CompactGraph<Transport> graph;
+	private final ImmutableGraph<Integer, Transport> view;
+	private final IntBuffer xs;
+	private final IntBuffer ys;
+
+	private MapBundle(CompactGraph<Transport> graph, IntBuffer xs, IntBuffer ys) {
+		this.graph = graph;
+		this.view = new ImmutableGraph<>(graph);
+		this.xs = xs;
+		this.ys = ys;
+	}
+
+	/**
+	 * Compiles a map into a bundle
+	 *
+	 * @param graph the graph of the map; not null
+	 * @param coordinates the pixel coordinates(x, y) of nodes of the graph,
+	 *        nodes without one are allowed; not null
+	 * @param bundle the file to write, replaced if it exists; not null
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void compile(Graph<Integer, Transport> graph,
+			Map<Integer, Entry<Integer, Integer>> coordinates, Path bundle) throws IOException {
+		ByteBuffer buffer = encode(CompactGraph.copyOf(requireNonNull(graph), Transport.class),
+				requireNonNull(coordinates));
+		try (FileChannel channel = FileChannel.open(requireNonNull(bundle),
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Compiles a map from its text files into a bundle
+	 *
+	 * @param graphText the graph, see {@link ScotlandYardGraphReader}; not null
+	 * @param positionText the node positions, a line of node, x and y for
+	 *        each node, see {@link StandardGame#pngMapPositionEntries()}; not
+	 *        null
+	 * @param bundle the file to write, replaced if it exists; not null
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void compile(Path graphText, Path positionText, Path bundle)
+			throws IOException {
+		Graph<Integer, Transport> graph;
+		try (FileChannel channel = FileChannel.open(requireNonNull(graphText))) {
+			graph = ScotlandYardGraphReader.fromChannel(channel);
+		}
+		compile(graph, StandardGame.positionEntries(
+				Files.readAllLines(requireNonNull(positionText), StandardCharsets.UTF_8)), bundle);
+	}
+
+	/**
+	 * Loads a bundle by memory mapping it
+	 *
+	 * @param bundle the file; not null
+	 * @return the map; never null
+	 * @throws IOException if the file cannot be read or is not a bundle of
+	 *         this version
+	 */
+	public static MapBundle load(Path bundle) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(requireNonNull(bundle),
+				StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		return decode(buffer, bundle);
+	}
+
+	/**
+	 * Loads the standard map from {@link #STANDARD_RESOURCE}, memory mapped
+	 * if it is a file on disk and read otherwise(e.g. from a jar). Without a
+	 * valid resource, falls back to {@link #standard(Path)} in
+	 * {@link StandardGame#cacheDirectory()}.
+	 *
+	 * @return the standard map; never null
+	 * @throws IOException if the standard map cannot be read
+	 */
+	public static MapBundle standard() throws IOException {
+		URL resource = MapBundle.class.getClassLoader().getResource(STANDARD_RESOURCE);
+		if (resource != null) {
+			try {
+				if ("file".equals(resource.getProtocol()))
+					return load(Paths.get(resource.toURI()));
+				return decode(ByteBuffer.wrap(read(resource)), resource);
+			} catch (IOException | URISyntaxException | IllegalArgumentException e) {
+				// not a bundle of this version, compile one instead
+			}
+		}
+		return standard(StandardGame.cacheDirectory());
+	}
+
+	/**
+	 * Loads the standard map from a bundle in the given directory, compiling
+	 * the bundle first if there is none for the current graph.txt and
+	 * pos.txt. If the directory cannot be written the map is compiled in
+	 * memory instead.
+	 *
+	 * @param directory the bundle directory, created if missing; not null
+	 * @return the standard map; never null
+	 * @throws IOException if the standard map cannot be read
+	 */
+	public static MapBundle standard(Path directory) throws IOException {
+		// keyed by the text it is compiled from, hashing that is far cheaper
+		// than parsing it
+		long hash = hash(0x9E3779B97F4A7C15L, "graph.txt");
+		hash = hash(hash, "pos.txt");
+		Path file = requireNonNull(directory).resolve(String.format("map-%016x.bundle", hash));
+		if (Files.isRegularFile(file)) {
+			try {
+				return load(file);
+			} catch (IOException e) {
+				// stale or damaged, compile it again
+			}
+		}
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		Map<Integer, Entry<Integer, Integer>> coordinates = StandardGame.pngMapPositionEntries();
+		try {
+			Files.createDirectories(directory);
+			Path temporary = Files.createTempFile(directory, "map", ".tmp");
+			try {
+				compile(graph, coordinates, temporary);
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+			return load(file);
+		} catch (IOException e) {
+			ByteBuffer buffer = encode(CompactGraph.copyOf(graph, Transport.class), coordinates);
+			return decode(buffer);
+		}
+	}
+
+	/**
+	 * Compiles a map from its text files, see
+	 * {@link #compile(Path, Path, Path)}
+	 *
+	 * @param args the graph text file, the position text file and the bundle
+	 *        file to write
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.err.println("Usage: MapBundle <graph.txt> <pos.txt> <bundle>");
+			System.exit(1);
+		}
+		compile(Paths.get(args[0]), Paths.get(args[1]), Paths.get(args[2]));
+	}
+
+	private static long hash(long hash, String resource) throws IOException {
+		byte[] bytes = new byte[8192];
+		try (InputStream stream = StandardGame.openResource(resource)) {
+			for (int read; (read = stream.read(bytes)) > 0; )
+				for (int i = 0; i < read; i++) hash = (hash ^ bytes[i]) * 0x100000001B3L;
+		}
+		return hash;
+	}
+
+	private static byte[] read(URL resource) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		try (InputStream stream = resource.openStream()) {
+			for (int read; (read = stream.read(buffer)) > 0; ) bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static MapBundle decode(ByteBuffer buffer, Object source) throws IOException {
+		try {
+			return decode(buffer);
+		} catch (IllegalArgumentException | BufferUnderflowException e) {
+			throw new IOException(source + " is not a valid map bundle", e);
+		}
+	}
+
+	private static ByteBuffer encode(CompactGraph<Transport> graph,
+			Map<Integer, Entry<Integer, Integer>> coordinates) {
+		Transport[] transports = Transport.values();
+		int names = 0;
+		for (Transport transport : transports) names += 1 + transport.name().length();
+		ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 3 + names + graph.byteSize()
+				+ Integer.BYTES * 2 * graph.size());
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(transports.length);
+		// names rather than ordinals, so reordering Transport invalidates bundles
+		for (Transport transport : transports) {
+			byte[] name = transport.name().getBytes(StandardCharsets.US_ASCII);
+			buffer.put((byte) name.length).put(name);
+		}
+		graph.writeTo(buffer);
+		for (int axis = 0; axis < 2; axis++) {
+			for (int i = 0; i < graph.size(); i++) {
+				Entry<Integer, Integer> coordinate = coordinates.get(graph.valueAt(i));
+				buffer.putInt(coordinate == null ? NO_COORDINATE
+						: axis == 0 ? coordinate.getKey() : coordinate.getValue());
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static MapBundle decode(ByteBuffer buffer) {
+		if (buffer.getInt() != MAGIC) throw new IllegalArgumentException("Not a map bundle");
+		int version = buffer.getInt();
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unsupported version " + version);
+		Transport[] transports = Transport.values();
+		if (buffer.getInt() != transports.length)
+			throw new IllegalArgumentException("Bundle is of another Transport");
+		for (Transport transport : transports) {
+			int length = buffer.get();
+			if (length < 0) throw new IllegalArgumentException("Bundle is of another Transport");
+			byte[] name = new byte[length];
+			buffer.get(name);
+			if (!transport.name().equals(new String(name, StandardCharsets.US_ASCII)))
+				throw new IllegalArgumentException("Bundle is of another Transport");
+		}
+		CompactGraph<Transport> graph = CompactGraph.readFrom(buffer, Transport.class);
+		int nodes = graph.size();
+		if (buffer.remaining() != Integer.BYTES * 2 * nodes)
+			throw new IllegalArgumentException("Coordinates do not match the graph");
+		IntBuffer coordinates = buffer.slice().asIntBuffer();
+		coordinates.limit(nodes);
+		IntBuffer xs = coordinates.slice();
+		coordinates.clear().position(nodes);
+		IntBuffer ys = coordinates.slice();
+		return new MapBundle(graph, xs, ys);
+	}
+
+	/**
+	 * @return the graph of the map, backed by a {@link CompactGraph}; never
+	 *         null
+	 */
+	public ImmutableGraph<Integer, Transport> graph() {
+		return view;
+	}
+
+	/**
+	 * @param node the node value
+	 * @return whether the node is on the map and has a coordinate
+	 */
+	public boolean hasCoordinate(int node) {
+		int index = graph.indexOf(node);
+		return index >= 0 && xs.get(index) != NO_COORDINATE;
+	}
+
+	/**
+	 * @param node the node value; must have a coordinate
+	 * @return the x coordinate of the node in pixels on the map image
+	 * @throws IllegalArgumentException if the node has no coordinate
+	 */
+	public int x(int node) {
+		return xs.get(coordinateIndex(node));
+	}
+
+	/**
+	 * @param node the node value; must have a coordinate
+	 * @return the y coordinate of the node in pixels on the map image
+	 * @throws IllegalArgumentException if the node has no coordinate
+	 */
+	public int y(int node) {
+		return ys.get(coordinateIndex(node));
+	}
+
+	private int coordinateIndex(int node) {
+		if (!hasCoordinate(node))
+			throw new IllegalArgumentException("Node(" + node + ") has no coordinate");
+		return graph.indexOf(node);
+	}
+
+}
@@ -1,7 +1,6 @@
 package uk.ac.bris.cs.scotlandyard.model;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import uk.ac.bris.cs.gamekit.graph.Graph;
@@ -16,7 +15,7 @@ public class ModelFactories {
 	 * @return A list of models; never null
 	 */
 	static List<Class<? extends ScotlandYardGameFactory>> factories() {
-		return Collections.singletonList(ImperativeModelFactory.class);
+		return Arrays.asList(ImperativeModelFactory.class, CheckedModelFactory.class);
 	}
 
 	/**
@@ -38,4 +37,25 @@ public class ModelFactories {
 
 	}
 
+	/**
+	 * Uses the {@link ScotlandYardModel} with moves validated by a
+	 * {@link LegalityChecker} instead of generating all valid moves
+	 */
+	static class CheckedModelFactory implements ScotlandYardGameFactory {
+
+		@Override
+		public ScotlandYardGame createGame(List<Boolean> rounds, Graph<Integer, Transport> graph,
+				PlayerConfiguration mrX, PlayerConfiguration firstDetective,
+				PlayerConfiguration... restOfTheDetectives) {
+			return new ScotlandYardModel(ScotlandYardModel.Validation.CHECK, rounds, graph, mrX,
+					firstDetective, restOfTheDetectives);
+		}
+
+		@Override
+		public String toString() {
+			return "ScotlandYardModel(CHECK)";
+		}
+
+	}
+
 }
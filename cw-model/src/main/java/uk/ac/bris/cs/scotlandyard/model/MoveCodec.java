@@ -0,0 +1,262 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+
+/**
+ * Encodes moves in a few bytes, for journals, the network and test fixtures,
+ * in place of {@link java.io.Serializable}. <br>
+ * The first byte of an encoded move is the low byte of its {@link PackedMove}:
+ * the kind, the (first) ticket and the colour, or the second ticket of
+ * double moves. The destinations follow, a byte each for {@link #NARROW} and
+ * twelve bits each for {@link #WIDE}:
+ * <table summary="Encoded sizes in bytes">
+ * <tr><th></th><th>NARROW</th><th>WIDE</th></tr>
+ * <tr><td>{@link PassMove}</td><td>1</td><td>1</td></tr>
+ * <tr><td>{@link TicketMove}</td><td>2</td><td>3</td></tr>
+ * <tr><td>{@link DoubleMove}</td><td>3</td><td>4</td></tr>
+ * </table>
+ * Moves as shown to other players, e.g. double moves of Mr.X with the hidden
+ * destinations at his last known location(0 before it is first revealed),
+ * are encoded like any other. An encoded move is not tagged with the codec
+ * that encoded it; both sides have to agree on one, see
+ * {@link #forGraph(Graph)}.
+ */
+public enum MoveCodec {
+
+	/**
+	 * Destinations within [0, 255], enough for the standard map
+	 */
+	NARROW(0xFF),
+
+	/**
+	 * Destinations within [0, {@link PackedMove#MAX_DESTINATION}]
+	 */
+	WIDE(PackedMove.MAX_DESTINATION);
+
+	private static final int COLOURS = Colour.values().length;
+	private static final int TICKETS = Ticket.values().length;
+
+	private final int maxDestination;
+
+	MoveCodec(int maxDestination) {
+		this.maxDestination = maxDestination;
+	}
+
+	/**
+	 * @param graph the graph moves are made on; not null
+	 * @return the smallest codec that can encode every move on the graph;
+	 *         never null
+	 * @throws IllegalArgumentException if the graph has a node outside [0,
+	 *         {@link PackedMove#MAX_DESTINATION}]
+	 */
+	public static MoveCodec forGraph(Graph<Integer, ?> graph) {
+		int max = 0;
+		for (Node<Integer> node : requireNonNull(graph).getNodes()) {
+			int value = node.value();
+			if (value < 0 || value > PackedMove.MAX_DESTINATION)
+				throw new IllegalArgumentException("Node " + value + " cannot be encoded");
+			max = Math.max(max, value);
+		}
+		return max <= NARROW.maxDestination ? NARROW : WIDE;
+	}
+
+	/**
+	 * @return the largest destination this codec can encode
+	 */
+	public int maxDestination() {
+		return maxDestination;
+	}
+
+	/**
+	 * @param move a packed move, see {@link PackedMove}
+	 * @return the number of bytes the move is encoded in
+	 */
+	public int encodedSize(int move) {
+		switch (PackedMove.kind(move)) {
+			case PackedMove.PASS:
+				return 1;
+			case PackedMove.TICKET:
+				return this == NARROW ? 2 : 3;
+			default:
+				return this == NARROW ? 3 : 4;
+		}
+	}
+
+	/**
+	 * Encodes a move at the position of the buffer, advancing it
+	 *
+	 * @param move the move; not null
+	 * @param buffer the buffer; not null
+	 * @throws IllegalArgumentException if the move cannot be encoded, e.g. a
+	 *         destination is greater than {@link #maxDestination()}
+	 * @throws BufferOverflowException if the move does not fit in the buffer;
+	 *         nothing is written
+	 */
+	public void encode(Move move, ByteBuffer buffer) {
+		int packed = PackedMove.fromMove(requireNonNull(move));
+		if (packed == PackedMove.NONE)
+			throw new IllegalArgumentException("Cannot encode " + move);
+		encodePacked(packed, buffer);
+	}
+
+	/**
+	 * Encodes a packed move at the position of the buffer, advancing it
+	 *
+	 * @param move the packed move, see {@link PackedMove}
+	 * @param buffer the buffer; not null
+	 * @throws IllegalArgumentException if a destination is greater than
+	 *         {@link #maxDestination()}
+	 * @throws BufferOverflowException if the move does not fit in the buffer;
+	 *         nothing is written
+	 */
+	public void encodePacked(int move, ByteBuffer buffer) {
+		int kind = PackedMove.kind(move);
+		int first = PackedMove.destination(move);
+		int second = PackedMove.secondDestination(move);
+		if (kind != PackedMove.PASS && (first > maxDestination
+				|| kind == PackedMove.DOUBLE && second > maxDestination))
+			throw new IllegalArgumentException(
+					PackedMove.toString(move) + " has a destination above " + maxDestination);
+		if (buffer.remaining() < encodedSize(move)) throw new BufferOverflowException();
+		buffer.put((byte) move);
+		if (kind == PackedMove.PASS) return;
+		if (this == NARROW) {
+			buffer.put((byte) first);
+			if (kind == PackedMove.DOUBLE) buffer.put((byte) second);
+		} else if (kind == PackedMove.TICKET) {
+			buffer.putShort((short) first);
+		} else {
+			int both = first << 12 | second;
+			buffer.put((byte) (both >>> 16));
+			buffer.putShort((short) both);
+		}
+	}
+
+	/**
+	 * Decodes a move at the position of the buffer, advancing it
+	 *
+	 * @param buffer the buffer; not null
+	 * @return the move; never null
+	 * @throws IllegalArgumentException if the bytes are not an encoded move
+	 * @throws BufferUnderflowException if the buffer ends within the move
+	 */
+	public Move decode(ByteBuffer buffer) {
+		return PackedMove.toMove(decodePacked(buffer));
+	}
+
+	/**
+	 * Decodes a move at the position of the buffer as a packed move,
+	 * advancing it
+	 *
+	 * @param buffer the buffer; not null
+	 * @return the packed move, see {@link PackedMove}
+	 * @throws IllegalArgumentException if the bytes are not an encoded move
+	 * @throws BufferUnderflowException if the buffer ends within the move;
+	 *         the position is left unchanged
+	 */
+	public int decodePacked(ByteBuffer buffer) {
+		int position = buffer.position();
+		int header = buffer.get() & 0xFF;
+		int kind = PackedMove.kind(header);
+		int first = PackedMove.ticketOrdinal(header);
+		int upper = header >>> 5;
+		if (kind == 3 || upper >= COLOURS || first >= TICKETS
+				|| kind == PackedMove.PASS && first != 0
+				|| kind == PackedMove.DOUBLE && upper >= TICKETS)
+			throw new IllegalArgumentException("Not an encoded move: " + header);
+		if (kind == PackedMove.PASS) return header;
+		if (buffer.remaining() < encodedSize(header) - 1) {
+			buffer.position(position);
+			throw new BufferUnderflowException();
+		}
+		if (this == NARROW) {
+			int destination = buffer.get() & 0xFF;
+			if (kind == PackedMove.TICKET) return header | destination << 8;
+			return header | destination << 8 | (buffer.get() & 0xFF) << 20;
+		}
+		if (kind == PackedMove.TICKET) {
+			int destination = buffer.getShort() & 0xFFFF;
+			if (destination > maxDestination)
+				throw new IllegalArgumentException("Not an encoded move: " + destination);
+			return header | destination << 8;
+		}
+		int both = (buffer.get() & 0xFF) << 16 | buffer.getShort() & 0xFFFF;
+		return header | (both >>> 12) << 8 | (both & 0xFFF) << 20;
+	}
+
+	/**
+	 * Encodes moves one after another at the position of the buffer
+	 *
+	 * @param moves the moves; not null
+	 * @param buffer the buffer; not null
+	 * @throws IllegalArgumentException if a move cannot be encoded
+	 * @throws BufferOverflowException if the moves do not fit in the buffer;
+	 *         the moves before the one that did not fit are written
+	 */
+	public void encodeAll(Collection<? extends Move> moves, ByteBuffer buffer) {
+		for (Move move : moves) encode(move, buffer);
+	}
+
+	/**
+	 * Encodes packed moves one after another at the position of the buffer
+	 *
+	 * @param moves the packed moves; not null
+	 * @param offset the index of the first move to encode
+	 * @param length the number of moves to encode
+	 * @param buffer the buffer; not null
+	 * @throws IllegalArgumentException if a move cannot be encoded
+	 * @throws BufferOverflowException if the moves do not fit in the buffer;
+	 *         the moves before the one that did not fit are written
+	 */
+	public void encodeAll(int[] moves, int offset, int length, ByteBuffer buffer) {
+		if (offset < 0 || length < 0 || offset + length > moves.length)
+			throw new IndexOutOfBoundsException();
+		for (int i = offset; i < offset + length; i++) encodePacked(moves[i], buffer);
+	}
+
+	/**
+	 * Decodes moves until the buffer has no bytes remaining
+	 *
+	 * @param buffer the buffer; not null
+	 * @return the moves; never null
+	 * @throws IllegalArgumentException if the bytes are not encoded moves
+	 * @throws BufferUnderflowException if the buffer ends within a move
+	 */
+	public List<Move> decodeAll(ByteBuffer buffer) {
+		List<Move> moves = new ArrayList<>();
+		while (buffer.hasRemaining()) moves.add(decode(buffer));
+		return moves;
+	}
+
+	/**
+	 * Decodes packed moves until the array is filled or the buffer has no
+	 * bytes remaining
+	 *
+	 * @param buffer the buffer; not null
+	 * @param moves the array to decode into; not null
+	 * @param offset the index of the first move to decode
+	 * @param length the most moves to decode
+	 * @return the number of moves decoded
+	 * @throws IllegalArgumentException if the bytes are not encoded moves
+	 * @throws BufferUnderflowException if the buffer ends within a move
+	 */
+	public int decodeAll(ByteBuffer buffer, int[] moves, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > moves.length)
+			throw new IndexOutOfBoundsException();
+		int count = 0;
+		while (count < length && buffer.hasRemaining())
+			moves[offset + count++] = decodePacked(buffer);
+		return count;
+	}
+
+}
@@ -0,0 +1,210 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.Bitboard;
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.NeighbourMasks;
+
+/**
+ * Generates the valid moves of a player as {@link PackedMove}s into a reusable
+ * buffer, so generating moves does not allocate once the buffer has grown to
+ * fit. Destinations are found with {@link NeighbourMasks} so excluding the
+ * occupied locations is one word operation per 64 nodes. Generated moves are
+ * sorted and free of duplicates. <br>
+ * Instances are not thread safe, use one generator per thread.
+ */
+public final class MoveGenerator {
+
+	private static final int SECRET = Ticket.SECRET.ordinal();
+	private static final int DOUBLE = Ticket.DOUBLE.ordinal();
+	private static final int TRANSPORTS = Transport.values().length;
+	private static final int[] TICKET_OF_TRANSPORT = new int[Transport.values().length];
+
+	static {
+		for (Transport transport : Transport.values())
+			TICKET_OF_TRANSPORT[transport.ordinal()] = Ticket.fromTransport(transport).ordinal();
+	}
+
+	/**
+	 * @param transport the ordinal of a transport
+	 * @return the ordinal of the ticket needed to travel with the transport
+	 */
+	static int ticketOfTransport(int transport) {
+		return TICKET_OF_TRANSPORT[transport];
+	}
+
+	private final CompactGraph<Transport> graph;
+	private final NeighbourMasks<Transport> masks;
+	private final Bitboard occupiedBoard;
+	private final Bitboard destinations;
+	private int[] buffer = new int[256];
+	private int size;
+
+	/**
+	 * Creates a generator for the given graph
+	 *
+	 * @param graph the graph; not null, node values must be within [0,
+	 *        {@link PackedMove#MAX_DESTINATION}]
+	 */
+	public MoveGenerator(Graph<Integer, Transport> graph) {
+		this.graph = CompactGraph.copyOf(Objects.requireNonNull(graph), Transport.class);
+		for (int i = 0; i < this.graph.size(); i++) {
+			int value = this.graph.valueAt(i);
+			if (value < 0 || value > PackedMove.MAX_DESTINATION)
+				throw new IllegalArgumentException("Node(" + value + ") is out of range [0, "
+						+ PackedMove.MAX_DESTINATION + "]");
+		}
+		this.masks = NeighbourMasks.of(this.graph);
+		this.occupiedBoard = masks.newBitboard();
+		this.destinations = masks.newBitboard();
+	}
+
+	/**
+	 * @return the graph moves are generated on
+	 */
+	public CompactGraph<Transport> graph() {
+		return graph;
+	}
+
+	/**
+	 * @return the neighbour masks of {@link #graph()}
+	 */
+	public NeighbourMasks<Transport> masks() {
+		return masks;
+	}
+
+	/**
+	 * Generates all valid moves of a player, replacing the previously generated
+	 * moves. A detective without any moves gets a single pass move.
+	 *
+	 * @param colour the colour of the player; not null
+	 * @param location the location of the player
+	 * @param tickets ticket counts of the player indexed by
+	 *        {@link Ticket#ordinal()}; not null
+	 * @param occupied locations of the detectives, the first
+	 *        {@code occupiedCount} elements are used; not null
+	 * @param occupiedCount number of occupied locations
+	 * @param doubleAllowed whether there are enough rounds left for a double
+	 *        move; only applies to Mr.X
+	 * @return the number of moves generated
+	 */
+	public int generate(Colour colour, int location, int[] tickets, int[] occupied,
+			int occupiedCount, boolean doubleAllowed) {
+		size = 0;
+		int colourOrdinal = colour.ordinal();
+		boolean mrX = colour.isMrX();
+		occupy(occupied, occupiedCount);
+		appendSingles(colourOrdinal, mrX, location, tickets);
+		sortAndDeduplicate();
+		if (mrX && doubleAllowed && tickets[DOUBLE] > 0) {
+			int singles = size;
+			for (int i = 0; i < singles; i++)
+				appendDoubles(buffer[i], tickets);
+			sortAndDeduplicate();
+		}
+		if (!mrX && size == 0) append(PackedMove.pass(colour));
+		return size;
+	}
+
+	/**
+	 * Generates the ticket moves of a player from the given location without
+	 * double moves or pass moves, replacing the previously generated moves
+	 *
+	 * @return the number of moves generated
+	 * @see #generate(Colour, int, int[], int[], int, boolean)
+	 */
+	public int generateSingles(Colour colour, int location, int[] tickets, int[] occupied,
+			int occupiedCount) {
+		size = 0;
+		occupy(occupied, occupiedCount);
+		appendSingles(colour.ordinal(), colour.isMrX(), location, tickets);
+		sortAndDeduplicate();
+		return size;
+	}
+
+	/**
+	 * @return the number of generated moves
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param index index of the move, less than {@link #size()}
+	 * @return the generated move at the given index
+	 */
+	public int get(int index) {
+		if (index >= size) throw new IndexOutOfBoundsException("Index: " + index);
+		return buffer[index];
+	}
+
+	/**
+	 * @return a copy of the generated moves, sorted
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(buffer, size);
+	}
+
+	private void occupy(int[] occupied, int occupiedCount) {
+		occupiedBoard.clear();
+		// locations outside the graph can never be a destination anyway
+		for (int i = 0; i < occupiedCount; i++)
+			if (occupied[i] >= 0 && occupied[i] < occupiedBoard.capacity())
+				occupiedBoard.add(occupied[i]);
+	}
+
+	private void appendSingles(int colour, boolean mrX, int location, int[] tickets) {
+		for (int transport = 0; transport < TRANSPORTS; transport++) {
+			int ticket = TICKET_OF_TRANSPORT[transport];
+			if (tickets[ticket] == 0) continue;
+			masks.neighbours(location, transport, destinations);
+			destinations.andNot(occupiedBoard);
+			for (int d = destinations.nextSetBit(0); d >= 0; d = destinations.nextSetBit(d + 1))
+				append(PackedMove.ticket(colour, ticket, d));
+		}
+		if (mrX && tickets[SECRET] > 0) {
+			masks.neighbours(location, destinations);
+			destinations.andNot(occupiedBoard);
+			for (int d = destinations.nextSetBit(0); d >= 0; d = destinations.nextSetBit(d + 1))
+				append(PackedMove.ticket(colour, SECRET, d));
+		}
+	}
+
+	private void appendDoubles(int first, int[] tickets) {
+		int firstTicket = PackedMove.ticketOrdinal(first);
+		int firstDestination = PackedMove.destination(first);
+		// the first ticket is spent by the time the second move is made
+		for (int transport = 0; transport < TRANSPORTS; transport++) {
+			int ticket = TICKET_OF_TRANSPORT[transport];
+			if (tickets[ticket] <= (firstTicket == ticket ? 1 : 0)) continue;
+			masks.neighbours(firstDestination, transport, destinations);
+			destinations.andNot(occupiedBoard);
+			for (int d = destinations.nextSetBit(0); d >= 0; d = destinations.nextSetBit(d + 1))
+				append(PackedMove.doubleMove(firstTicket, firstDestination, ticket, d));
+		}
+		if (tickets[SECRET] > (firstTicket == SECRET ? 1 : 0)) {
+			masks.neighbours(firstDestination, destinations);
+			destinations.andNot(occupiedBoard);
+			for (int d = destinations.nextSetBit(0); d >= 0; d = destinations.nextSetBit(d + 1))
+				append(PackedMove.doubleMove(firstTicket, firstDestination, SECRET, d));
+		}
+	}
+
+	private void append(int move) {
+		if (size == buffer.length) buffer = Arrays.copyOf(buffer, size * 2);
+		buffer[size++] = move;
+	}
+
+	private void sortAndDeduplicate() {
+		if (size < 2) return;
+		Arrays.sort(buffer, 0, size);
+		int unique = 1;
+		for (int i = 1; i < size; i++)
+			if (buffer[i] != buffer[unique - 1]) buffer[unique++] = buffer[i];
+		size = unique;
+	}
+
+}
@@ -0,0 +1,214 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+/**
+ * Encodes moves as single ints so that move generation and search do not
+ * need to allocate {@link Move} objects. <br>
+ * Layout, from the least significant bit:
+ * <ul>
+ * <li>bits 0-1: the kind, one of {@link #PASS}, {@link #TICKET} and
+ * {@link #DOUBLE}</li>
+ * <li>bits 2-4: the (first) ticket ordinal</li>
+ * <li>bits 5-7: the colour ordinal, or the second ticket ordinal for double
+ * moves(which are always played by {@link Colour#BLACK})</li>
+ * <li>bits 8-19: the (first) destination</li>
+ * <li>bits 20-31: the second destination of double moves</li>
+ * </ul>
+ * Destinations must therefore be within [0, {@link #MAX_DESTINATION}].
+ */
+public final class PackedMove {
+
+	/**
+	 * Kind of a packed {@link PassMove}
+	 */
+	public static final int PASS = 0;
+
+	/**
+	 * Kind of a packed {@link TicketMove}
+	 */
+	public static final int TICKET = 1;
+
+	/**
+	 * Kind of a packed {@link DoubleMove}
+	 */
+	public static final int DOUBLE = 2;
+
+	/**
+	 * Value returned by {@link #fromMove(Move)} for moves that cannot be
+	 * packed; never equal to a valid packed move
+	 */
+	public static final int NONE = -1;
+
+	/**
+	 * The largest destination that can be packed
+	 */
+	public static final int MAX_DESTINATION = 0xFFF;
+
+	private static final Colour[] COLOURS = Colour.values();
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private PackedMove() {}
+
+	/**
+	 * @param colour the colour of the player passing; not null
+	 * @return the packed pass move
+	 */
+	public static int pass(Colour colour) {
+		return PASS | colour.ordinal() << 5;
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param ticket the ticket used; not null
+	 * @param destination the destination
+	 * @return the packed ticket move
+	 */
+	public static int ticket(Colour colour, Ticket ticket, int destination) {
+		return ticket(colour.ordinal(), ticket.ordinal(), destination);
+	}
+
+	static int ticket(int colour, int ticket, int destination) {
+		return TICKET | ticket << 2 | colour << 5 | destination << 8;
+	}
+
+	/**
+	 * @param first the first ticket; not null
+	 * @param firstDestination the first destination
+	 * @param second the second ticket; not null
+	 * @param secondDestination the second(final) destination
+	 * @return the packed double move of {@link Colour#BLACK}
+	 */
+	public static int doubleMove(Ticket first, int firstDestination, Ticket second,
+			int secondDestination) {
+		return doubleMove(first.ordinal(), firstDestination, second.ordinal(),
+				secondDestination);
+	}
+
+	static int doubleMove(int first, int firstDestination, int second, int secondDestination) {
+		return DOUBLE | first << 2 | second << 5 | firstDestination << 8
+				| secondDestination << 20;
+	}
+
+	/**
+	 * @return the kind of the move, one of {@link #PASS}, {@link #TICKET} and
+	 *         {@link #DOUBLE}
+	 */
+	public static int kind(int move) {
+		return move & 0x3;
+	}
+
+	/**
+	 * @return the colour of the player making the move
+	 */
+	public static Colour colour(int move) {
+		return kind(move) == DOUBLE ? Colour.BLACK : COLOURS[move >>> 5 & 0x7];
+	}
+
+	/**
+	 * @return the ticket of a ticket move, or the first ticket of a double move
+	 */
+	public static Ticket ticket(int move) {
+		return TICKETS[ticketOrdinal(move)];
+	}
+
+	static int ticketOrdinal(int move) {
+		return move >>> 2 & 0x7;
+	}
+
+	/**
+	 * @return the destination of a ticket move, or the first destination of a
+	 *         double move
+	 */
+	public static int destination(int move) {
+		return move >>> 8 & MAX_DESTINATION;
+	}
+
+	/**
+	 * @return the second ticket of a double move
+	 */
+	public static Ticket secondTicket(int move) {
+		return TICKETS[secondTicketOrdinal(move)];
+	}
+
+	static int secondTicketOrdinal(int move) {
+		return move >>> 5 & 0x7;
+	}
+
+	/**
+	 * @return the second destination of a double move
+	 */
+	public static int secondDestination(int move) {
+		return move >>> 20 & MAX_DESTINATION;
+	}
+
+	/**
+	 * @return where the player ends up after the move, undefined for pass
+	 *         moves
+	 */
+	public static int finalDestination(int move) {
+		return kind(move) == DOUBLE ? secondDestination(move) : destination(move);
+	}
+
+	/**
+	 * Unpacks a move
+	 *
+	 * @param move the packed move
+	 * @return the move; never null
+	 */
+	public static Move toMove(int move) {
+		switch (kind(move)) {
+			case PASS:
+				return new PassMove(colour(move));
+			case TICKET:
+				return new TicketMove(colour(move), ticket(move), destination(move));
+			case DOUBLE:
+				return new DoubleMove(Colour.BLACK, ticket(move), destination(move),
+						secondTicket(move), secondDestination(move));
+			default:
+				throw new IllegalArgumentException("Not a packed move: " + move);
+		}
+	}
+
+	/**
+	 * Packs a move
+	 *
+	 * @param move the move; not null
+	 * @return the packed move, or {@link #NONE} if the move cannot be packed,
+	 *         e.g. it has a destination out of range or a null ticket
+	 */
+	public static int fromMove(Move move) {
+		Colour colour = move.colour();
+		if (colour == null) return NONE;
+		if (move instanceof TicketMove) {
+			TicketMove ticketMove = (TicketMove) move;
+			if (!packable(ticketMove)) return NONE;
+			return ticket(colour, ticketMove.ticket(), ticketMove.destination());
+		}
+		if (move instanceof DoubleMove) {
+			DoubleMove doubleMove = (DoubleMove) move;
+			TicketMove first = doubleMove.firstMove();
+			TicketMove second = doubleMove.secondMove();
+			if (colour != Colour.BLACK || first == null || second == null) return NONE;
+			if (first.colour() != colour || second.colour() != colour) return NONE;
+			if (!packable(first) || !packable(second)) return NONE;
+			return doubleMove(first.ticket(), first.destination(), second.ticket(),
+					second.destination());
+		}
+		if (move instanceof PassMove) return pass(colour);
+		return NONE;
+	}
+
+	private static boolean packable(TicketMove move) {
+		return move.ticket() != null
+				&& move.destination() >= 0
+				&& move.destination() <= MAX_DESTINATION;
+	}
+
+	/**
+	 * @return a readable form of the packed move, same as the unpacked move's
+	 *         {@link Move#toString()}
+	 */
+	public static String toString(int move) {
+		return toMove(move).toString();
+	}
+
+}
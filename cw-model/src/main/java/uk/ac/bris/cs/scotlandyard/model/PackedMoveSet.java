@@ -0,0 +1,64 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable set of moves backed by sorted {@link PackedMove}s, moves are
+ * only unpacked when iterated. {@link #contains(Object)} packs the given move
+ * and does a binary search.
+ */
+public final class PackedMoveSet extends AbstractSet<Move> {
+
+	private final int[] moves;
+
+	/**
+	 * @param moves sorted packed moves without duplicates; the array is not
+	 *        copied and must not be modified afterwards
+	 */
+	PackedMoveSet(int[] moves) {
+		this.moves = moves;
+	}
+
+	/**
+	 * @param index index of the move, less than {@link #size()}
+	 * @return the packed move at the given index
+	 */
+	public int packed(int index) {
+		return moves[index];
+	}
+
+	/**
+	 * Checks whether the given packed move is in this set
+	 */
+	public boolean containsPacked(int move) {
+		return Arrays.binarySearch(moves, move) >= 0;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Move)) return false;
+		int move = PackedMove.fromMove((Move) o);
+		return move != PackedMove.NONE && containsPacked(move);
+	}
+
+	@Override
+	public Iterator<Move> iterator() {
+		return new Iterator<Move>() {
+			private int index;
+			@Override public boolean hasNext() { return index < moves.length; }
+			@Override public Move next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				return PackedMove.toMove(moves[index++]);
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return moves.length;
+	}
+
+}
@@ -1,14 +1,19 @@
 package uk.ac.bris.cs.scotlandyard.model;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.regex.Pattern;
 
-import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
-import uk.ac.bris.cs.gamekit.graph.Node;
-import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
 
 //TODO test should be in same module, currently in scotlandyard-model
 /**
@@ -17,13 +22,16 @@ import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
 public class ScotlandYardGraphReader {
 
 	private static final String DELIMITER = " ";
+	private static final Pattern DELIMITER_PATTERN = Pattern.compile(Pattern.quote(DELIMITER));
+	private static final int BUFFER_BYTES = 64 * 1024;
 
 	private ScotlandYardGraphReader() {
 		// nope
 	}
 
 	/**
-	 * Converts lines of strings into a Scotland Yard game map
+	 * Converts lines of strings into a Scotland Yard game map, the returned
+	 * graph is backed by a {@link CompactGraph}
 	 * 
 	 * @param lines the lines
 	 * @return a graph for {@link ScotlandYardGame} to use
@@ -45,7 +53,7 @@ public class ScotlandYardGraphReader {
 		if (numberOfNodes + numberOfEdges > lines.size() - 1)
 			throw new IllegalArgumentException("Line count < (edge count + node count)");
 
-		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		CompactGraph.Builder<Transport> graph = new CompactGraph.Builder<>(Transport.class);
 
 		// we read the first line already
 		for (int i = 1; i <= numberOfNodes; i++) {
@@ -53,7 +61,7 @@ public class ScotlandYardGraphReader {
 				throw new IllegalArgumentException("Expected non-empty line at line " + i);
 			String value = parseLine(i, lines, DELIMITER, 1)[0];
 			try {
-				graph.addNode(new Node<>(Integer.parseInt(value)));
+				graph.addNode(Integer.parseInt(value));
 			} catch (NumberFormatException e) {
 				throw new IllegalArgumentException(
 						"Expected integer at line " + i + "\n\t" + lines.get(i));
@@ -65,12 +73,12 @@ public class ScotlandYardGraphReader {
 				throw new IllegalArgumentException("Expected non-empty line at line " + i);
 			String[] segments = parseLine(i, lines, DELIMITER, 3);
 
-			Node<Integer> source;
-			Node<Integer> destination;
+			int source;
+			int destination;
 			Transport data;
 			try {
-				source = graph.getNode(Integer.parseInt(segments[0]));
-				destination = graph.getNode(Integer.parseInt(segments[1]));
+				source = Integer.parseInt(segments[0]);
+				destination = Integer.parseInt(segments[1]);
 			} catch (NumberFormatException e) {
 				throw new IllegalArgumentException(
 						"Expected integer at line " + i + "\n\t" + lines.get(i));
@@ -82,26 +90,262 @@ public class ScotlandYardGraphReader {
 						"Expected enum with value of " + Arrays.toString(Transport.values())
 								+ " at line " + i + "\n\t" + lines.get(i));
 			}
-			if (source == null) throw new IllegalArgumentException(
+			if (!graph.containsNode(source)) throw new IllegalArgumentException(
 					"Expected source node to exist in graph  at line " + i + "\n\t" + lines.get(i));
-			if (destination == null) throw new IllegalArgumentException(
+			if (!graph.containsNode(destination)) throw new IllegalArgumentException(
 					"Expected destination node to exist in graph  at line " + i + "\n\t"
 							+ lines.get(i));
-			graph.addEdge(new Edge<>(source, destination, data));
+			graph.addEdge(source, destination, data);
 		}
-		return new ImmutableGraph<>(graph);
+		return new ImmutableGraph<>(graph.build());
 	}
 
 	private static String[] parseLine(int line, List<String> lines, String delimiter,
 			int expectedSegments) {
 		String currentLine = lines.get(line);
 		if (currentLine == null) throw new NullPointerException("Line " + line + " is null");
-		String[] segments = currentLine.split(Pattern.quote(delimiter));
+		String[] segments = DELIMITER_PATTERN.split(currentLine);
 		if (segments.length != expectedSegments) throw new IllegalArgumentException(
 				"Expected " + expectedSegments + " occurrences of delimiter \"" + delimiter
-						+ "\" on line " + line + ":\n\t" + line);
+						+ "\" on line " + line + ":\n\t" + currentLine);
 		return segments;
 
 	}
 
+	/**
+	 * Reads a Scotland Yard game map from a stream, see
+	 * {@link #fromChannel(ReadableByteChannel)}. The stream is not closed.
+	 *
+	 * @param stream the stream; not null
+	 * @return a graph for {@link ScotlandYardGame} to use
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static ImmutableGraph<Integer, Transport> fromInputStream(InputStream stream)
+			throws IOException {
+		if (stream == null) throw new NullPointerException("stream == null");
+		return fromChannel(Channels.newChannel(stream));
+	}
+
+	/**
+	 * Reads a Scotland Yard game map in the format of
+	 * {@link #fromLines(List)} from a channel, the returned graph is backed by
+	 * a {@link CompactGraph}. <br>
+	 * Lines are tokenised as they are read, through a fixed size buffer, so
+	 * only the graph itself is kept in memory; this is the one to use for
+	 * large maps. Errors are reported as {@link #fromLines(List)} does, except
+	 * that too few lines are only noticed at the end of the channel, after
+	 * the lines before it are checked. Lines after the last edge are not
+	 * read. The channel is not closed. <br>
+	 * Only blocking channels are supported: a read that returns no bytes
+	 * fails rather than being retried.
+	 *
+	 * @param channel the channel in blocking mode, UTF-8 encoded; not null
+	 * @return a graph for {@link ScotlandYardGame} to use
+	 * @throws IllegalArgumentException if the channel is a
+	 *         {@link SelectableChannel} in non-blocking mode
+	 * @throws IOException if the channel cannot be read or a read returns no
+	 *         bytes
+	 */
+	public static ImmutableGraph<Integer, Transport> fromChannel(ReadableByteChannel channel)
+			throws IOException {
+		if (channel == null) throw new NullPointerException("channel == null");
+		if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking())
+			throw new IllegalArgumentException("channel must be in blocking mode");
+		LineTokenizer lines = new LineTokenizer(channel);
+		if (!lines.next()) throw new IllegalArgumentException("Lines must not be empty!");
+
+		lines.split(0, 2);
+		int numberOfNodes;
+		int numberOfEdges;
+		try {
+			numberOfNodes = lines.integer(0);
+			numberOfEdges = lines.integer(1);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid symbol at line 1:\n\t" + lines.text());
+		}
+
+		CompactGraph.Builder<Transport> graph = new CompactGraph.Builder<>(Transport.class);
+
+		for (int i = 1; i <= numberOfNodes; i++) {
+			lines.expect();
+			if (lines.isEmpty())
+				throw new IllegalArgumentException("Expected non-empty line at line " + i);
+			lines.split(i, 1);
+			try {
+				graph.addNode(lines.integer(0));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(
+						"Expected integer at line " + i + "\n\t" + lines.text());
+			}
+		}
+
+		for (int i = numberOfNodes + 1; i <= numberOfNodes + numberOfEdges; i++) {
+			lines.expect();
+			if (lines.isEmpty())
+				throw new IllegalArgumentException("Expected non-empty line at line " + i);
+			lines.split(i, 3);
+
+			int source;
+			int destination;
+			try {
+				source = lines.integer(0);
+				destination = lines.integer(1);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(
+						"Expected integer at line " + i + "\n\t" + lines.text());
+			}
+			Transport data = lines.transport(2);
+			if (data == null) throw new IllegalArgumentException(
+					"Expected enum with value of " + Arrays.toString(Transport.values())
+							+ " at line " + i + "\n\t" + lines.text());
+			if (!graph.containsNode(source)) throw new IllegalArgumentException(
+					"Expected source node to exist in graph  at line " + i + "\n\t" + lines.text());
+			if (!graph.containsNode(destination)) throw new IllegalArgumentException(
+					"Expected destination node to exist in graph  at line " + i + "\n\t"
+							+ lines.text());
+			graph.addEdge(source, destination, data);
+		}
+		return new ImmutableGraph<>(graph.build());
+	}
+
+	/**
+	 * Splits the bytes of a channel into lines, ended by \n, \r or \r\n, and
+	 * lines into tokens the way {@link String#split(String)} splits at
+	 * {@link #DELIMITER}, without creating strings
+	 */
+	private static final class LineTokenizer {
+
+		private static final byte SEPARATOR = (byte) DELIMITER.charAt(0);
+		private static final Transport[] TRANSPORTS = Transport.values();
+
+		private final ReadableByteChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+		private byte[] line = new byte[256];
+		private int length;
+		private boolean endOfInput;
+		private boolean afterCarriageReturn;
+		// bounds of the first three tokens of the line
+		private final int[] starts = new int[3];
+		private final int[] ends = new int[3];
+
+		LineTokenizer(ReadableByteChannel channel) {
+			this.channel = channel;
+			buffer.flip();
+		}
+
+		/**
+		 * Reads the next line
+		 *
+		 * @return false if there are no lines left
+		 */
+		boolean next() throws IOException {
+			length = 0;
+			boolean terminated = false;
+			while (!terminated) {
+				if (!buffer.hasRemaining() && !fill()) break;
+				byte[] bytes = buffer.array();
+				int position = buffer.position();
+				int limit = buffer.limit();
+				if (afterCarriageReturn && bytes[position] == '\n') position++;
+				afterCarriageReturn = false;
+				int end = position;
+				while (end < limit && bytes[end] != '\n' && bytes[end] != '\r') end++;
+				append(bytes, position, end - position);
+				if (end < limit) {
+					afterCarriageReturn = bytes[end] == '\r';
+					terminated = true;
+					end++;
+				}
+				buffer.position(end);
+			}
+			return terminated || length > 0;
+		}
+
+		void expect() throws IOException {
+			if (!next())
+				throw new IllegalArgumentException("Line count < (edge count + node count)");
+		}
+
+		boolean isEmpty() {
+			return length == 0;
+		}
+
+		String text() {
+			return new String(line, 0, length, StandardCharsets.UTF_8);
+		}
+
+		void split(int index, int expectedSegments) {
+			// an empty line is a single empty token, otherwise trailing empty
+			// tokens are dropped
+			int segments = length == 0 ? 1 : 0;
+			int token = 0;
+			int start = 0;
+			for (int i = 0; i <= length; i++) {
+				if (i < length && line[i] != SEPARATOR) continue;
+				if (token < starts.length) {
+					starts[token] = start;
+					ends[token] = i;
+				}
+				token++;
+				if (i > start) segments = token;
+				start = i + 1;
+			}
+			if (segments != expectedSegments) throw new IllegalArgumentException(
+					"Expected " + expectedSegments + " occurrences of delimiter \"" + DELIMITER
+							+ "\" on line " + index + ":\n\t" + text());
+		}
+
+		int integer(int token) {
+			int i = starts[token];
+			int end = ends[token];
+			boolean negative = i < end && line[i] == '-';
+			if (i < end && (line[i] == '-' || line[i] == '+')) i++;
+			if (i == end) throw new NumberFormatException();
+			long value = 0;
+			for (; i < end; i++) {
+				int digit = line[i] - '0';
+				if (digit < 0 || digit > 9) throw new NumberFormatException();
+				value = value * 10 + digit;
+				if (value > Integer.MAX_VALUE + 1L) throw new NumberFormatException();
+			}
+			if (negative) value = -value;
+			if (value > Integer.MAX_VALUE) throw new NumberFormatException();
+			return (int) value;
+		}
+
+		/**
+		 * @return the transport named by the token ignoring case, or null
+		 */
+		Transport transport(int token) {
+			int size = ends[token] - starts[token];
+			for (Transport transport : TRANSPORTS) {
+				String name = transport.name();
+				if (name.length() != size) continue;
+				int i = 0;
+				while (i < size && Character.toUpperCase((char) line[starts[token] + i])
+						== name.charAt(i)) i++;
+				if (i == size) return transport;
+			}
+			return null;
+		}
+
+		private boolean fill() throws IOException {
+			if (endOfInput) return false;
+			buffer.clear();
+			int read = channel.read(buffer);
+			// a blocking channel reads at least a byte into an empty buffer
+			if (read == 0) throw new IOException("Read no bytes, the channel is not blocking");
+			buffer.flip();
+			if (read < 0) endOfInput = true;
+			return read > 0;
+		}
+
+		private void append(byte[] bytes, int offset, int count) {
+			if (length + count > line.length)
+				line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+			System.arraycopy(bytes, offset, line, length, count);
+			length += count;
+		}
+	}
+
 }
@@ -23,6 +23,21 @@ import javax.swing.text.html.Option;
 // TODO implement all methods and pass all tests
 public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, MoveVisitor {
 
+	/**
+	 * How {@link #accept(Move)} checks that a move is valid
+	 */
+	public enum Validation {
+		/**
+		 * Generates all valid moves of the player and looks the move up
+		 */
+		GENERATE,
+
+		/**
+		 * Checks the move on its own with a {@link LegalityChecker}
+		 */
+		CHECK
+	}
+
 	private List<Boolean> rounds;
 	private Graph<Integer, Transport> graph;
 	private ArrayList<PlayerConfiguration> configurations = new ArrayList<>();
@@ -30,12 +45,46 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	private int currentPlayer = 0;
 	private int currentRound = ScotlandYardView.NOT_STARTED;
 	private Collection<Spectator> spectators = new CopyOnWriteArrayList<>();
+	private Collection<Spectator> directSpectators = new CopyOnWriteArrayList<>(); //spectators notified on the game thread
+	private SpectatorBus bus; //created when the first spectator is registered with a backpressure
 	private int lastLocation = 0;
-
+	private MoveGenerator generator;
+	private int[] detectiveLocations;
+	private WinConditionTracker winConditions;
+	private final Validation validation;
+	private LegalityChecker checker;
+	private GameProbe probe; //null unless the game is instrumented
+	private long decisionStarted; //when the current player was asked for a move, for the probe
+
+	/**
+	 * Creates a game that validates moves by generating them
+	 *
+	 * @throws IllegalArgumentException if a node of the graph is outside [0,
+	 *         {@link PackedMove#MAX_DESTINATION}], among other invalid
+	 *         configurations
+	 * @see #ScotlandYardModel(Validation, List, Graph, PlayerConfiguration,
+	 *      PlayerConfiguration, PlayerConfiguration...)
+	 */
 	public ScotlandYardModel(List<Boolean> rounds, Graph<Integer, Transport> graph,
 							 PlayerConfiguration mrX, PlayerConfiguration firstDetective,
 							 PlayerConfiguration... restOfTheDetectives) {
+		this(Validation.GENERATE, rounds, graph, mrX, firstDetective, restOfTheDetectives);
+	}
+
+	/**
+	 * Creates a game. Moves are packed into ints while the game is played,
+	 * so the nodes of the graph must be within [0,
+	 * {@link PackedMove#MAX_DESTINATION}]; the standard map is well within.
+	 *
+	 * @param validation how moves are validated; not null
+	 * @throws IllegalArgumentException if a node of the graph is out of that
+	 *         range, among other invalid configurations
+	 */
+	public ScotlandYardModel(Validation validation, List<Boolean> rounds, Graph<Integer, Transport> graph,
+							 PlayerConfiguration mrX, PlayerConfiguration firstDetective,
+							 PlayerConfiguration... restOfTheDetectives) {
 
+		this.validation = requireNonNull(validation);
 		this.rounds = requireNonNull(rounds); //makes sure rounds are not null
 		this.graph = requireNonNull(graph);   //makes sure graph is not null
 
@@ -70,6 +119,10 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 			colourSet.add(player.colour);
 		}
 		checkTickets();
+		generator = new MoveGenerator(graph);
+		detectiveLocations = new int[players.size()];
+		winConditions = new WinConditionTracker(generator.masks(), players);
+		checker = new LegalityChecker(generator.graph());
 	}
 
 	//Method to check whether all ticket types exist and assigning respective tickets to players
@@ -89,14 +142,55 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	public void registerSpectator(Spectator spectator) {
 		if(spectators.contains(requireNonNull(spectator)))
 			throw new IllegalArgumentException("The spectator is already registered!");
-		else spectators.add(spectator);
+		spectators.add(spectator);
+		directSpectators.add(spectator);
+	}
+
+	/**
+	 * Registers a spectator that is notified on its own thread through a
+	 * {@link SpectatorBus}, so it cannot hold up the game. The views it is given
+	 * are snapshots taken when each event happened. Unlike with
+	 * {@link #registerSpectator(Spectator)}, exceptions thrown by the
+	 * spectator do not reach the game; they are logged.
+	 *
+	 * @param spectator the spectator to register; not null
+	 * @param backpressure what to do when the spectator falls behind; not null
+	 * @throws IllegalArgumentException if the spectator was already registered
+	 */
+	public void registerSpectator(Spectator spectator, SpectatorBus.Backpressure backpressure) {
+		if(spectators.contains(requireNonNull(spectator)))
+			throw new IllegalArgumentException("The spectator is already registered!");
+		requireNonNull(backpressure);
+		if(bus == null) bus = new SpectatorBus(SpectatorBus.DEFAULT_CAPACITY);
+		bus.subscribe(spectator, backpressure);
+		spectators.add(spectator);
+	}
+
+	/**
+	 * @return the bus of the spectators registered with a backpressure, see
+	 * {@link #registerSpectator(Spectator, SpectatorBus.Backpressure)}; empty if there are none
+	 */
+	public Optional<SpectatorBus> getSpectatorBus() {
+		return Optional.ofNullable(bus);
+	}
+
+	/**
+	 * Sets the probe that is told what happens in the game and how long it
+	 * takes; nothing is timed without one
+	 *
+	 * @param probe the probe, null to remove it
+	 */
+	public void setProbe(GameProbe probe) {
+		this.probe = probe;
 	}
 
 	//Unregistering the spectators iff they exist before
 	@Override
 	public void unregisterSpectator(Spectator spectator) {
-		if(spectators.contains(requireNonNull(spectator)))
+		if(spectators.contains(requireNonNull(spectator))) {
 			spectators.remove(spectator);
+			if(!directSpectators.remove(spectator)) bus.unsubscribe(spectator);
+		}
 		else throw new IllegalArgumentException("The spectator is not registered!");
 	}
 
@@ -108,56 +202,45 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		throw new IllegalArgumentException("colour not found!");
 	}
 
+	//Method to store the detectives' current locations in a reusable array to make it easier to check whether location is occupied
+	private int occupiedLocations(){
+		int count = 0;
+		for(ScotlandYardPlayer player : players){
+			if(player.isDetective()) detectiveLocations[count++] = player.location();
+		}
+		return count;
+	}
+
 	//Method to create all possible moves from a given location for a colour. (Does not check if valid)
 	public Set<TicketMove> createMoves(Colour colour, int startingPoint) {
 		ScotlandYardPlayer p = playerFromColour(colour);
+		int count = generator.generateSingles(colour, startingPoint, p.ticketCounts(), detectiveLocations, occupiedLocations());
 		Set<TicketMove> ticketMoves = new HashSet<>();
-		List<Integer> locations = new ArrayList<>();
-
-		for(ScotlandYardPlayer player : players){ //storing the detectives' current locations in a list to make it easier to check whether location is occupied
-			if(player.isDetective()) locations.add(player.location());
-		}
-
-		Node<Integer> start = new Node<>(startingPoint);
-		Collection<Edge<Integer, Transport>> possibilities = graph.getEdgesFrom(start); //getting all the possible edges to move to from a point for a given transport.
-
-		for(Edge<Integer, Transport> edge : possibilities){
-			if(p.hasTickets(fromTransport(edge.data()), 1) && !(locations.contains(edge.destination().value()))) //asserting whether player has sufficient tickets and making sure the location to move to is free
-				ticketMoves.add(new TicketMove(colour, fromTransport(edge.data()), edge.destination().value()));
-			if(p.isMrX() && p.hasTickets(SECRET) && !(locations.contains(edge.destination().value()))) //checking whether mrX is using a secret ticket to make a move
-				ticketMoves.add(new TicketMove(colour, SECRET, edge.destination().value()));
-		}
+		for(int i = 0; i < count; i++) ticketMoves.add((TicketMove) PackedMove.toMove(generator.get(i)));
 		return ticketMoves;
 	}
 
+	//Generates the valid moves as packed ints into the generator's buffer, see MoveGenerator for the rules
+	private int generateMoves(ScotlandYardPlayer p) {
+		boolean doubleAllowed = currentRound < rounds.size() - 1; //checking whether the currentRound is not the last round
+		return generator.generate(p.colour(), p.location(), p.ticketCounts(), detectiveLocations, occupiedLocations(), doubleAllowed);
+	}
+
+	//Returns the valid moves as a set that only unpacks moves when iterated
 	private Set<Move> validMove(Colour player) {
-		ScotlandYardPlayer p = playerFromColour(player);
-		Set<Move> validMoves = new HashSet<>();
-		int lastRound = rounds.size() - 1;
-
-		if(p.isMrX()){
-			Set<TicketMove> singleMove = new HashSet<>(); //set to store the moves if mrX plays a single move
-			singleMove.addAll(createMoves(player, p.location())); //adding the possible moves to the single move set
-			validMoves.addAll(singleMove); //adding the single moves to valid moves using the addAll method
-
-			if(currentRound < lastRound && p.hasTickets(DOUBLE)){ //checking whether the currentRound is not the last round and asserting whether mrX has a double move ticket
-				for(TicketMove move1 : singleMove){
-
-					Set<TicketMove> doubleMove = new HashSet<>(); //creating a double move set
-					doubleMove.addAll(createMoves(BLACK, move1.destination())); //adding the possible moves from the destination of move1
-
-					for(TicketMove move2 : doubleMove){
-						if(p.hasTickets(move2.ticket())) validMoves.add(new DoubleMove(BLACK, move1, move2)); //checking whether mrX has the respective move2 ticket and adding the double moves to the valid moves set
-						if(move1.ticket() == move2.ticket() && !p.hasTickets(move1.ticket(), 2))validMoves.remove(new DoubleMove(BLACK, move1, move2));
-						//checking whether the tickets used are the same and hence removing the move avoiding overlap
-					}
-				}
-			}
-		}
-		if(p.isDetective()) validMoves.addAll(createMoves(player, p.location())); //adding the detectives' moves to valid moves
-		if(p.isDetective() && validMoves.isEmpty()) validMoves.add(new PassMove(player)); //adding a pass move for a detective iff the valid moves set is empty
+		long start = probe == null ? 0 : System.nanoTime();
+		generateMoves(playerFromColour(player));
+		Set<Move> moves = new PackedMoveSet(generator.toArray());
+		if(probe != null) probe.movesGenerated(player, System.nanoTime() - start);
+		return moves;
+	}
 
-		return Collections.unmodifiableSet(validMoves);
+	//Method to check a move either against the generated valid moves or on its own, depending on the validation mode
+	private boolean isValidMove(Move move) {
+		if(validation == Validation.GENERATE) return validMove(move.colour()).contains(move);
+		ScotlandYardPlayer p = playerFromColour(move.colour());
+		boolean doubleAllowed = currentRound < rounds.size() - 1;
+		return checker.isValid(PackedMove.fromMove(move), p.colour(), p.location(), p.ticketCounts(), detectiveLocations, occupiedLocations(), doubleAllowed);
 	}
 
 	//Method to check whether the rounds of the game are over
@@ -168,28 +251,26 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 
 	//Method to check whether mrX has been caught
 	private boolean mrXIsCaught(){
-		ScotlandYardPlayer mrX = playerFromColour(BLACK);
-		for(ScotlandYardPlayer p : players){
-			if(p.isDetective()){
-				if(p.location() == mrX.location()) return true;
-			}
-		}
-		return false;
+		return winConditions.mrXCaught();
 	}
 
 	//Method to check whether mrX is stuck and cannot make a move
 	private boolean mrXIsStuck(){
-		if(validMove(BLACK).isEmpty() && currentPlayer == 0) return true;
-		return false;
+		return currentPlayer == 0 && winConditions.mrXStuck();
 	}
 
 	//Method to check whether the detectives are stuck.
 	private boolean detectivesAreStuck(){
-		for(ScotlandYardPlayer p : players){
-			if(p.isDetective() && !createMoves(p.colour(), p.location()).isEmpty())
-				return false;
-		}
-		return true;
+		return winConditions.detectivesStuck();
+	}
+
+	//Moves a player and updates the win conditions affected by the move
+	private void movePlayer(ScotlandYardPlayer p, Ticket ticket, int destination){
+		int from = p.location();
+		p.location(destination);
+		p.removeTicket(ticket);
+		if(p.isDetective()) playerFromColour(BLACK).addTicket(ticket); //adding the detective's ticket to mrX's pile of tickets
+		winConditions.moved(players.indexOf(p), from);
 	}
 
 	//MoveVisitor method for a Pass Move
@@ -202,11 +283,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	@Override
 	public void visit(TicketMove move){
 		ScotlandYardPlayer p = playerFromColour(move.colour());
-		ScotlandYardPlayer mrX = playerFromColour(BLACK);
-		p.location(move.destination());
-		p.removeTicket(move.ticket()); //removes the detective's ticket after move has been made
-
-		if(p.isDetective()) mrX.addTicket(move.ticket()); //adding the detective's ticket to mrX's pile of tickets
+		movePlayer(p, move.ticket(), move.destination()); //moves the player and removes the ticket after move has been made
 
 		Move hiddenMove = move; //setting the hidden move to the move if it is not a reveal round
 
@@ -245,8 +322,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 			moveMade(move); //updates the spectators telling them the move has been made
 		}
 
-		mrX.location(move1.destination()); //setting Mr X's location to the first move's destination
-		mrX.removeTicket(move1.ticket()); //removing the first move's ticket after making a move
+		movePlayer(mrX, move1.ticket(), move1.destination()); //setting Mr X's location to the first move's destination and removing the first move's ticket
 
 		Move hiddenMove = move1; //setting the first move to a hidden move
 
@@ -259,8 +335,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		startRound(); //starting the round
 		moveMade(hiddenMove); //updating the spectators that the hidden move has been made
 
-		mrX.location(move2.destination()); //setting Mr X's location to the second move's destination
-		mrX.removeTicket(move2.ticket()); //removing the second move's ticket after making a move
+		movePlayer(mrX, move2.ticket(), move2.destination()); //setting Mr X's location to the second move's destination and removing the second move's ticket
 
 		hiddenMove = move2; //setting the second move to a hidden move
 
@@ -276,14 +351,21 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 
 	@Override
 	public void accept(Move move) {
+		long start = probe == null ? 0 : System.nanoTime();
 		currentPlayer = (currentPlayer + 1) % players.size();// increments aswell as resets the current player if it goes out of bounds in the players list
 		requireNonNull(move);
+		if(probe != null && decisionStarted != 0) probe.moveDecided(move.colour(), start - decisionStarted); //0 if the probe was set after the player was asked
 
-		if (!validMove(move.colour()).contains(move)) throw new IllegalArgumentException("Incorrect move!");// throws if valid moves does not contain the move
+		if (!isValidMove(move)) {
+			if(probe != null) probe.moveRejected(move.colour());
+			throw new IllegalArgumentException("Incorrect move!");// throws if the move is not one of the valid moves
+		}
 
 		move.visit(this);// calls visit on the object itself
 
-		if(!isGameOver()){
+		boolean gameOver = isGameOver();
+		if(probe != null) probe.moveAccepted(move.colour(), System.nanoTime() - start); //before the next player is asked, who may answer right away
+		if(!gameOver){
 			if(currentPlayer > 0) playMove(); // if game isnt over move is played
 			else rotationComplete();
 		}
@@ -292,19 +374,44 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 
 	private void startRound(){
 		currentRound += 1; //increments round before a move has been made
-		for(Spectator s : spectators) s.onRoundStarted(this, currentRound);// calling move made on spectators
+		if(probe != null) probe.roundStarted(currentRound);
+		long start = probe == null ? 0 : System.nanoTime();
+		for(Spectator s : directSpectators) s.onRoundStarted(this, currentRound);// calling move made on spectators
+		if(bus != null) bus.roundStarted(this, currentRound);
+		notified(start);
 	}
 
 	private void moveMade(Move move){
-		for(Spectator s : spectators) s.onMoveMade(this, move);
+		long start = probe == null ? 0 : System.nanoTime();
+		for(Spectator s : directSpectators) s.onMoveMade(this, move);
+		if(bus != null) bus.moveMade(this, move);
+		notified(start);
 	}
 
 	private void rotationComplete(){
-		for(Spectator s : spectators) s.onRotationComplete(this);
+		long start = probe == null ? 0 : System.nanoTime();
+		for(Spectator s : directSpectators) s.onRotationComplete(this);
+		if(bus != null) bus.rotationComplete(this);
+		notified(start);
 	}
 
 	private void returnWinningPlayers(){
-		for(Spectator s : spectators) s.onGameOver(this, getWinningPlayers());
+		long start = probe == null ? 0 : System.nanoTime();
+		for(Spectator s : directSpectators) s.onGameOver(this, getWinningPlayers());
+		if(bus != null) bus.gameOver(this, getWinningPlayers());
+		notified(start);
+		if(probe != null) probe.gameOver(getWinningPlayers());
+	}
+
+	//Tells the probe how long notifying the spectators of an event took
+	private void notified(long start){
+		if(probe != null) probe.spectatorsNotified(System.nanoTime() - start);
+	}
+
+	//Asks a player for a move, noting when for the probe
+	private void askForMove(ScotlandYardPlayer p, Set<Move> moves){
+		if(probe != null) decisionStarted = System.nanoTime();
+		p.player().makeMove(this, p.location(), moves, this);
 	}
 
 	@Override
@@ -314,13 +421,13 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		else {
 			currentPlayer = 0; //resets current player to zero if round is complete
 			ScotlandYardPlayer mrX = playerFromColour(BLACK);
-			mrX.player().makeMove(this, mrX.location(), validMove(BLACK), this); //calls make move on MrX
+			askForMove(mrX, validMove(BLACK)); //calls make move on MrX
 		}
 	}
 
 	private void playMove(){ // makes a move for a detective
 		ScotlandYardPlayer p = playerFromColour(getCurrentPlayer());
-		p.player().makeMove(this, p.location(), validMove(p.colour()), this);
+		askForMove(p, validMove(p.colour()));
 	}
 
 	@Override
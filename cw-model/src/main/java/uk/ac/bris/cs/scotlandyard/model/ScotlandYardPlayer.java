@@ -12,6 +12,7 @@ public class ScotlandYardPlayer {
 	private final Colour colour;
 	private int location;
 	private final Map<Ticket, Integer> tickets;
+	private final int[] ticketCounts = new int[Ticket.values().length];
 
 	/**
 	 * Constructs a new ScotlandYardPlayer object.
@@ -27,6 +28,10 @@ public class ScotlandYardPlayer {
 		this.colour = colour;
 		this.location = location;
 		this.tickets = new HashMap<>(tickets);
+		for (Ticket ticket : Ticket.values()) {
+			Integer count = tickets.get(ticket);
+			ticketCounts[ticket.ordinal()] = count == null ? 0 : count;
+		}
 	}
 
 	/**
@@ -84,6 +89,14 @@ public class ScotlandYardPlayer {
 		return tickets;
 	}
 
+	/**
+	 * @return the player's current ticket counts indexed by
+	 *         {@link Ticket#ordinal()}; must not be modified
+	 */
+	int[] ticketCounts() {
+		return ticketCounts;
+	}
+
 	/**
 	 * Adds a ticket to the player's current tickets.
 	 *
@@ -107,6 +120,7 @@ public class ScotlandYardPlayer {
 		ticketCount += by;
 		tickets.remove(ticket);
 		tickets.put(ticket, ticketCount);
+		ticketCounts[ticket.ordinal()] = ticketCount;
 	}
 	/**
 	 * Checks whether the player has the given ticket
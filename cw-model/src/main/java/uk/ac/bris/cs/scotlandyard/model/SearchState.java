@@ -0,0 +1,367 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A mutable game state for tree search. Moves are {@link PackedMove}s that are
+ * applied with {@link #apply(int)} and reverted with {@link #undo()}, so a
+ * search can walk the game tree without copying the state or creating a
+ * {@link ScotlandYardModel} for every node. Moves follow the same rules as
+ * {@link ScotlandYardModel}, including detectives giving their used tickets
+ * to Mr.X and Mr.X's location only being revealed in reveal rounds, but no
+ * {@link Spectator} or {@link Player} is ever notified. <br>
+ * Unlike a {@link ScotlandYardView}, the state always knows Mr.X's actual
+ * location; an AI playing a detective has to pick one, see
+ * {@link #fromView(ScotlandYardView, int)}. <br>
+ * Every state has a Zobrist {@link #hash()} that is updated with each move,
+ * see {@link uk.ac.bris.cs.scotlandyard.ai.TranspositionTable}. <br>
+ * Instances are not thread safe, use {@link #copy()} to search from several
+ * threads.
+ */
+public final class SearchState {
+
+	private static final int TICKETS = Ticket.values().length;
+	private static final int DOUBLE = Ticket.DOUBLE.ordinal();
+
+	private final MoveGenerator generator;
+	// separate so checking for game over keeps the generated moves
+	private final MoveGenerator conditions;
+	private final boolean[] rounds;
+	private final Colour[] colours;
+	private final int[] locations;
+	private final int[][] tickets;
+	private final int[] occupied;
+	private int currentPlayer;
+	private int currentRound;
+	private int lastLocation;
+	// each entry holds the move, the mover's old location and the old
+	// lastLocation
+	private long[] history = new long[64];
+	private long[] hashes = new long[64];
+	private int depth;
+	private long hash;
+
+	private SearchState(MoveGenerator generator, boolean[] rounds, Colour[] colours,
+			int[] locations, int[][] tickets, int currentPlayer, int currentRound,
+			int lastLocation) {
+		this.generator = generator;
+		this.conditions = new MoveGenerator(generator.graph());
+		this.rounds = rounds;
+		this.colours = colours;
+		this.locations = locations;
+		this.tickets = tickets;
+		this.occupied = new int[colours.length - 1];
+		this.currentPlayer = currentPlayer;
+		this.currentRound = currentRound;
+		this.lastLocation = lastLocation;
+		this.hash = computeHash();
+	}
+
+	/**
+	 * Creates a state matching what the given view shows, with Mr.X at the
+	 * given location
+	 *
+	 * @param view the view of the game; not null
+	 * @param mrXLocation Mr.X's actual location(or a guess of it when
+	 *        searching for a detective)
+	 * @return a new state; never null
+	 */
+	public static SearchState fromView(ScotlandYardView view, int mrXLocation) {
+		Objects.requireNonNull(view);
+		List<Colour> players = view.getPlayers();
+		if (players.isEmpty() || !players.get(0).isMrX())
+			throw new IllegalArgumentException("Mr.X must be the first player");
+		Colour[] colours = players.toArray(new Colour[0]);
+		int[] locations = new int[colours.length];
+		int[][] tickets = new int[colours.length][TICKETS];
+		for (int i = 0; i < colours.length; i++) {
+			locations[i] = i == 0 ? mrXLocation : view.getPlayerLocation(colours[i])
+					.orElseThrow(IllegalArgumentException::new);
+			for (Ticket ticket : Ticket.values())
+				tickets[i][ticket.ordinal()] = view.getPlayerTickets(colours[i], ticket).orElse(0);
+		}
+		List<Boolean> rounds = view.getRounds();
+		boolean[] reveal = new boolean[rounds.size()];
+		for (int i = 0; i < reveal.length; i++) reveal[i] = rounds.get(i);
+		int currentPlayer = players.indexOf(view.getCurrentPlayer());
+		int lastLocation = view.getPlayerLocation(colours[0]).orElse(0);
+		return new SearchState(new MoveGenerator(view.getGraph()), reveal, colours, locations,
+				tickets, currentPlayer, view.getCurrentRound(), lastLocation);
+	}
+
+	/**
+	 * @return an independent copy of this state without the undo history;
+	 *         never null
+	 */
+	public SearchState copy() {
+		int[][] ticketsCopy = new int[tickets.length][];
+		for (int i = 0; i < tickets.length; i++) ticketsCopy[i] = tickets[i].clone();
+		return new SearchState(new MoveGenerator(generator.graph()), rounds, colours,
+				locations.clone(), ticketsCopy, currentPlayer, currentRound, lastLocation);
+	}
+
+	/**
+	 * Creates a copy of this state with Mr.X moved, e.g. to search from a
+	 * different guess of where Mr.X is. Like {@link #copy()} this only reads
+	 * this state, so several threads may determinize a shared state as long as
+	 * none of them modifies it.
+	 *
+	 * @param location Mr.X's location in the copy
+	 * @return an independent copy of this state without the undo history;
+	 *         never null
+	 */
+	public SearchState withMrXAt(int location) {
+		SearchState state = copy();
+		state.hash ^= Zobrist.location(state.colours[0].ordinal(), state.locations[0])
+				^ Zobrist.location(state.colours[0].ordinal(), location);
+		state.locations[0] = location;
+		return state;
+	}
+
+	/**
+	 * @return the number of players, Mr.X is always at index 0
+	 */
+	public int playerCount() {
+		return colours.length;
+	}
+
+	/**
+	 * @param index index of the player
+	 * @return the colour of the player; never null
+	 */
+	public Colour colour(int index) {
+		return colours[index];
+	}
+
+	/**
+	 * @param index index of the player
+	 * @return the actual location of the player
+	 */
+	public int location(int index) {
+		return locations[index];
+	}
+
+	/**
+	 * @param index index of the player
+	 * @param ticket the ticket; not null
+	 * @return the number of tickets the player has
+	 */
+	public int tickets(int index, Ticket ticket) {
+		return tickets[index][ticket.ordinal()];
+	}
+
+	/**
+	 * @return the index of the player to move
+	 */
+	public int currentPlayer() {
+		return currentPlayer;
+	}
+
+	/**
+	 * @return the current round, see {@link ScotlandYardView#getCurrentRound()}
+	 */
+	public int currentRound() {
+		return currentRound;
+	}
+
+	/**
+	 * @return Mr.X's last revealed location, or 0 if it has not been revealed
+	 */
+	public int lastLocation() {
+		return lastLocation;
+	}
+
+	/**
+	 * @return the Zobrist hash of the locations, ticket counts, round, current
+	 *         player and Mr.X's last revealed location
+	 */
+	public long hash() {
+		return hash;
+	}
+
+	/**
+	 * @return the number of moves that can be undone
+	 */
+	public int depth() {
+		return depth;
+	}
+
+	/**
+	 * Generates the valid moves of the current player, replacing the previously
+	 * generated moves
+	 *
+	 * @return the number of moves generated, read them with {@link #move(int)}
+	 */
+	public int generateMoves() {
+		int player = currentPlayer;
+		return generator.generate(colours[player], locations[player], tickets[player],
+				occupied, occupiedLocations(), currentRound < rounds.length - 1);
+	}
+
+	/**
+	 * @param index index of the move, less than the count returned by
+	 *        {@link #generateMoves()}
+	 * @return the generated move at the given index
+	 */
+	public int move(int index) {
+		return generator.get(index);
+	}
+
+	/**
+	 * @return a copy of the moves generated by the last call to
+	 *         {@link #generateMoves()}; never null
+	 */
+	public int[] moves() {
+		return generator.toArray();
+	}
+
+	/**
+	 * Plays a move of the current player. The move must be one of the valid
+	 * moves of the current player, only its colour is checked.
+	 *
+	 * @param move the packed move
+	 */
+	public void apply(int move) {
+		int player = currentPlayer;
+		if (move == PackedMove.NONE || PackedMove.colour(move) != colours[player])
+			throw new IllegalArgumentException("Not a move of " + colours[player] + ": "
+					+ move);
+		if (depth == history.length) {
+			history = Arrays.copyOf(history, depth * 2);
+			hashes = Arrays.copyOf(hashes, depth * 2);
+		}
+		hashes[depth] = hash;
+		history[depth++] = (move & 0xFFFFFFFFL) | (long) locations[player] << 32
+				| (long) lastLocation << 48;
+		switch (PackedMove.kind(move)) {
+			case PackedMove.TICKET:
+				moveTo(player, PackedMove.ticketOrdinal(move), PackedMove.destination(move));
+				break;
+			case PackedMove.DOUBLE:
+				adjustTickets(0, DOUBLE, -1);
+				moveTo(0, PackedMove.ticketOrdinal(move), PackedMove.destination(move));
+				moveTo(0, PackedMove.secondTicketOrdinal(move),
+						PackedMove.secondDestination(move));
+				break;
+			default:
+				break;
+		}
+		currentPlayer = (player + 1) % colours.length;
+		hash ^= Zobrist.player(colours[player].ordinal())
+				^ Zobrist.player(colours[currentPlayer].ordinal());
+	}
+
+	/**
+	 * Reverts the last move that has not been undone yet
+	 */
+	public void undo() {
+		if (depth == 0) throw new IllegalStateException("No move to undo");
+		long entry = history[--depth];
+		hash = hashes[depth];
+		int move = (int) entry;
+		int from = (int) (entry >>> 32 & 0xFFFF);
+		int player = currentPlayer = (currentPlayer + colours.length - 1) % colours.length;
+		lastLocation = (int) (entry >>> 48);
+		switch (PackedMove.kind(move)) {
+			case PackedMove.TICKET:
+				returnTicket(player, PackedMove.ticketOrdinal(move));
+				break;
+			case PackedMove.DOUBLE:
+				tickets[0][DOUBLE]++;
+				returnTicket(0, PackedMove.ticketOrdinal(move));
+				returnTicket(0, PackedMove.secondTicketOrdinal(move));
+				break;
+			default:
+				return;
+		}
+		locations[player] = from;
+	}
+
+	/**
+	 * @return true if the game is over, see {@link ScotlandYardGame#isGameOver()}
+	 */
+	public boolean isGameOver() {
+		return roundsAreOver() || detectivesStuck() || mrXCaught() || mrXStuck();
+	}
+
+	/**
+	 * @return true if the game is over and Mr.X won, false if the game is not
+	 *         over or the detectives won
+	 */
+	public boolean mrXWon() {
+		return roundsAreOver() || detectivesStuck();
+	}
+
+	private void moveTo(int player, int ticket, int destination) {
+		int colour = colours[player].ordinal();
+		hash ^= Zobrist.location(colour, locations[player])
+				^ Zobrist.location(colour, destination);
+		locations[player] = destination;
+		adjustTickets(player, ticket, -1);
+		if (player == 0) {
+			if (rounds[currentRound]) {
+				hash ^= Zobrist.lastLocation(lastLocation) ^ Zobrist.lastLocation(destination);
+				lastLocation = destination;
+			}
+			hash ^= Zobrist.round(currentRound) ^ Zobrist.round(currentRound + 1);
+			currentRound++;
+		} else adjustTickets(0, ticket, 1);
+	}
+
+	private void adjustTickets(int player, int ticket, int change) {
+		int colour = colours[player].ordinal();
+		int count = tickets[player][ticket];
+		hash ^= Zobrist.tickets(colour, ticket, count)
+				^ Zobrist.tickets(colour, ticket, count + change);
+		tickets[player][ticket] = count + change;
+	}
+
+	private long computeHash() {
+		long hash = Zobrist.round(currentRound) ^ Zobrist.lastLocation(lastLocation)
+				^ Zobrist.player(colours[currentPlayer].ordinal());
+		for (int i = 0; i < colours.length; i++) {
+			int colour = colours[i].ordinal();
+			hash ^= Zobrist.location(colour, locations[i]);
+			for (int ticket = 0; ticket < TICKETS; ticket++)
+				hash ^= Zobrist.tickets(colour, ticket, tickets[i][ticket]);
+		}
+		return hash;
+	}
+
+	private void returnTicket(int player, int ticket) {
+		tickets[player][ticket]++;
+		if (player == 0) currentRound--;
+		else tickets[0][ticket]--;
+	}
+
+	private int occupiedLocations() {
+		for (int i = 1; i < colours.length; i++) occupied[i - 1] = locations[i];
+		return occupied.length;
+	}
+
+	private boolean roundsAreOver() {
+		return currentRound == rounds.length && currentPlayer == 0;
+	}
+
+	private boolean mrXCaught() {
+		for (int i = 1; i < colours.length; i++)
+			if (locations[i] == locations[0]) return true;
+		return false;
+	}
+
+	private boolean mrXStuck() {
+		return currentPlayer == 0 && conditions.generateSingles(colours[0], locations[0],
+				tickets[0], occupied, occupiedLocations()) == 0;
+	}
+
+	private boolean detectivesStuck() {
+		int count = occupiedLocations();
+		for (int i = 1; i < colours.length; i++)
+			if (conditions.generateSingles(colours[i], locations[i], tickets[i], occupied,
+					count) > 0) return false;
+		return true;
+	}
+
+}
@@ -0,0 +1,310 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.LoggerFactory;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+
+/**
+ * Delivers spectator events of one game on other threads, so a slow
+ * {@link Spectator} does not hold up the game. <br>
+ * The game is the only producer: each event is published once, together with
+ * an immutable snapshot of the view, into a bounded ring buffer. Every
+ * subscribed spectator has its own consumer thread reading the ring at its
+ * own pace and receives the events it is given in the order they were
+ * published. What happens when a spectator falls a whole ring behind is up to
+ * its {@link Backpressure}. <br>
+ * A consumer stops after delivering {@link Spectator#onGameOver}, which is
+ * the last event of a game and is never lost. Exceptions thrown by a
+ * spectator are logged and do not reach the game.
+ */
+public final class SpectatorBus {
+
+	/**
+	 * The number of events buffered by {@link ScotlandYardModel} when a
+	 * spectator is registered with a {@link Backpressure}
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private static final long PRODUCER_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+	private static final AtomicInteger THREADS = new AtomicInteger();
+
+	/**
+	 * What a spectator's consumer does when the game is a whole ring of
+	 * events ahead of it
+	 */
+	public enum Backpressure {
+		/**
+		 * The game waits for the spectator; no event is lost
+		 */
+		BLOCK,
+
+		/**
+		 * The events that were overwritten are lost, the spectator carries on
+		 * from the oldest event still buffered
+		 */
+		DROP,
+
+		/**
+		 * Everything but the latest event is skipped, bringing the spectator
+		 * up to date at once
+		 */
+		COALESCE
+	}
+
+	private enum Kind {
+		MOVE_MADE, ROUND_STARTED, ROTATION_COMPLETE, GAME_OVER
+	}
+
+	private static final class Event {
+		final long sequence;
+		final Kind kind;
+		final ScotlandYardView view;
+		final Move move;
+		final int round;
+		final Set<Colour> winningPlayers;
+
+		Event(long sequence, Kind kind, ScotlandYardView view, Move move, int round,
+				Set<Colour> winningPlayers) {
+			this.sequence = sequence;
+			this.kind = kind;
+			this.view = view;
+			this.move = move;
+			this.round = round;
+			this.winningPlayers = winningPlayers;
+		}
+	}
+
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<Event> ring;
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+	// the sequence of the next event, written by the producer only
+	private volatile long cursor;
+	private List<Boolean> rounds;
+	private Graph<Integer, Transport> graph;
+
+	/**
+	 * @param capacity the number of events buffered, a power of two
+	 */
+	public SpectatorBus(int capacity) {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("capacity must be a power of two");
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		this.ring = new AtomicReferenceArray<>(capacity);
+	}
+
+	/**
+	 * Starts delivering events published from now on to the given spectator
+	 *
+	 * @param spectator the spectator; not null
+	 * @param backpressure what to do when the spectator falls behind; not
+	 *        null
+	 * @throws IllegalArgumentException if the spectator is already subscribed
+	 */
+	public void subscribe(Spectator spectator, Backpressure backpressure) {
+		requireNonNull(spectator);
+		requireNonNull(backpressure);
+		if (subscriberOf(spectator) != null)
+			throw new IllegalArgumentException("The spectator is already subscribed!");
+		Subscriber subscriber = new Subscriber(spectator, backpressure, cursor);
+		subscribers.add(subscriber);
+		subscriber.thread.start();
+	}
+
+	/**
+	 * Stops delivering events to the given spectator; events it has not been
+	 * given yet are discarded
+	 *
+	 * @param spectator the spectator; not null
+	 * @throws IllegalArgumentException if the spectator is not subscribed
+	 */
+	public void unsubscribe(Spectator spectator) {
+		Subscriber subscriber = subscriberOf(requireNonNull(spectator));
+		if (subscriber == null)
+			throw new IllegalArgumentException("The spectator is not subscribed!");
+		subscribers.remove(subscriber);
+		subscriber.stop();
+	}
+
+	/**
+	 * @param spectator the spectator; not null
+	 * @return whether the spectator is subscribed
+	 */
+	public boolean isSubscribed(Spectator spectator) {
+		return subscriberOf(requireNonNull(spectator)) != null;
+	}
+
+	/**
+	 * @param spectator a subscribed spectator; not null
+	 * @return the number of events the spectator has lost to
+	 *         {@link Backpressure#DROP} or {@link Backpressure#COALESCE}
+	 * @throws IllegalArgumentException if the spectator is not subscribed
+	 */
+	public long dropped(Spectator spectator) {
+		Subscriber subscriber = subscriberOf(requireNonNull(spectator));
+		if (subscriber == null)
+			throw new IllegalArgumentException("The spectator is not subscribed!");
+		return subscriber.dropped;
+	}
+
+	/**
+	 * Waits until every subscribed spectator has been given all events
+	 * published so far, or has stopped
+	 *
+	 * @param timeout the most time to wait
+	 * @param unit the unit of the timeout; not null
+	 * @return whether all spectators caught up in time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean awaitDelivery(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		long published = cursor;
+		for (Subscriber subscriber : subscribers) {
+			while (subscriber.sequence < published && subscriber.thread.isAlive()) {
+				if (System.nanoTime() - deadline >= 0) return false;
+				if (Thread.interrupted()) throw new InterruptedException();
+				LockSupport.parkNanos(PRODUCER_BACKOFF_NANOS);
+			}
+		}
+		return true;
+	}
+
+	void moveMade(ScotlandYardView view, Move move) {
+		publish(Kind.MOVE_MADE, view, move, 0, null);
+	}
+
+	void roundStarted(ScotlandYardView view, int round) {
+		publish(Kind.ROUND_STARTED, view, null, round, null);
+	}
+
+	void rotationComplete(ScotlandYardView view) {
+		publish(Kind.ROTATION_COMPLETE, view, null, 0, null);
+	}
+
+	void gameOver(ScotlandYardView view, Set<Colour> winningPlayers) {
+		publish(Kind.GAME_OVER, view, null, 0, winningPlayers);
+	}
+
+	private void publish(Kind kind, ScotlandYardView view, Move move, int round,
+			Set<Colour> winningPlayers) {
+		if (subscribers.isEmpty()) return;
+		if (graph == null) {
+			rounds = Collections.unmodifiableList(new ArrayList<>(view.getRounds()));
+			graph = view.getGraph();
+		}
+		long sequence = cursor;
+		long wrap = sequence - capacity;
+		// the slot about to be overwritten must have been read by every
+		// blocking spectator
+		if (wrap >= 0) while (blockingMinimum() <= wrap)
+			LockSupport.parkNanos(PRODUCER_BACKOFF_NANOS);
+		ring.set((int) (sequence & mask), new Event(sequence, kind,
+				new ViewSnapshot(view, rounds, graph), move, round, winningPlayers));
+		cursor = sequence + 1;
+		for (Subscriber subscriber : subscribers)
+			if (subscriber.parked) LockSupport.unpark(subscriber.thread);
+	}
+
+	private long blockingMinimum() {
+		long minimum = Long.MAX_VALUE;
+		for (Subscriber subscriber : subscribers)
+			if (subscriber.backpressure == Backpressure.BLOCK && subscriber.thread.isAlive())
+				minimum = Math.min(minimum, subscriber.sequence);
+		return minimum;
+	}
+
+	private Subscriber subscriberOf(Spectator spectator) {
+		for (Subscriber subscriber : subscribers)
+			if (subscriber.spectator == spectator) return subscriber;
+		return null;
+	}
+
+	private final class Subscriber implements Runnable {
+
+		final Spectator spectator;
+		final Backpressure backpressure;
+		final Thread thread;
+		// the sequence of the next event to deliver
+		volatile long sequence;
+		volatile long dropped;
+		volatile boolean parked;
+		volatile boolean stopped;
+
+		Subscriber(Spectator spectator, Backpressure backpressure, long sequence) {
+			this.spectator = spectator;
+			this.backpressure = backpressure;
+			this.sequence = sequence;
+			this.thread = new Thread(this, "spectator-" + THREADS.incrementAndGet());
+			this.thread.setDaemon(true);
+		}
+
+		void stop() {
+			stopped = true;
+			LockSupport.unpark(thread);
+		}
+
+		@Override
+		public void run() {
+			long next = sequence;
+			while (!stopped) {
+				if (next >= cursor) {
+					parked = true;
+					if (next >= cursor && !stopped) LockSupport.park(this);
+					parked = false;
+					continue;
+				}
+				Event event = ring.get((int) (next & mask));
+				if (event.sequence != next) {
+					// lapped by the producer, the event was overwritten
+					long published = cursor;
+					long resume = backpressure == Backpressure.COALESCE ? published - 1
+							: Math.max(next + 1, published - capacity);
+					dropped += resume - next;
+					sequence = next = resume;
+					continue;
+				}
+				deliver(event);
+				sequence = ++next;
+				if (event.kind == Kind.GAME_OVER) break;
+			}
+		}
+
+		private void deliver(Event event) {
+			try {
+				switch (event.kind) {
+					case MOVE_MADE:
+						spectator.onMoveMade(event.view, event.move);
+						break;
+					case ROUND_STARTED:
+						spectator.onRoundStarted(event.view, event.round);
+						break;
+					case ROTATION_COMPLETE:
+						spectator.onRotationComplete(event.view);
+						break;
+					case GAME_OVER:
+						spectator.onGameOver(event.view, event.winningPlayers);
+						break;
+				}
+			} catch (RuntimeException e) {
+				// looked up here so games without failing spectators never
+				// set up logging
+				LoggerFactory.getLogger(SpectatorBus.class).error(
+						"{} failed on {}, the game carries on", spectator, event.kind, e);
+			}
+		}
+	}
+
+}
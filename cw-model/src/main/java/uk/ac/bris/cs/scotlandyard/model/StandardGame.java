@@ -5,6 +5,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -82,7 +85,7 @@ public class StandardGame {
 	 * @param n number of detectives
 	 * @return a list of locations
 	 */
-	public static List<Integer> generateDetectiveLocations(int seed, int n) {
+	public static List<Integer> generateDetectiveLocations(long seed, int n) {
 		if (n > DETECTIVE_LOCATIONS.size())
 			throw new IllegalArgumentException("n > max detective locations");
 		List<Integer> locations = IntStream.range(0, DETECTIVE_LOCATIONS.size()).boxed()
@@ -96,7 +99,7 @@ public class StandardGame {
 	 *
 	 * @return the selected location
 	 */
-	public static int generateMrXLocation(int seed) {
+	public static int generateMrXLocation(long seed) {
 		return MRX_LOCATIONS.get(new Random(seed).nextInt(MRX_LOCATIONS.size()));
 	}
 
@@ -133,7 +136,10 @@ public class StandardGame {
 	public static final int MAP_OFFSET = 60;
 
 	public static Map<Integer, Entry<Integer, Integer>> pngMapPositionEntries() throws IOException {
-		List<String> lines = readString("pos.txt");
+		return positionEntries(readString("pos.txt"));
+	}
+
+	static Map<Integer, Entry<Integer, Integer>> positionEntries(List<String> lines) {
 		Map<Integer, Entry<Integer, Integer>> map = new HashMap<>();
 		for (String line : lines) {
 			Integer[] values = Stream.of(line.split("\\s+")).map(Integer::parseInt)
@@ -148,14 +154,42 @@ public class StandardGame {
 	}
 
 	public static ImmutableGraph<Integer, Transport> standardGraph() throws IOException {
-		return ScotlandYardGraphReader.fromLines(readString("graph.txt"));
+		try (InputStream stream = openResource("graph.txt")) {
+			return ScotlandYardGraphReader.fromInputStream(stream);
+		}
+	}
+
+	/**
+	 * The directory for files derived from a map, e.g. distances or map
+	 * bundles. Never on the classpath, so nothing derived ends up packaged
+	 * with the classes.
+	 *
+	 * @return {@code .cache/scotlandyard} in {@code user.home} if the home
+	 *         directory is writable, otherwise {@code scotlandyard} in
+	 *         {@code java.io.tmpdir}; never null
+	 */
+	public static Path cacheDirectory() {
+		String home = System.getProperty("user.home");
+		if (home != null && !home.isEmpty()) {
+			try {
+				Path directory = Paths.get(home);
+				if (Files.isDirectory(directory) && Files.isWritable(directory))
+					return directory.resolve(".cache").resolve("scotlandyard");
+			} catch (IllegalArgumentException ignored) {
+				// fall through to the temporary directory
+			}
+		}
+		return Paths.get(System.getProperty("java.io.tmpdir"), "scotlandyard");
+	}
+
+	static InputStream openResource(String resource) throws IOException {
+		InputStream stream = StandardGame.class.getClassLoader().getResourceAsStream(resource);
+		if (stream == null) throw new IOException("Resource " + resource + " not found");
+		return stream;
 	}
 
 	private static List<String> readString(String resource) throws IOException {
-		try (InputStream stream = StandardGame.class
-				.getClassLoader()
-				.getResourceAsStream(resource)) {
-			if (stream == null) throw new IOException("Resource " + resource + " not found");
+		try (InputStream stream = openResource(resource)) {
 			return new BufferedReader(
 					new InputStreamReader(stream, StandardCharsets.UTF_8))
 							.lines()
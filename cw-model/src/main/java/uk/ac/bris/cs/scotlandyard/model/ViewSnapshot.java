@@ -0,0 +1,99 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+
+/**
+ * An immutable copy of a {@link ScotlandYardView} at one point in time, so it
+ * can be read on another thread while the game goes on. The graph and the
+ * rounds are shared, not copied, as the game never changes them.
+ */
+final class ViewSnapshot implements ScotlandYardView {
+
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private final List<Colour> players;
+	private final int[] locations;
+	private final int[][] tickets;
+	private final Set<Colour> winning;
+	private final boolean gameOver;
+	private final Colour currentPlayer;
+	private final int currentRound;
+	private final List<Boolean> rounds;
+	private final Graph<Integer, Transport> graph;
+
+	/**
+	 * @param view the view to copy; not null
+	 * @param rounds the rounds of the view, shared by every snapshot; not null
+	 * @param graph the graph of the view, shared by every snapshot; not null
+	 */
+	ViewSnapshot(ScotlandYardView view, List<Boolean> rounds, Graph<Integer, Transport> graph) {
+		this.players = view.getPlayers();
+		this.locations = new int[players.size()];
+		this.tickets = new int[players.size()][TICKETS.length];
+		for (int i = 0; i < locations.length; i++) {
+			Colour colour = players.get(i);
+			locations[i] = view.getPlayerLocation(colour).orElse(0);
+			for (Ticket ticket : TICKETS)
+				tickets[i][ticket.ordinal()] = view.getPlayerTickets(colour, ticket).orElse(0);
+		}
+		this.winning = view.getWinningPlayers();
+		this.gameOver = view.isGameOver();
+		this.currentPlayer = view.getCurrentPlayer();
+		this.currentRound = view.getCurrentRound();
+		this.rounds = rounds;
+		this.graph = graph;
+	}
+
+	@Override
+	public List<Colour> getPlayers() {
+		return players;
+	}
+
+	@Override
+	public Set<Colour> getWinningPlayers() {
+		return winning;
+	}
+
+	@Override
+	public Optional<Integer> getPlayerLocation(Colour colour) {
+		int index = players.indexOf(colour);
+		return index < 0 ? Optional.empty() : Optional.of(locations[index]);
+	}
+
+	@Override
+	public Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket) {
+		int index = players.indexOf(colour);
+		return index < 0 || ticket == null ? Optional.empty()
+				: Optional.of(tickets[index][ticket.ordinal()]);
+	}
+
+	@Override
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	@Override
+	public Colour getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	@Override
+	public int getCurrentRound() {
+		return currentRound;
+	}
+
+	@Override
+	public List<Boolean> getRounds() {
+		return rounds;
+	}
+
+	@Override
+	public Graph<Integer, Transport> getGraph() {
+		return graph;
+	}
+
+}
@@ -0,0 +1,123 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.graph.Bitboard;
+import uk.ac.bris.cs.gamekit.graph.NeighbourMasks;
+
+/**
+ * Keeps track of the win conditions that depend on player locations and
+ * tickets, so they can be checked in constant time instead of generating moves
+ * for every player. The tracker must be told about every location change
+ * through {@link #moved(int, int)}; only the mover and the detectives next to
+ * the mover's old or new location are re-evaluated. Detective locations are
+ * kept in a {@link Bitboard}, so occupancy and adjacency are single bit tests.
+ */
+final class WinConditionTracker {
+
+	private static final int SECRET = Ticket.SECRET.ordinal();
+	private static final int TRANSPORTS = Transport.values().length;
+
+	private final NeighbourMasks<Transport> masks;
+	private final List<ScotlandYardPlayer> players;
+	private final Bitboard occupied;
+	private final boolean[] stuck;
+	private int movableDetectives;
+	private boolean mrXCaught;
+	private boolean mrXStuck;
+	private boolean mrXStuckKnown;
+
+	/**
+	 * @param masks the neighbour masks of the graph of the game
+	 * @param players all players, Mr.X first
+	 */
+	WinConditionTracker(NeighbourMasks<Transport> masks, List<ScotlandYardPlayer> players) {
+		this.masks = masks;
+		this.players = players;
+		this.stuck = new boolean[players.size()];
+		this.occupied = masks.newBitboard();
+		for (int i = 1; i < players.size(); i++) {
+			// let canMove report detectives outside of the graph
+			int location = players.get(i).location();
+			if (location >= 0 && location < occupied.capacity()) occupied.add(location);
+		}
+		for (int i = 1; i < players.size(); i++) {
+			stuck[i] = !canMove(i);
+			if (!stuck[i]) movableDetectives++;
+		}
+		mrXCaught = occupied.contains(mrX().location());
+	}
+
+	/**
+	 * Updates the tracked conditions after a player has moved, the player's
+	 * location and tickets(and any ticket given to Mr.X) must already be
+	 * updated
+	 *
+	 * @param index the index of the player that moved
+	 * @param from the location the player moved from
+	 */
+	void moved(int index, int from) {
+		// any move changes either Mr.X's tickets, his location or the
+		// detectives around him
+		mrXStuckKnown = false;
+		int to = players.get(index).location();
+		if (index == 0) {
+			mrXCaught = occupied.contains(to);
+			return;
+		}
+		occupied.remove(from);
+		occupied.add(to);
+		if (to == mrX().location()) mrXCaught = true;
+		for (int i = 1; i < players.size(); i++) {
+			if (i != index) {
+				int location = players.get(i).location();
+				if (!masks.isAdjacent(location, from) && !masks.isAdjacent(location, to)) continue;
+			}
+			boolean nowStuck = !canMove(i);
+			if (nowStuck != stuck[i]) movableDetectives += nowStuck ? -1 : 1;
+			stuck[i] = nowStuck;
+		}
+	}
+
+	/**
+	 * @return true if any detective is at Mr.X's location
+	 */
+	boolean mrXCaught() {
+		return mrXCaught;
+	}
+
+	/**
+	 * @return true if Mr.X has no valid moves from his current location
+	 */
+	boolean mrXStuck() {
+		if (!mrXStuckKnown) {
+			mrXStuck = !canMove(0);
+			mrXStuckKnown = true;
+		}
+		return mrXStuck;
+	}
+
+	/**
+	 * @return true if none of the detectives has a valid ticket move
+	 */
+	boolean detectivesStuck() {
+		return movableDetectives == 0;
+	}
+
+	private ScotlandYardPlayer mrX() {
+		return players.get(0);
+	}
+
+	private boolean canMove(int index) {
+		ScotlandYardPlayer player = players.get(index);
+		int[] tickets = player.ticketCounts();
+		int location = player.location();
+		if (player.isMrX() && tickets[SECRET] > 0)
+			return masks.hasNeighbourOutside(location, occupied);
+		for (int transport = 0; transport < TRANSPORTS; transport++)
+			if (tickets[MoveGenerator.ticketOfTransport(transport)] > 0
+					&& masks.hasNeighbourOutside(location, transport, occupied)) return true;
+		return false;
+	}
+
+}
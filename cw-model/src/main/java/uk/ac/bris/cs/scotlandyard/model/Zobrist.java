@@ -0,0 +1,63 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+/**
+ * Random keys for Zobrist hashing of {@link SearchState}s. A state's hash is
+ * the xor of the keys of everything in it, so a move only has to xor out the
+ * keys of what it changes and xor in the new ones. Keys come from a fixed seed
+ * so hashes are the same in every run.
+ */
+final class Zobrist {
+
+	// ticket counts and rounds beyond these wrap around, which only costs a
+	// few extra collisions
+	private static final int COUNTS = 64;
+	private static final int ROUNDS = 64;
+	private static final int LOCATIONS = PackedMove.MAX_DESTINATION + 1;
+	private static final int COLOURS = Colour.values().length;
+	private static final int TICKETS = Ticket.values().length;
+
+	private static final long[] LOCATION = new long[COLOURS * LOCATIONS];
+	private static final long[] TICKET = new long[COLOURS * TICKETS * COUNTS];
+	private static final long[] ROUND = new long[ROUNDS];
+	private static final long[] PLAYER = new long[COLOURS];
+	private static final long[] LAST_LOCATION = new long[LOCATIONS];
+
+	static {
+		long seed = 0x5C07_1A4D_9A4E_0001L;
+		for (long[] keys : new long[][]{LOCATION, TICKET, ROUND, PLAYER, LAST_LOCATION})
+			for (int i = 0; i < keys.length; i++) keys[i] = mix(seed = next(seed));
+	}
+
+	private Zobrist() {}
+
+	static long location(int colour, int location) {
+		return LOCATION[colour * LOCATIONS + location];
+	}
+
+	static long tickets(int colour, int ticket, int count) {
+		return TICKET[(colour * TICKETS + ticket) * COUNTS + (count & COUNTS - 1)];
+	}
+
+	static long round(int round) {
+		return ROUND[round & ROUNDS - 1];
+	}
+
+	static long player(int colour) {
+		return PLAYER[colour];
+	}
+
+	static long lastLocation(int location) {
+		return LAST_LOCATION[location];
+	}
+
+	private static long next(long seed) {
+		return seed + 0x9E3779B97F4A7C15L;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,203 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.journal.GameJournal;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGameFactory;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Plays a single headless game between two factories, safe to use from many
+ * threads at once as every game gets its own model and players
+ */
+final class GameRunner {
+
+	/**
+	 * {@link ScotlandYardModel} with {@link ScotlandYardModel.Validation#CHECK}
+	 */
+	static final ScotlandYardGameFactory CHECKED_MODEL = (rounds, graph, mrX, first, rest) ->
+			new ScotlandYardModel(ScotlandYardModel.Validation.CHECK, rounds, graph, mrX, first,
+					rest);
+
+	private final ScotlandYardGameFactory model;
+	private final Graph<Integer, Transport> graph;
+	private final List<Boolean> rounds;
+	private final int detectiveCount;
+	private final long moveTimeoutMillis;
+	private final HeadlessResources resources;
+
+	GameRunner(ScotlandYardGameFactory model, Graph<Integer, Transport> graph,
+			List<Boolean> rounds, int detectiveCount, long moveTimeoutMillis) {
+		this.model = requireNonNull(model);
+		this.graph = requireNonNull(graph);
+		this.rounds = requireNonNull(rounds);
+		this.detectiveCount = detectiveCount;
+		this.moveTimeoutMillis = moveTimeoutMillis;
+		this.resources = new HeadlessResources(graph, Duration.ofMillis(moveTimeoutMillis));
+	}
+
+	/**
+	 * Plays a game to the end without recording it
+	 *
+	 * @see #play(PlayerFactory, PlayerFactory, long, GameJournal)
+	 */
+	Outcome play(PlayerFactory mrXFactory, PlayerFactory detectiveFactory, long seed) {
+		return play(mrXFactory, detectiveFactory, seed, null);
+	}
+
+	/**
+	 * Plays a game to the end. The factories are set up the same way as in
+	 * the UI: spectators are created and the factories made ready before any
+	 * player is created.
+	 *
+	 * @param mrXFactory the factory of Mr X; not null
+	 * @param detectiveFactory the factory of all detectives; not null
+	 * @param seed the seed starting locations are picked with
+	 * @param journal the journal to record the game in, null if not recorded
+	 * @return the outcome; never null
+	 */
+	Outcome play(PlayerFactory mrXFactory, PlayerFactory detectiveFactory, long seed,
+			GameJournal journal) {
+		List<SynchronousPlayer> players = new ArrayList<>();
+		SynchronousPlayer mrXPlayer = new SynchronousPlayer(Colour.BLACK, moveTimeoutMillis);
+		players.add(mrXPlayer);
+		PlayerConfiguration mrXConfiguration = new PlayerConfiguration.Builder(Colour.BLACK)
+				.using(mrXPlayer)
+				.with(StandardGame.generateMrXTickets())
+				.at(StandardGame.generateMrXLocation(seed))
+				.build();
+
+		List<Integer> locations = StandardGame.generateDetectiveLocations(seed, detectiveCount);
+		Colour[] colours = Colour.values();
+		PlayerConfiguration[] detectiveConfigurations = new PlayerConfiguration[detectiveCount];
+		for (int i = 0; i < detectiveCount; i++) {
+			Colour colour = colours[i + 1];
+			SynchronousPlayer player = new SynchronousPlayer(colour, moveTimeoutMillis);
+			players.add(player);
+			detectiveConfigurations[i] = new PlayerConfiguration.Builder(colour)
+					.using(player)
+					.with(StandardGame.generateDetectiveTickets())
+					.at(locations.get(i))
+					.build();
+		}
+
+		GameJournal.Recording recording = null;
+		if (journal != null) {
+			List<PlayerConfiguration> configurations = new ArrayList<>();
+			configurations.add(mrXConfiguration);
+			configurations.addAll(Arrays.asList(detectiveConfigurations));
+			recording = journal.start(rounds, graph, configurations);
+			for (SynchronousPlayer player : players) player.recording = recording;
+		}
+
+		ScotlandYardGame game = model.createGame(rounds, graph, mrXConfiguration,
+				detectiveConfigurations[0], Arrays.copyOfRange(detectiveConfigurations, 1,
+						detectiveCount));
+		try {
+			for (PlayerFactory factory : Arrays.asList(mrXFactory, detectiveFactory)) {
+				factory.createSpectators(game).forEach(game::registerSpectator);
+				factory.ready(resources, resources);
+			}
+			for (SynchronousPlayer player : players)
+				player.bind(player.colour.isMrX() ? mrXFactory : detectiveFactory);
+			while (!game.isGameOver()) game.startRotate();
+			if (recording != null) recording.end();
+		} finally {
+			mrXFactory.finish();
+			detectiveFactory.finish();
+		}
+
+		long moves = 0;
+		for (SynchronousPlayer player : players) moves += player.moves;
+		return new Outcome(game.getWinningPlayers().contains(Colour.BLACK),
+				game.getCurrentRound(), moves);
+	}
+
+	/**
+	 * How a game ended
+	 */
+	static final class Outcome {
+
+		final boolean mrXWon;
+		final int round;
+		final long moves;
+
+		private Outcome(boolean mrXWon, int round, long moves) {
+			this.mrXWon = mrXWon;
+			this.round = round;
+			this.moves = moves;
+		}
+	}
+
+	/**
+	 * Asks a player for a move and hands the move to the game on the calling
+	 * thread, waiting if the player answers on another thread. The player is
+	 * created once its factory is ready, after the game is.
+	 */
+	private static final class SynchronousPlayer implements Player {
+
+		private final Colour colour;
+		private final long timeoutMillis;
+		private Player player;
+		private Consumer<Move> recording = move -> {};
+		private long moves;
+
+		SynchronousPlayer(Colour colour, long timeoutMillis) {
+			this.colour = colour;
+			this.timeoutMillis = timeoutMillis;
+		}
+
+		void bind(PlayerFactory factory) {
+			player = requireNonNull(factory.createPlayer(colour), colour + " player is null");
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			CompletableFuture<Move> chosen = new CompletableFuture<>();
+			player.makeMove(view, location, Collections.unmodifiableSet(moves),
+					chosen::complete);
+			Move move;
+			try {
+				move = chosen.get(timeoutMillis, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while waiting for " + colour, e);
+			} catch (ExecutionException | TimeoutException e) {
+				throw new RuntimeException(
+						colour + " did not move within " + timeoutMillis + "ms", e);
+			}
+			// checked here as an invalid move must not reach the journal, which
+			// is written before the game asks the next player from within the
+			// callback
+			if (!moves.contains(move))
+				throw new IllegalArgumentException(colour + " made an invalid move " + move);
+			this.moves++;
+			recording.accept(move);
+			callback.accept(move);
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import javafx.geometry.Point2D;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
+import uk.ac.bris.cs.scotlandyard.ai.Visualiser;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Resources for games without a UI: the graph is available but images are
+ * not, as loading them needs a running JavaFX toolkit. Doubles as a
+ * {@link Visualiser} without a surface.
+ */
+final class HeadlessResources implements ResourceProvider, Visualiser {
+
+	private final Graph<Integer, Transport> graph;
+	private final Duration moveTimeout;
+	private volatile Map<Integer, Entry<Integer, Integer>> coordinates;
+
+	HeadlessResources(Graph<Integer, Transport> graph, Duration moveTimeout) {
+		this.graph = Objects.requireNonNull(graph);
+		this.moveTimeout = Objects.requireNonNull(moveTimeout);
+	}
+
+	@Override
+	public Image getMap() {
+		throw new UnsupportedOperationException("No images in a headless game");
+	}
+
+	@Override
+	public Image getTicket(Ticket ticket) {
+		throw new UnsupportedOperationException("No images in a headless game");
+	}
+
+	@Override
+	public Graph<Integer, Transport> getGraph() {
+		return graph;
+	}
+
+	@Override
+	public Duration getMoveTimeout() {
+		return moveTimeout;
+	}
+
+	@Override
+	public Point2D coordinateAtNode(int node) {
+		Map<Integer, Entry<Integer, Integer>> positions = coordinates;
+		if (positions == null) {
+			try {
+				coordinates = positions = StandardGame.pngMapPositionEntries();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		Entry<Integer, Integer> entry = positions.get(node);
+		return entry == null ? null : new Point2D(entry.getKey(), entry.getValue());
+	}
+
+	@Override
+	public Pane surface() {
+		throw new UnsupportedOperationException("No surface in a headless game");
+	}
+
+}
@@ -0,0 +1,59 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+
+/**
+ * Creates players that pick one of their valid moves uniformly at random, a
+ * baseline to simulate AIs against
+ */
+public final class RandomPlayerFactory implements PlayerFactory {
+
+	private final Random random;
+
+	/**
+	 * Creates a factory whose players choose differently in every run
+	 */
+	public RandomPlayerFactory() {
+		this(new Random());
+	}
+
+	/**
+	 * Creates a factory whose players choose the same moves in every run for
+	 * the same games
+	 *
+	 * @param seed the seed
+	 */
+	public RandomPlayerFactory(long seed) {
+		this(new Random(seed));
+	}
+
+	private RandomPlayerFactory(Random random) {
+		this.random = random;
+	}
+
+	@Override
+	public Player createPlayer(Colour colour) {
+		return new RandomPlayer();
+	}
+
+	private class RandomPlayer implements Player {
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			Iterator<Move> iterator = moves.iterator();
+			for (int skip = random.nextInt(moves.size()); skip > 0; skip--) iterator.next();
+			callback.accept(iterator.next());
+		}
+	}
+
+}
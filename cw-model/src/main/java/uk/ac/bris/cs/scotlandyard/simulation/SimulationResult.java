@@ -0,0 +1,150 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome statistics of a batch of games played by a {@link Simulator}
+ */
+public final class SimulationResult {
+
+	private final long games;
+	private final long mrXWins;
+	private final long moves;
+	private final long[] endRounds;
+	private final long elapsedNanos;
+
+	private SimulationResult(Tally tally, long elapsedNanos) {
+		this.games = tally.games;
+		this.mrXWins = tally.mrXWins;
+		this.moves = tally.moves;
+		this.endRounds = tally.endRounds.clone();
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @return the number of games played
+	 */
+	public long games() {
+		return games;
+	}
+
+	/**
+	 * @return the number of games won by Mr X
+	 */
+	public long mrXWins() {
+		return mrXWins;
+	}
+
+	/**
+	 * @return the number of games won by the detectives
+	 */
+	public long detectiveWins() {
+		return games - mrXWins;
+	}
+
+	/**
+	 * @return the fraction of games won by Mr X, 0 if no games were played
+	 */
+	public double mrXWinRate() {
+		return games == 0 ? 0 : (double) mrXWins / games;
+	}
+
+	/**
+	 * @return the number of moves made by all players in all games, a double
+	 *         move counts as one
+	 */
+	public long moves() {
+		return moves;
+	}
+
+	/**
+	 * @param round the round
+	 * @return the number of games that ended in the given round
+	 */
+	public long gamesEndingIn(int round) {
+		return round < 0 || round >= endRounds.length ? 0 : endRounds[round];
+	}
+
+	/**
+	 * @return the mean round games ended in, 0 if no games were played
+	 */
+	public double meanRounds() {
+		long total = 0;
+		for (int round = 0; round < endRounds.length; round++) total += round * endRounds[round];
+		return games == 0 ? 0 : (double) total / games;
+	}
+
+	/**
+	 * @param unit the unit of the returned time
+	 * @return the wall clock time taken to play all games
+	 */
+	public long elapsed(TimeUnit unit) {
+		return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return the number of games played per second of wall clock time
+	 */
+	public double gamesPerSecond() {
+		return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * @return the number of moves made per second of wall clock time
+	 */
+	public double movesPerSecond() {
+		return elapsedNanos == 0 ? 0 : moves * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d games in %.3fs (%.1f games/s, %.1f moves/s)%n", games,
+				elapsedNanos / 1e9, gamesPerSecond(), movesPerSecond()));
+		sb.append(String.format("Mr X won %d (%.2f%%), detectives won %d (%.2f%%)%n", mrXWins,
+				mrXWinRate() * 100, detectiveWins(), (1 - mrXWinRate()) * 100));
+		sb.append(String.format("Mean end round %.2f%n", meanRounds()));
+		for (int round = 0; round < endRounds.length; round++) {
+			if (endRounds[round] == 0) continue;
+			sb.append(String.format("  round %2d: %d%n", round, endRounds[round]));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Statistics collected by a single thread, merged into a
+	 * {@link SimulationResult} when all games are played
+	 */
+	static final class Tally {
+
+		private long games;
+		private long mrXWins;
+		private long moves;
+		private long[] endRounds = new long[0];
+
+		void record(boolean mrXWon, int round, long moves) {
+			if (round >= endRounds.length)
+				endRounds = Arrays.copyOf(endRounds, Math.max(round + 1, endRounds.length * 2));
+			games++;
+			if (mrXWon) mrXWins++;
+			this.moves += moves;
+			endRounds[Math.max(0, round)]++;
+		}
+
+		void merge(Tally that) {
+			if (that.endRounds.length > endRounds.length)
+				endRounds = Arrays.copyOf(endRounds, that.endRounds.length);
+			for (int round = 0; round < that.endRounds.length; round++)
+				endRounds[round] += that.endRounds[round];
+			games += that.games;
+			mrXWins += that.mrXWins;
+			moves += that.moves;
+		}
+
+		SimulationResult toResult(long elapsedNanos) {
+			return new SimulationResult(this, elapsedNanos);
+		}
+	}
+
+}
@@ -0,0 +1,301 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.AI;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
+import uk.ac.bris.cs.scotlandyard.ai.Visualiser;
+import uk.ac.bris.cs.scotlandyard.journal.GameJournal;
+import uk.ac.bris.cs.scotlandyard.metrics.ModelInstrumentation;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGameFactory;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Plays complete games between two {@link PlayerFactory}s without a UI, on
+ * as many threads as requested. <br>
+ * Every game gets fresh factory instances, one for Mr X and one shared by
+ * all detectives, and goes through the same lifecycle as a game in the UI:
+ * {@link PlayerFactory#createSpectators(ScotlandYardView)},
+ * {@link PlayerFactory#ready}, {@link PlayerFactory#createPlayer(Colour)},
+ * the game itself and then {@link PlayerFactory#finish()}. Players are asked
+ * for moves on the thread playing the game, a player that answers on another
+ * thread is waited for. <br>
+ * There is no JavaFX toolkit without a UI: the {@link ResourceProvider}
+ * passed to {@code ready} has the graph, coordinates and timeout but throws
+ * {@link UnsupportedOperationException} for images, and so does the surface
+ * of the {@link Visualiser}. Factories that draw or use images have to leave
+ * them out when they are played here. <br>
+ * Starting locations of game {@code i} are picked with seed
+ * {@code seed + i}, so the same games are set up regardless of the number of
+ * threads. <br>
+ * Games can be recorded in a {@link GameJournal}, see
+ * {@link Builder#journal(Path)}.
+ */
+public final class Simulator {
+
+	private final Supplier<? extends PlayerFactory> mrX;
+	private final Supplier<? extends PlayerFactory> detectives;
+	private final GameRunner runner;
+	private final long games;
+	private final int threads;
+	private final long seed;
+	private final Path journal;
+
+	private Simulator(Builder builder) {
+		this.mrX = builder.mrX;
+		this.detectives = builder.detectives;
+		this.runner = new GameRunner(builder.model, builder.graph, builder.rounds,
+				builder.detectiveCount, builder.moveTimeoutMillis);
+		this.games = builder.games;
+		this.threads = builder.threads;
+		this.seed = builder.seed;
+		this.journal = builder.journal;
+	}
+
+	/**
+	 * Plays all games
+	 *
+	 * @return the statistics of the games; never null
+	 * @throws InterruptedException if interrupted while waiting for games
+	 * @throws RuntimeException if any game fails, e.g. when a player makes an
+	 *         invalid move or takes too long to move; the remaining games are
+	 *         not played
+	 * @throws UncheckedIOException if the journal cannot be written
+	 */
+	public SimulationResult run() throws InterruptedException {
+		try (GameJournal journal = this.journal == null ? null : GameJournal.open(this.journal)) {
+			return run(journal);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private SimulationResult run(GameJournal journal) throws InterruptedException {
+		AtomicLong next = new AtomicLong();
+		ExecutorService service = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		try {
+			List<Future<SimulationResult.Tally>> workers = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				workers.add(service.submit(() -> {
+					SimulationResult.Tally tally = new SimulationResult.Tally();
+					long game;
+					while ((game = next.getAndIncrement()) < games) {
+						try {
+							GameRunner.Outcome outcome = runner.play(
+									requireNonNull(mrX.get()), requireNonNull(detectives.get()),
+									seed + game, journal);
+							tally.record(outcome.mrXWon, outcome.round, outcome.moves);
+						} catch (RuntimeException | Error e) {
+							// stops the other workers too
+							next.set(games);
+							throw new RuntimeException("Game " + game + " failed", e);
+						}
+					}
+					return tally;
+				}));
+			}
+			SimulationResult.Tally total = new SimulationResult.Tally();
+			for (Future<SimulationResult.Tally> worker : workers) {
+				try {
+					total.merge(worker.get());
+				} catch (ExecutionException e) {
+					throw (RuntimeException) e.getCause();
+				}
+			}
+			return total.toResult(System.nanoTime() - start);
+		} finally {
+			service.shutdownNow();
+		}
+	}
+
+	/**
+	 * A builder for {@link Simulator}
+	 */
+	public static class Builder {
+
+		private final Supplier<? extends PlayerFactory> mrX;
+		private final Supplier<? extends PlayerFactory> detectives;
+		private ScotlandYardGameFactory model = GameRunner.CHECKED_MODEL;
+		private Graph<Integer, Transport> graph;
+		private List<Boolean> rounds = StandardGame.ROUNDS;
+		private long games = 1000;
+		private int threads = Runtime.getRuntime().availableProcessors();
+		private int detectiveCount = 5;
+		private long seed;
+		private long moveTimeoutMillis = TimeUnit.MINUTES.toMillis(1);
+		private Path journal;
+
+		/**
+		 * Creates a builder for games between the given factories
+		 *
+		 * @param mrX creates the factory of Mr X for each game; not null
+		 * @param detectives creates the factory shared by all detectives of a
+		 *        game; not null
+		 */
+		public Builder(Supplier<? extends PlayerFactory> mrX,
+				Supplier<? extends PlayerFactory> detectives) {
+			this.mrX = requireNonNull(mrX);
+			this.detectives = requireNonNull(detectives);
+		}
+
+		/**
+		 * @param model the model games are played on, defaults to
+		 *        {@link ScotlandYardModel} with
+		 *        {@link ScotlandYardModel.Validation#CHECK}
+		 * @return this builder
+		 */
+		public Builder model(ScotlandYardGameFactory model) {
+			this.model = requireNonNull(model);
+			return this;
+		}
+
+		/**
+		 * @param graph the map, defaults to {@link StandardGame#standardGraph()}
+		 * @return this builder
+		 */
+		public Builder graph(Graph<Integer, Transport> graph) {
+			this.graph = requireNonNull(graph);
+			return this;
+		}
+
+		/**
+		 * @param rounds the reveal rounds, defaults to
+		 *        {@link StandardGame#ROUNDS}
+		 * @return this builder
+		 */
+		public Builder rounds(List<Boolean> rounds) {
+			this.rounds = requireNonNull(rounds);
+			return this;
+		}
+
+		/**
+		 * @param games the number of games to play, defaults to 1000
+		 * @return this builder
+		 */
+		public Builder games(long games) {
+			if (games < 0) throw new IllegalArgumentException("games < 0");
+			this.games = games;
+			return this;
+		}
+
+		/**
+		 * @param threads the number of games played at once, defaults to the
+		 *        number of processors
+		 * @return this builder
+		 */
+		public Builder threads(int threads) {
+			if (threads < 1) throw new IllegalArgumentException("threads < 1");
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * @param detectives the number of detectives in a game, defaults to 5
+		 * @return this builder
+		 */
+		public Builder detectives(int detectives) {
+			if (detectives < 1 || detectives > Colour.values().length - 1)
+				throw new IllegalArgumentException("Detectives must be within [1, "
+						+ (Colour.values().length - 1) + "]");
+			this.detectiveCount = detectives;
+			return this;
+		}
+
+		/**
+		 * @param seed the seed starting locations are picked with, defaults to
+		 *        0
+		 * @return this builder
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * @param timeout how long a player may take to move, defaults to a
+		 *        minute
+		 * @param unit the unit of the timeout
+		 * @return this builder
+		 */
+		public Builder moveTimeout(long timeout, TimeUnit unit) {
+			if (timeout < 1) throw new IllegalArgumentException("timeout < 1");
+			this.moveTimeoutMillis = unit.toMillis(timeout);
+			return this;
+		}
+
+		/**
+		 * @param directory the directory of a {@link GameJournal} to record
+		 *        every game in, not recorded by default
+		 * @return this builder
+		 */
+		public Builder journal(Path directory) {
+			this.journal = requireNonNull(directory);
+			return this;
+		}
+
+		/**
+		 * @return a new simulator; never null
+		 * @throws IOException if the standard graph is needed and cannot be
+		 *         read
+		 */
+		public Simulator build() throws IOException {
+			if (graph == null) graph = StandardGame.standardGraph();
+			return new Simulator(this);
+		}
+	}
+
+	/**
+	 * Plays games from the command line and prints the statistics <br>
+	 * Usage: {@code Simulator <games> [mrX] [detectives] [threads]} where
+	 * {@code mrX} and {@code detectives} are names of
+	 * {@link uk.ac.bris.cs.scotlandyard.ai.ManagedAI}s, or {@code random}
+	 * for {@link RandomPlayerFactory}, the default. The games are
+	 * instrumented with {@link ModelInstrumentation#platform()}.
+	 *
+	 * @param args the arguments
+	 * @throws Exception if the games cannot be played
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1 || args.length > 4) {
+			System.err.println("Usage: Simulator <games> [mrX] [detectives] [threads]");
+			System.exit(1);
+		}
+		List<AI> ais = args.length > 1 ? AI.loadAll() : Collections.emptyList();
+		Builder builder = new Builder(
+				factory(ais, args.length > 1 ? args[1] : "random"),
+				factory(ais, args.length > 2 ? args[2] : "random"))
+				.model(ModelInstrumentation.platform().instrument(GameRunner.CHECKED_MODEL))
+				.games(Long.parseLong(args[0]));
+		if (args.length > 3) builder.threads(Integer.parseInt(args[3]));
+		System.out.print(builder.build().run());
+	}
+
+	private static Supplier<PlayerFactory> factory(List<AI> ais, String name) {
+		if (name.equalsIgnoreCase("random")) return RandomPlayerFactory::new;
+		for (AI ai : ais)
+			if (ai.getName().equals(name)) return ai::instantiate;
+		throw new IllegalArgumentException("No AI named " + name + ", found " + ais);
+	}
+
+}
@@ -0,0 +1,244 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.ac.bris.cs.scotlandyard.ai.AI;
+import uk.ac.bris.cs.scotlandyard.ai.ManagedAI;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+
+/**
+ * A headless round-robin between AIs: every AI plays Mr X against every AI
+ * as the detectives, itself included. <br>
+ * All pairings play the same start positions, game {@code i} of a pairing
+ * being set up with seed {@code seed + i}. Games are spread over a
+ * {@link ForkJoinPool}; every game gets its own model and factory instances
+ * so workers share nothing but the immutable graph, and outcomes are added to
+ * {@link LongAdder}s per pairing instead of taking locks. Factories go
+ * through the same lifecycle, without images, as in a {@link Simulator}.
+ */
+public final class Tournament {
+
+	// games a task plays before splitting further, a game takes long enough
+	// that stealing single games is cheap
+	private static final int THRESHOLD = 2;
+
+	private final List<AI> ais;
+	private final GameRunner runner;
+	private final int gamesPerPairing;
+	private final int parallelism;
+	private final long seed;
+
+	private Tournament(Builder builder) throws IOException {
+		this.ais = builder.ais;
+		this.runner = new GameRunner(GameRunner.CHECKED_MODEL, StandardGame.standardGraph(),
+				StandardGame.ROUNDS, builder.detectiveCount, builder.moveTimeoutMillis);
+		this.gamesPerPairing = builder.gamesPerPairing;
+		this.parallelism = builder.parallelism;
+		this.seed = builder.seed;
+	}
+
+	/**
+	 * Plays all pairings
+	 *
+	 * @return the win rates; never null
+	 * @throws RuntimeException if any game fails, e.g. when a player makes an
+	 *         invalid move or takes too long to move
+	 */
+	public TournamentResult run() {
+		int pairings = ais.size() * ais.size();
+		LongAdder[] games = new LongAdder[pairings];
+		LongAdder[] mrXWins = new LongAdder[pairings];
+		for (int i = 0; i < pairings; i++) {
+			games[i] = new LongAdder();
+			mrXWins[i] = new LongAdder();
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		long start = System.nanoTime();
+		try {
+			pool.invoke(new Games(0, (long) pairings * gamesPerPairing, games, mrXWins));
+		} finally {
+			pool.shutdownNow();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		List<String> names = new ArrayList<>();
+		for (AI ai : ais) names.add(ai.getName());
+		long[] played = new long[pairings];
+		long[] won = new long[pairings];
+		for (int i = 0; i < pairings; i++) {
+			played[i] = games[i].sum();
+			won[i] = mrXWins[i].sum();
+		}
+		return new TournamentResult(names, played, won, elapsed);
+	}
+
+	/**
+	 * Plays the games with indices in [from, to), index {@code i} being game
+	 * {@code i % gamesPerPairing} of pairing {@code i / gamesPerPairing}
+	 */
+	private final class Games extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long from;
+		private final long to;
+		private final LongAdder[] games;
+		private final LongAdder[] mrXWins;
+
+		Games(long from, long to, LongAdder[] games, LongAdder[] mrXWins) {
+			this.from = from;
+			this.to = to;
+			this.games = games;
+			this.mrXWins = mrXWins;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				for (long index = from; index < to; index++) play(index);
+				return;
+			}
+			long middle = (from + to) >>> 1;
+			invokeAll(new Games(from, middle, games, mrXWins),
+					new Games(middle, to, games, mrXWins));
+		}
+
+		private void play(long index) {
+			int pairing = (int) (index / gamesPerPairing);
+			int game = (int) (index % gamesPerPairing);
+			AI mrX = ais.get(pairing / ais.size());
+			AI detectives = ais.get(pairing % ais.size());
+			GameRunner.Outcome outcome;
+			try {
+				outcome = runner.play(mrX.instantiate(), detectives.instantiate(),
+						seed + game);
+			} catch (RuntimeException | Error e) {
+				throw new RuntimeException("Game " + game + " of " + mrX.getName() + " as Mr X vs "
+						+ detectives.getName() + " as detectives failed", e);
+			}
+			games[pairing].increment();
+			if (outcome.mrXWon) mrXWins[pairing].increment();
+		}
+	}
+
+	/**
+	 * A builder for {@link Tournament}
+	 */
+	public static class Builder {
+
+		private final List<AI> ais;
+		private int gamesPerPairing = 100;
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+		private int detectiveCount = 5;
+		private long seed;
+		private long moveTimeoutMillis = TimeUnit.MINUTES.toMillis(1);
+
+		/**
+		 * Creates a builder for a tournament between the given AIs
+		 *
+		 * @param ais the AIs, e.g. from {@link AI#loadAll()}; not null or
+		 *        empty
+		 */
+		public Builder(List<AI> ais) {
+			if (requireNonNull(ais).isEmpty()) throw new IllegalArgumentException("No AIs");
+			this.ais = new ArrayList<>(ais);
+		}
+
+		/**
+		 * @param games the number of games of each pairing, defaults to 100
+		 * @return this builder
+		 */
+		public Builder gamesPerPairing(int games) {
+			if (games < 1) throw new IllegalArgumentException("games < 1");
+			this.gamesPerPairing = games;
+			return this;
+		}
+
+		/**
+		 * @param parallelism the number of games played at once, defaults to
+		 *        the number of processors
+		 * @return this builder
+		 */
+		public Builder parallelism(int parallelism) {
+			if (parallelism < 1) throw new IllegalArgumentException("parallelism < 1");
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		/**
+		 * @param detectives the number of detectives in a game, defaults to 5
+		 * @return this builder
+		 */
+		public Builder detectives(int detectives) {
+			if (detectives < 1 || detectives > Colour.values().length - 1)
+				throw new IllegalArgumentException("Detectives must be within [1, "
+						+ (Colour.values().length - 1) + "]");
+			this.detectiveCount = detectives;
+			return this;
+		}
+
+		/**
+		 * @param seed the seed start positions are picked with, defaults to 0
+		 * @return this builder
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * @param timeout how long a player may take to move, defaults to a
+		 *        minute
+		 * @param unit the unit of the timeout
+		 * @return this builder
+		 */
+		public Builder moveTimeout(long timeout, TimeUnit unit) {
+			if (timeout < 1) throw new IllegalArgumentException("timeout < 1");
+			this.moveTimeoutMillis = unit.toMillis(timeout);
+			return this;
+		}
+
+		/**
+		 * @return a new tournament; never null
+		 * @throws IOException if the standard graph cannot be read
+		 */
+		public Tournament build() throws IOException {
+			return new Tournament(this);
+		}
+	}
+
+	/**
+	 * Runs a tournament between all {@link ManagedAI}s on the classpath and
+	 * prints the win rates <br>
+	 * Usage: {@code Tournament [gamesPerPairing] [parallelism]}
+	 *
+	 * @param args the arguments
+	 * @throws Exception if the tournament cannot be run
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length > 2) {
+			System.err.println("Usage: Tournament [gamesPerPairing] [parallelism]");
+			System.exit(1);
+		}
+		List<AI> ais = AI.loadAll();
+		if (ais.isEmpty()) {
+			System.err.println("No AIs annotated with @" + ManagedAI.class.getSimpleName()
+					+ " found");
+			System.exit(1);
+		}
+		Builder builder = new Builder(ais);
+		if (args.length > 0) builder.gamesPerPairing(Integer.parseInt(args[0]));
+		if (args.length > 1) builder.parallelism(Integer.parseInt(args[1]));
+		System.out.print(builder.build().run());
+	}
+
+}
@@ -0,0 +1,173 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Win rates of a {@link Tournament}, per pairing of a Mr X AI against a
+ * detective AI and per AI over all of its pairings
+ */
+public final class TournamentResult {
+
+	private final List<String> names;
+	private final long[] games;
+	private final long[] mrXWins;
+	private final long elapsedNanos;
+
+	TournamentResult(List<String> names, long[] games, long[] mrXWins, long elapsedNanos) {
+		this.names = Collections.unmodifiableList(names);
+		this.games = games;
+		this.mrXWins = mrXWins;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @return the names of the AIs in the tournament; never null
+	 */
+	public List<String> names() {
+		return names;
+	}
+
+	/**
+	 * @param mrX the name of the AI playing Mr X
+	 * @param detectives the name of the AI playing the detectives
+	 * @return Mr X's wins in the games between the two; never null
+	 */
+	public WinRate mrXWins(String mrX, String detectives) {
+		int cell = indexOf(mrX) * names.size() + indexOf(detectives);
+		return new WinRate(mrXWins[cell], games[cell]);
+	}
+
+	/**
+	 * @param ai the name of the AI
+	 * @return the AI's wins as Mr X against every AI; never null
+	 */
+	public WinRate asMrX(String ai) {
+		int row = indexOf(ai) * names.size();
+		long wins = 0, played = 0;
+		for (int i = row; i < row + names.size(); i++) {
+			wins += mrXWins[i];
+			played += games[i];
+		}
+		return new WinRate(wins, played);
+	}
+
+	/**
+	 * @param ai the name of the AI
+	 * @return the AI's wins as the detectives against every AI; never null
+	 */
+	public WinRate asDetectives(String ai) {
+		int column = indexOf(ai);
+		long wins = 0, played = 0;
+		for (int i = column; i < games.length; i += names.size()) {
+			wins += games[i] - mrXWins[i];
+			played += games[i];
+		}
+		return new WinRate(wins, played);
+	}
+
+	/**
+	 * @param unit the unit of the returned time
+	 * @return the wall clock time taken to play all games
+	 */
+	public long elapsed(TimeUnit unit) {
+		return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private int indexOf(String name) {
+		int index = names.indexOf(requireNonNull(name));
+		if (index < 0) throw new IllegalArgumentException("No AI named " + name);
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		long total = 0;
+		for (long played : games) total += played;
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d games in %.3fs (%.1f games/s)%n", total,
+				elapsedNanos / 1e9, elapsedNanos == 0 ? 0 : total * 1e9 / elapsedNanos));
+		sb.append("Mr X win rate, rows are Mr X and columns are detectives:\n");
+		for (String detectives : names) sb.append('\t').append(detectives);
+		sb.append('\n');
+		for (String mrX : names) {
+			sb.append(mrX);
+			for (String detectives : names) sb.append('\t').append(mrXWins(mrX, detectives));
+			sb.append('\n');
+		}
+		for (String ai : names)
+			sb.append(String.format("%s: as Mr X %s, as detectives %s%n", ai, asMrX(ai),
+					asDetectives(ai)));
+		return sb.toString();
+	}
+
+	/**
+	 * A win rate with its 95% Wilson score interval
+	 */
+	public static final class WinRate {
+
+		private static final double Z = 1.959964;
+
+		private final long wins;
+		private final long games;
+
+		WinRate(long wins, long games) {
+			this.wins = wins;
+			this.games = games;
+		}
+
+		/**
+		 * @return the number of games won
+		 */
+		public long wins() {
+			return wins;
+		}
+
+		/**
+		 * @return the number of games played
+		 */
+		public long games() {
+			return games;
+		}
+
+		/**
+		 * @return the fraction of games won, 0 if no games were played
+		 */
+		public double rate() {
+			return games == 0 ? 0 : (double) wins / games;
+		}
+
+		/**
+		 * @return the lower bound of the interval, 0 if no games were played
+		 */
+		public double lower() {
+			return games == 0 ? 0 : Math.max(0, centre() - halfWidth());
+		}
+
+		/**
+		 * @return the upper bound of the interval, 1 if no games were played
+		 */
+		public double upper() {
+			return games == 0 ? 1 : Math.min(1, centre() + halfWidth());
+		}
+
+		private double centre() {
+			return (rate() + Z * Z / (2 * games)) / (1 + Z * Z / games);
+		}
+
+		private double halfWidth() {
+			double p = rate();
+			return Z * Math.sqrt(p * (1 - p) / games + Z * Z / (4.0 * games * games))
+					/ (1 + Z * Z / games);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%.3f [%.3f, %.3f]", rate(), lower(), upper());
+		}
+	}
+
+}
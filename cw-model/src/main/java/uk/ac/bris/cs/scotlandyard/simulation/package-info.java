@@ -0,0 +1,5 @@
+/**
+ * Headless runners that play many games between {@link uk.ac.bris.cs.scotlandyard.ai.PlayerFactory}
+ * implementations without a UI
+ */
+package uk.ac.bris.cs.scotlandyard.simulation;
@@ -5,10 +5,10 @@ import java.util.EnumMap;
 import java.util.Map;
 
 import javafx.animation.TranslateTransition;
+import javafx.application.Platform;
 import javafx.geometry.Point2D;
 import javafx.scene.Node;
 import javafx.scene.effect.BlendMode;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
@@ -33,13 +33,18 @@ public class MapPreviewPane extends Pane {
 		ImageView mapView = new ImageView();
 		Pane shadow = new Pane();
 		getChildren().addAll(mapView, shadow, annotations);
-		Image image = manager.getImage(ImageResource.MAP);
-		mapView.setImage(image);
 		shadow.setStyle("-fx-background-color: rgba(0,0, 0, 0.5)");
-		setMinSize(image.getWidth(), image.getHeight());
-//		resize(image.getWidth(), image.getHeight());
-		shadow.setPrefSize(image.getWidth(), image.getHeight());
-		annotations.setPrefSize(image.getWidth(), image.getHeight());
+		manager.image(ImageResource.MAP).whenCompleteAsync((image, failure) -> {
+			if (failure != null) {
+				Utils.handleFatalException(failure);
+				return;
+			}
+			mapView.setImage(image);
+			setMinSize(image.getWidth(), image.getHeight());
+//			resize(image.getWidth(), image.getHeight());
+			shadow.setPrefSize(image.getWidth(), image.getHeight());
+			annotations.setPrefSize(image.getWidth(), image.getHeight());
+		}, Platform::runLater);
 		mask.setBlendMode(BlendMode.OVERLAY);
 		shadow.getChildren().add(mask);
 	}
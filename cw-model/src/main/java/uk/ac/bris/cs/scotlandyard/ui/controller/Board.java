@@ -17,7 +17,6 @@ import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.geometry.Point2D;
 import javafx.scene.Parent;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Region;
@@ -42,6 +41,7 @@ import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
 import uk.ac.bris.cs.scotlandyard.model.TicketMove;
 import uk.ac.bris.cs.scotlandyard.ui.GameControl;
 import uk.ac.bris.cs.scotlandyard.ui.ModelConfiguration;
+import uk.ac.bris.cs.scotlandyard.ui.Utils;
 import uk.ac.bris.cs.scotlandyard.ui.model.BoardProperty;
 import uk.ac.bris.cs.scotlandyard.ui.model.PlayerProperty;
 
@@ -87,10 +87,18 @@ public final class Board implements Controller, GameControl, Player {
 		gesturePane.setMinScale(Double.NEGATIVE_INFINITY);
 		gesturePane.scrollModeProperty().bind(property.scrollModeProperty());
 		historyPane.visibleProperty().bind(property.historyProperty());
-		Image image = manager.getImage(ImageResource.MAP);
-		mapView.setImage(image);
-		lockSize(image.getWidth(), image.getHeight(), root, visualiserPane, historyPane);
-		Platform.runLater(() -> gesturePane.zoomTo(0, Point2D.ZERO));
+		// the map image may still be decoding, the board sizes itself to it
+		// once it is ready
+		manager.image(ImageResource.MAP).whenCompleteAsync((image, failure) -> {
+			if (failure != null) {
+				Utils.handleFatalException(failure);
+				return;
+			}
+			mapView.setImage(image);
+			lockSize(image.getWidth(), image.getHeight(), root, visualiserPane, historyPane);
+			gesturePane.zoomTo(0, Point2D.ZERO);
+			manager.timer().mark("board ready");
+		}, Platform::runLater);
 	}
 
 	private static void lockSize(double width, double height, Region... regions) {
@@ -29,6 +29,8 @@ import uk.ac.bris.cs.scotlandyard.harness.CodeGenRecorder;
 import uk.ac.bris.cs.scotlandyard.harness.CodeGenRecorder.CodeGen;
 import uk.ac.bris.cs.scotlandyard.harness.GameModelSequencePUMLCodeGen;
 import uk.ac.bris.cs.scotlandyard.harness.TestHarnessPlayOutTestCodeGen;
+import uk.ac.bris.cs.scotlandyard.metrics.GameMetrics;
+import uk.ac.bris.cs.scotlandyard.metrics.ModelInstrumentation;
 import uk.ac.bris.cs.scotlandyard.model.Colour;
 import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
@@ -58,7 +60,9 @@ public final class LocalGame extends BaseGame implements Spectator {
 		BaseGame controller = new LocalGame(manager, stage, captureTest);
 		stage.setTitle("ScotlandYard" + (captureTest ? "(test capture mode)" : ""));
 		stage.setScene(new Scene(controller.root()));
-		stage.getIcons().add(manager.getImage(ImageResource.ICON));
+		manager.image(ImageResource.ICON).thenAcceptAsync(stage.getIcons()::add,
+				Platform::runLater);
+		stage.setOnShown(e -> manager.timer().mark("first frame"));
 		stage.show();
 	}
 
@@ -102,6 +106,7 @@ public final class LocalGame extends BaseGame implements Spectator {
 		private static final String NOTIFY_GAMEOVER = "notify_gameover";
 		private final ModelProperty setup;
 		private final ScotlandYardGame model;
+		private final GameMetrics metrics;
 		private final List<GameControl> controls;
 		private final AIPool<Side> pool = new AIPool<>(
 				createVisualiserSurface(),
@@ -141,12 +146,14 @@ public final class LocalGame extends BaseGame implements Spectator {
 					.filter(p -> p.colour.isDetective())
 					.collect(toList());
 
-			model = new ScotlandYardModel(
+			ScotlandYardModel game = new ScotlandYardModel(
 					setup.revealRounds(),
 					setup.graphProperty().get(),
 					mrX,
 					detectives.get(0),
 					detectives.stream().skip(1).toArray(PlayerConfiguration[]::new));
+			metrics = ModelInstrumentation.platform().instrument(game);
+			model = game;
 
 
 			recorder.snap(model);
@@ -158,7 +165,7 @@ public final class LocalGame extends BaseGame implements Spectator {
 					status,
 					this);
 
-			pool.initialise(resourceManager, model);
+			pool.initialise(resourceManager, model, setup.timeoutProperty().get());
 			// Add all players to board
 			for (PlayerProperty property : joining) {
 				board.setBoardPlayer(property.colour(),
@@ -182,6 +189,7 @@ public final class LocalGame extends BaseGame implements Spectator {
 			controls.forEach(model::unregisterSpectator);
 			controls.forEach(GameControl::onGameDetached);
 			pool.terminate();
+			metrics.close();
 		}
 
 		@Override
@@ -0,0 +1,60 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import uk.ac.bris.cs.scotlandyard.ai.alphabeta.AlphaBetaPlayerFactory;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.simulation.RandomPlayerFactory;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationResult;
+import uk.ac.bris.cs.scotlandyard.simulation.Simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AlphaBetaPlayerFactory}
+ */
+public class AlphaBetaPlayerFactoryTest {
+
+	private Set<Move> offered;
+
+	@Test
+	public void testChoosesAValidMoveWithinBudgetAndLogsIt() throws Exception {
+		List<String> log = new ArrayList<>();
+		AlphaBetaPlayerFactory factory = new AlphaBetaPlayerFactory(Duration.ofMillis(200),
+				log::add);
+		ScotlandYardModel model = TestGames.mrXToMove(moves -> offered = moves);
+		AtomicReference<Move> chosen = new AtomicReference<>();
+		long start = System.nanoTime();
+		factory.createPlayer(Colour.BLACK).makeMove(model, 35, offered, chosen::set);
+		assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(2));
+		assertThat(offered).contains(chosen.get());
+		assertThat(log).hasSize(1);
+		assertThat(log.get(0)).contains("depth").contains("nodes/s");
+	}
+
+	@Test
+	public void testPlaysDetectives() throws Exception {
+		SimulationResult result = new Simulator.Builder(RandomPlayerFactory::new,
+				() -> new AlphaBetaPlayerFactory(Duration.ofMillis(5), line -> {}))
+				.games(2).threads(1).build().run();
+		assertThat(result.games()).isEqualTo(2);
+	}
+
+	@Test
+	public void testPlaysCompleteGames() throws Exception {
+		SimulationResult result = new Simulator.Builder(
+				() -> new AlphaBetaPlayerFactory(Duration.ofMillis(5), line -> {}),
+				RandomPlayerFactory::new).games(2).threads(1).build().run();
+		assertThat(result.games()).isEqualTo(2);
+	}
+
+}
@@ -0,0 +1,164 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link CompactGraph}
+ */
+public class CompactGraphTest {
+
+	private static UndirectedGraph<Integer, Transport> expected;
+	private static ImmutableGraph<Integer, Transport> actual;
+
+	@BeforeClass
+	public static void setUp() throws IOException, URISyntaxException {
+		List<String> lines = Files.readAllLines(Paths.get(
+				CompactGraphTest.class.getResource("/game_graph.txt").toURI()));
+		actual = ScotlandYardGraphReader.fromLines(lines);
+		// the reference graph, read the same way the reader used to
+		expected = new UndirectedGraph<>();
+		String[] top = lines.get(0).split(" ");
+		int nodes = Integer.parseInt(top[0]);
+		int edges = Integer.parseInt(top[1]);
+		for (int i = 1; i <= nodes; i++)
+			expected.addNode(new Node<>(Integer.parseInt(lines.get(i))));
+		for (int i = nodes + 1; i <= nodes + edges; i++) {
+			String[] segments = lines.get(i).split(" ");
+			expected.addEdge(new Edge<>(
+					expected.getNode(Integer.parseInt(segments[0])),
+					expected.getNode(Integer.parseInt(segments[1])),
+					Transport.valueOf(segments[2].toUpperCase(Locale.ENGLISH))));
+		}
+	}
+
+	@Test
+	public void testReaderProducesCompactGraph() {
+		assertThat(CompactGraph.copyOf(actual, Transport.class))
+				.isSameAs(CompactGraph.copyOf(new ImmutableGraph<>(actual), Transport.class));
+	}
+
+	@Test
+	public void testSameNodesAndEdgesAsUndirectedGraph() {
+		assertThat(actual.getNodes()).containsExactlyElementsOf(expected.getNodes());
+		assertThat(actual.getEdges()).containsExactlyElementsOf(expected.getEdges());
+		assertThat(actual).isEqualTo(expected);
+		assertThat(expected).isEqualTo(actual);
+		assertThat(actual.hashCode()).isEqualTo(expected.hashCode());
+	}
+
+	@Test
+	public void testSameEdgesFromEachNode() {
+		for (Node<Integer> node : expected.getNodes()) {
+			assertThat(actual.getEdgesFrom(node))
+					.containsExactlyElementsOf(expected.getEdgesFrom(node));
+		}
+	}
+
+	@Test
+	public void testIntKeyedNeighboursMatchEdges() {
+		CompactGraph<Transport> graph = CompactGraph.copyOf(actual, Transport.class);
+		for (Node<Integer> node : expected.getNodes()) {
+			List<Edge<Integer, Transport>> walked = new ArrayList<>();
+			for (int slot = graph.edgesBegin(node.value());
+			     slot < graph.edgesEnd(node.value()); slot++) {
+				walked.add(new Edge<>(node, new Node<>(graph.target(slot)), graph.data(slot)));
+			}
+			assertThat(walked).containsExactlyElementsOf(expected.getEdgesFrom(node));
+			assertThat(graph.degree(node.value())).isEqualTo(walked.size());
+		}
+	}
+
+	@Test
+	public void testCopyOfUndirectedGraphIsEqual() {
+		CompactGraph<Transport> copy = CompactGraph.copyOf(expected, Transport.class);
+		assertThat(copy).isEqualTo(expected);
+		assertThat(copy.edgeCount()).isEqualTo(expected.getEdges().size());
+		assertThat(copy.maxValue()).isEqualTo(199);
+	}
+
+	@Test
+	public void testSparseNodeValues() {
+		CompactGraph<Transport> graph = new CompactGraph.Builder<>(Transport.class)
+				.addNode(-1).addNode(100_000).addNode(Integer.MAX_VALUE)
+				.addEdge(-1, Integer.MAX_VALUE, Transport.BUS)
+				.build();
+		assertThat(graph.containsNode(-1)).isTrue();
+		assertThat(graph.containsNode(0)).isFalse();
+		assertThat(graph.degree(100_000)).isZero();
+		assertThat(graph.target(graph.edgesBegin(Integer.MAX_VALUE))).isEqualTo(-1);
+	}
+
+	@Test
+	public void testMutationShouldThrow() {
+		assertThatThrownBy(() -> actual.addNode(new Node<>(1000)))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> CompactGraph.copyOf(actual, Transport.class)
+				.addNode(new Node<>(1000)))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testDuplicateNodeShouldThrow() {
+		assertThatThrownBy(() -> new CompactGraph.Builder<>(Transport.class)
+				.addNode(1).addNode(1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testEdgeToMissingNodeShouldThrow() {
+		assertThatThrownBy(() -> new CompactGraph.Builder<>(Transport.class)
+				.addNode(1).addEdge(1, 2, Transport.TAXI))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testWriteToReadFromRoundTrip() {
+		CompactGraph<Transport> graph = CompactGraph.copyOf(actual, Transport.class);
+		ByteBuffer buffer = ByteBuffer.allocate(graph.byteSize() + 1);
+		graph.writeTo(buffer);
+		assertThat(buffer.position()).isEqualTo(graph.byteSize());
+		buffer.flip();
+		CompactGraph<Transport> read = CompactGraph.readFrom(buffer, Transport.class);
+		assertThat(buffer.hasRemaining()).isFalse();
+		assertThat(read).isEqualTo(expected);
+		assertThat(read.fingerprint()).isEqualTo(graph.fingerprint());
+	}
+
+	@Test
+	public void testReadFromInvalidBytesShouldThrow() {
+		CompactGraph<Transport> graph = CompactGraph.copyOf(actual, Transport.class);
+		ByteBuffer buffer = ByteBuffer.allocate(graph.byteSize());
+		graph.writeTo(buffer);
+		buffer.flip().limit(buffer.limit() - 1);
+		assertThatThrownBy(() -> CompactGraph.readFrom(buffer, Transport.class))
+				.isInstanceOf(BufferUnderflowException.class);
+		buffer.clear();
+		// the first edge now leads to a node that does not exist
+		buffer.putInt(Integer.BYTES * (2 + 2 * graph.size() + 1), 1000);
+		assertThatThrownBy(() -> CompactGraph.readFrom(buffer, Transport.class))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
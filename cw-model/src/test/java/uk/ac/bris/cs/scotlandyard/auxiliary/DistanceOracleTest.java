@@ -0,0 +1,126 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.ai.DistanceOracle;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link DistanceOracle}
+ */
+public class DistanceOracleTest {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Graph<Integer, Transport> graph;
+	private static DistanceOracle computed;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		graph = StandardGame.standardGraph();
+		computed = DistanceOracle.compute(graph);
+	}
+
+	@Test
+	public void testDistancesMatchBreadthFirstSearch() {
+		for (int source : new int[]{1, 46, 89, 108, 157, 199}) {
+			assertMatches(source, null);
+			for (Transport transport : Transport.values()) assertMatches(source, transport);
+		}
+	}
+
+	@Test
+	public void testGraphTooLargeForTheMatrixIsRejected() {
+		UndirectedGraph<Integer, Transport> line = new UndirectedGraph<>();
+		int nodes = 15_000;
+		for (int i = 0; i < nodes; i++) line.addNode(new Node<>(i));
+		for (int i = 1; i < nodes; i++)
+			line.addEdge(new Edge<>(line.getNode(i - 1), line.getNode(i), Transport.TAXI));
+		assertThatThrownBy(() -> DistanceOracle.compute(line))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("15000 nodes");
+	}
+
+	@Test
+	public void testCacheFileIsWrittenThenMapped() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		DistanceOracle first = DistanceOracle.load(graph, directory);
+		Path file = directory.resolve(String.format("distances-%016x.bin",
+				CompactGraph.copyOf(graph, Transport.class).fingerprint()));
+		assertThat(file).exists();
+		long modified = Files.getLastModifiedTime(file).toMillis();
+		DistanceOracle second = DistanceOracle.load(graph, directory);
+		assertThat(Files.getLastModifiedTime(file).toMillis()).isEqualTo(modified);
+		for (int i = 0; i < graph.size(); i += 7)
+			for (int j = 0; j < graph.size(); j += 5) {
+				int from = i + 1, to = j + 1;
+				assertThat(second.distance(from, to)).isEqualTo(first.distance(from, to))
+						.isEqualTo(computed.distance(from, to));
+				assertThat(second.distance(from, to, Transport.BUS))
+						.isEqualTo(computed.distance(from, to, Transport.BUS));
+			}
+	}
+
+	@Test
+	public void testCorruptCacheFileIsReplaced() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		Path file = directory.resolve(String.format("distances-%016x.bin",
+				CompactGraph.copyOf(graph, Transport.class).fingerprint()));
+		Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17,
+				18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28});
+		DistanceOracle oracle = DistanceOracle.load(graph, directory);
+		assertThat(oracle.distance(1, 199)).isEqualTo(computed.distance(1, 199));
+		assertThat(Files.size(file)).isGreaterThan(28);
+	}
+
+	@Test
+	public void testMissingNodeThrows() {
+		assertThatThrownBy(() -> computed.distance(0, 1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static void assertMatches(int source, Transport transport) {
+		Map<Integer, Integer> expected = new HashMap<>();
+		Queue<Integer> queue = new ArrayDeque<>();
+		expected.put(source, 0);
+		queue.add(source);
+		while (!queue.isEmpty()) {
+			int node = queue.remove();
+			for (Edge<Integer, Transport> edge : graph.getEdgesFrom(graph.getNode(node))) {
+				if (transport != null && edge.data() != transport) continue;
+				int next = edge.destination().value();
+				if (expected.containsKey(next)) continue;
+				expected.put(next, expected.get(node) + 1);
+				queue.add(next);
+			}
+		}
+		for (Node<Integer> node : graph.getNodes()) {
+			int target = node.value();
+			int actual = transport == null ? computed.distance(source, target)
+					: computed.distance(source, target, transport);
+			assertThat(actual).as("%d to %d by %s", source, target, transport)
+					.isEqualTo(expected.getOrDefault(target, DistanceOracle.UNREACHABLE));
+		}
+	}
+
+}
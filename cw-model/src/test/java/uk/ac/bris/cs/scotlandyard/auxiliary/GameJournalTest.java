@@ -0,0 +1,207 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.journal.GameJournal;
+import uk.ac.bris.cs.scotlandyard.journal.GameReplayer;
+import uk.ac.bris.cs.scotlandyard.journal.JournalReader;
+import uk.ac.bris.cs.scotlandyard.journal.RecordedGame;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.simulation.RandomPlayerFactory;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationResult;
+import uk.ac.bris.cs.scotlandyard.simulation.Simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link GameJournal}, {@link JournalReader} and
+ * {@link GameReplayer}
+ */
+public class GameJournalTest {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReplayRebuildsEveryState() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		List<String> states = new ArrayList<>();
+		try (GameJournal journal = GameJournal.open(directory)) {
+			List<PlayerConfiguration> configurations = new ArrayList<>();
+			Random random = new Random(42);
+			GameJournal.Recording[] recording = new GameJournal.Recording[1];
+			ScotlandYardGame[] game = new ScotlandYardGame[1];
+			Player player = (view, location, moves, callback) -> {
+				states.add(state(game[0]));
+				Move move = new ArrayList<>(moves).get(random.nextInt(moves.size()));
+				recording[0].accept(move);
+				callback.accept(move);
+			};
+			configurations.add(new PlayerConfiguration.Builder(Colour.BLACK).using(player)
+					.with(StandardGame.generateMrXTickets()).at(35).build());
+			configurations.add(new PlayerConfiguration.Builder(Colour.RED).using(player)
+					.with(StandardGame.generateDetectiveTickets()).at(26).build());
+			configurations.add(new PlayerConfiguration.Builder(Colour.BLUE).using(player)
+					.with(StandardGame.generateDetectiveTickets()).at(94).build());
+			recording[0] = journal.start(StandardGame.ROUNDS, graph, configurations);
+			game[0] = new ScotlandYardModel(StandardGame.ROUNDS, graph, configurations.get(0),
+					configurations.get(1), configurations.get(2));
+			while (!game[0].isGameOver()) game[0].startRotate();
+			states.add(state(game[0]));
+			recording[0].end();
+		}
+
+		List<RecordedGame> games = JournalReader.read(directory);
+		assertThat(games).hasSize(1);
+		RecordedGame recorded = games.get(0);
+		assertThat(recorded.isFinished()).isTrue();
+		assertThat(recorded.players()).containsExactly(Colour.BLACK, Colour.RED, Colour.BLUE);
+		assertThat(recorded.location(Colour.BLUE)).isEqualTo(94);
+		assertThat(recorded.rounds()).isEqualTo(StandardGame.ROUNDS);
+		assertThat(recorded.moveCount()).isEqualTo(states.size() - 1);
+		for (int moves = 0; moves <= recorded.moveCount(); moves++)
+			assertThat(state(GameReplayer.replay(recorded, graph, moves)))
+					.isEqualTo(states.get(moves));
+	}
+
+	@Test
+	public void testRecordsSimulatedGamesOfEverySession() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		SimulationResult first = new Simulator.Builder(RandomPlayerFactory::new,
+				RandomPlayerFactory::new).games(40).threads(4).journal(directory).build().run();
+		SimulationResult second = new Simulator.Builder(RandomPlayerFactory::new,
+				RandomPlayerFactory::new).games(10).threads(1).journal(directory).build().run();
+		assertThat(segments(directory)).hasSize(2);
+
+		List<RecordedGame> games = JournalReader.read(directory);
+		assertThat(games).hasSize(50);
+		assertThat(games.stream().map(RecordedGame::id).distinct().count()).isEqualTo(50);
+		assertThat(games.stream().mapToLong(RecordedGame::moveCount).sum())
+				.isEqualTo(first.moves() + second.moves());
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		long mrXWins = 0;
+		for (RecordedGame game : games) {
+			assertThat(game.isFinished()).isTrue();
+			ScotlandYardGame replayed = GameReplayer.replay(game, graph);
+			assertThat(replayed.isGameOver()).isTrue();
+			if (replayed.getWinningPlayers().contains(Colour.BLACK)) mrXWins++;
+		}
+		assertThat(mrXWins).isEqualTo(first.mrXWins() + second.mrXWins());
+	}
+
+	@Test
+	public void testMovesOnToNewSegmentsWhenFull() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		List<PlayerConfiguration> configurations = new ArrayList<>();
+		Player player = (view, location, moves, callback) -> {};
+		configurations.add(new PlayerConfiguration.Builder(Colour.BLACK).using(player)
+				.with(StandardGame.generateMrXTickets()).at(35).build());
+		configurations.add(new PlayerConfiguration.Builder(Colour.RED).using(player)
+				.with(StandardGame.generateDetectiveTickets()).at(26).build());
+		Move move = new TicketMove(Colour.RED, Ticket.TAXI, 199);
+		try (GameJournal journal = GameJournal.open(directory, 4096)) {
+			for (int i = 0; i < 20; i++) {
+				GameJournal.Recording recording = journal.start(StandardGame.ROUNDS, graph,
+						configurations);
+				for (int j = 0; j < 100; j++) recording.accept(move);
+				recording.end();
+			}
+		}
+		List<Path> segments = segments(directory);
+		assertThat(segments.size()).isGreaterThan(2);
+		for (Path segment : segments) assertThat(Files.size(segment)).isLessThanOrEqualTo(4096);
+		List<RecordedGame> games = JournalReader.read(directory);
+		assertThat(games).hasSize(20);
+		for (RecordedGame game : games) {
+			assertThat(game.isFinished()).isTrue();
+			assertThat(game.moves()).hasSize(100).containsOnly(move);
+		}
+	}
+
+	@Test
+	public void testReadsUpToARecordCutShort() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		new Simulator.Builder(RandomPlayerFactory::new, RandomPlayerFactory::new)
+				.games(3).threads(1).journal(directory).build().run();
+		Path segment = segments(directory).get(0);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 1);
+		}
+		List<RecordedGame> games = JournalReader.read(directory);
+		assertThat(games).hasSize(3);
+		assertThat(games.get(2).isFinished()).isFalse();
+		assertThat(games.get(0).isFinished()).isTrue();
+	}
+
+	@Test
+	public void testInvalidMoveIsNotJournaled() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		Player cheat = (view, location, moves, callback) ->
+				callback.accept(new TicketMove(Colour.BLACK, Ticket.TAXI, 1000));
+		Simulator simulator = new Simulator.Builder(() -> colour -> cheat,
+				RandomPlayerFactory::new).games(1).journal(directory).build();
+		assertThatThrownBy(simulator::run).hasStackTraceContaining("invalid move");
+		List<RecordedGame> games = JournalReader.read(directory);
+		assertThat(games).hasSize(1);
+		assertThat(games.get(0).moves()).isEmpty();
+	}
+
+	@Test
+	public void testReplayRejectsAnotherGraph() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		new Simulator.Builder(RandomPlayerFactory::new, RandomPlayerFactory::new)
+				.games(1).threads(1).journal(directory).build().run();
+		RecordedGame game = JournalReader.read(directory).get(0);
+		Graph<Integer, Transport> graph = new UndirectedGraph<>(StandardGame.standardGraph());
+		graph.addNode(new Node<>(1000));
+		assertThatThrownBy(() -> GameReplayer.replay(game, graph))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static List<Path> segments(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static String state(ScotlandYardGame game) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(game.getCurrentRound()).append(' ').append(game.getCurrentPlayer())
+				.append(' ').append(game.isGameOver());
+		for (Colour colour : game.getPlayers()) {
+			builder.append(' ').append(colour).append('@')
+					.append(game.getPlayerLocation(colour).orElse(-1));
+			for (Ticket ticket : Ticket.values())
+				builder.append(',').append(game.getPlayerTickets(colour, ticket).orElse(-1));
+		}
+		return builder.toString();
+	}
+
+}
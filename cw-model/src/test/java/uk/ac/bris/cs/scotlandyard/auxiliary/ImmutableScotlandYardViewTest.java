@@ -0,0 +1,58 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.Optional;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.harness.ImmutableScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.dummyPlayer;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.twoPlayerGame;
+
+/**
+ * Tests for {@link ImmutableScotlandYardView#snapshot}
+ */
+public class ImmutableScotlandYardViewTest {
+
+	@Test
+	public void testSnapshotsOfEqualBoardsShareTheGraph() throws Exception {
+		ImmutableScotlandYardView first = ImmutableScotlandYardView.snapshot(
+				twoPlayerGame(dummyPlayer(), dummyPlayer()));
+		ImmutableScotlandYardView second = ImmutableScotlandYardView.snapshot(
+				twoPlayerGame(dummyPlayer(), dummyPlayer()));
+		assertThat(second.getGraph()).isSameAs(first.getGraph());
+		assertThat(second).isEqualTo(first);
+	}
+
+	@Test
+	public void testSnapshotsOfAnotherBoardDoNotShareTheGraph() throws Exception {
+		Graph<Integer, Transport> other = new UndirectedGraph<>(StandardGame.standardGraph());
+		other.addNode(new Node<>(1000));
+		ImmutableScotlandYardView standard = ImmutableScotlandYardView.snapshot(
+				twoPlayerGame(dummyPlayer(), dummyPlayer()));
+		ImmutableScotlandYardView snapshot = ImmutableScotlandYardView.snapshot(
+				twoPlayerGame(other, dummyPlayer(), dummyPlayer()));
+		assertThat(snapshot.getGraph()).isNotSameAs(standard.getGraph());
+		assertThat(snapshot.getGraph().containsNode(1000)).isTrue();
+		assertThat(snapshot).isNotEqualTo(standard);
+	}
+
+	@Test
+	public void testSnapshotLooksUpPlayersByColour() throws Exception {
+		ImmutableScotlandYardView snapshot = ImmutableScotlandYardView.snapshot(
+				twoPlayerGame(dummyPlayer(), dummyPlayer()));
+		assertThat(snapshot.getPlayerLocation(Colour.RED)).contains(26);
+		assertThat(snapshot.getPlayerTickets(Colour.RED, Ticket.TAXI)).contains(11);
+		assertThat(snapshot.getPlayerLocation(Colour.WHITE)).isEqualTo(Optional.empty());
+		assertThat(snapshot.getPlayerTickets(Colour.WHITE, Ticket.BUS)).isEqualTo(Optional.empty());
+	}
+
+}
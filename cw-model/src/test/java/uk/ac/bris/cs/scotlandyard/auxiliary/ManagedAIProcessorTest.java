@@ -0,0 +1,147 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import uk.ac.bris.cs.scotlandyard.ai.AI;
+import uk.ac.bris.cs.scotlandyard.ai.ManagedAIProcessor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ManagedAIProcessor} and reading its index with
+ * {@link AI#readIndex(ClassLoader)}
+ */
+public class ManagedAIProcessorTest {
+
+	private static final String FACTORY = "package test;\n"
+			+ "import uk.ac.bris.cs.scotlandyard.ai.*;\n"
+			+ "import uk.ac.bris.cs.scotlandyard.model.*;\n"
+			+ "@ManagedAI(\"%s\")\n"
+			+ "public class %s implements PlayerFactory {\n"
+			+ "	@Override public Player createPlayer(Colour colour) { return null; }\n"
+			+ "}\n";
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testIndexIsReadBack() throws IOException {
+		Path output = folder.newFolder("classes").toPath();
+		List<Diagnostic<? extends JavaFileObject>> errors = compile(output,
+				source("First", String.format(FACTORY, "First", "First")),
+				source("Second", String.format(FACTORY, "Second", "Second")));
+		assertThat(errors).isEmpty();
+		assertThat(Files.readAllLines(output.resolve(ManagedAIProcessor.INDEX),
+				StandardCharsets.UTF_8)).containsExactly("test.First", "test.Second");
+
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()},
+				getClass().getClassLoader())) {
+			assertThat(AI.readIndex(loader)).extracting(AI::getName)
+					.contains("First", "Second");
+		}
+	}
+
+	@Test
+	public void testIncrementalCompileKeepsIndexedAIs() throws IOException {
+		Path output = folder.newFolder("classes").toPath();
+		Path first = source("First", String.format(FACTORY, "First", "First"));
+		Path second = source("Second", String.format(FACTORY, "Second", "Second"));
+		assertThat(compile(output, first, second)).isEmpty();
+		Path third = source("Third", String.format(FACTORY, "Third", "Third"));
+		assertThat(compile(output, second, third)).isEmpty();
+		assertThat(Files.readAllLines(output.resolve(ManagedAIProcessor.INDEX),
+				StandardCharsets.UTF_8)).containsExactly("test.First", "test.Second", "test.Third");
+
+		// a removed AI is dropped, a clash with an indexed one is an error
+		Files.delete(output.resolve("test/First.class"));
+		assertThat(compile(output, third)).isEmpty();
+		assertThat(Files.readAllLines(output.resolve(ManagedAIProcessor.INDEX),
+				StandardCharsets.UTF_8)).containsExactly("test.Second", "test.Third");
+		Path clash = source("Clash", String.format(FACTORY, "Second", "Clash"));
+		assertThat(compile(output, clash)).extracting(e -> e.getMessage(null))
+				.anySatisfy(m -> assertThat(m).contains("Second is also used by"));
+	}
+
+	@Test
+	public void testStaleIndexIsIgnored() throws IOException {
+		Path output = folder.newFolder("classes").toPath();
+		Path index = output.resolve(ManagedAIProcessor.INDEX);
+		Files.createDirectories(index.getParent());
+		Files.write(index, Collections.singletonList("test.Removed"), StandardCharsets.UTF_8);
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()},
+				getClass().getClassLoader())) {
+			assertThat(AI.readIndex(loader)).isNull();
+		}
+	}
+
+	@Test
+	public void testDuplicateNamesAndNonFactoriesDoNotCompile() throws IOException {
+		Path output = folder.newFolder("classes").toPath();
+		List<Diagnostic<? extends JavaFileObject>> errors = compile(output,
+				source("First", String.format(FACTORY, "Same", "First")),
+				source("Second", String.format(FACTORY, "Same", "Second")),
+				source("NotAFactory", "package test;\n"
+						+ "@uk.ac.bris.cs.scotlandyard.ai.ManagedAI(\"Other\")\n"
+						+ "public class NotAFactory {}\n"));
+		assertThat(errors).extracting(e -> e.getMessage(null))
+				.anySatisfy(m -> assertThat(m).contains("Same is also used by"))
+				.anySatisfy(m -> assertThat(m).contains("NotAFactory is not a concrete class"));
+		assertThat(output.resolve(ManagedAIProcessor.INDEX)).doesNotExist();
+	}
+
+	@Test
+	public void testLoadAllFindsTheBundledAIs() {
+		assertThat(AI.loadAll()).extracting(AI::getName).contains("MCTS", "AlphaBeta");
+	}
+
+	private Path source(String name, String content) throws IOException {
+		Path source = folder.getRoot().toPath().resolve(name + ".java");
+		Files.write(source, content.getBytes(StandardCharsets.UTF_8));
+		return source;
+	}
+
+	private static List<Diagnostic<? extends JavaFileObject>> compile(Path output,
+			Path... sources) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager files = compiler.getStandardFileManager(
+				diagnostics, null, StandardCharsets.UTF_8)) {
+			List<File> paths = new ArrayList<>();
+			for (Path source : sources) paths.add(source.toFile());
+			CompilationTask task = compiler.getTask(null, files, diagnostics,
+					Arrays.asList("-d", output.toString(),
+							"-classpath", output + File.pathSeparator
+									+ System.getProperty("java.class.path")),
+					null, files.getJavaFileObjectsFromFiles(paths));
+			task.setProcessors(Collections.singletonList(new ManagedAIProcessor()));
+			task.call();
+		}
+		List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<>();
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+			if (diagnostic.getKind() == Kind.ERROR) errors.add(diagnostic);
+		return errors;
+	}
+
+}
@@ -0,0 +1,96 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.model.MapBundle;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link MapBundle}
+ */
+public class MapBundleTest {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testStandardBundleMatchesTextFiles() throws IOException {
+		MapBundle bundle = MapBundle.standard(folder.getRoot().toPath());
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		assertThat(bundle.graph()).isEqualTo(graph);
+		assertThat(CompactGraph.copyOf(bundle.graph(), Transport.class).fingerprint())
+				.isEqualTo(CompactGraph.copyOf(graph, Transport.class).fingerprint());
+		Map<Integer, Entry<Integer, Integer>> coordinates = StandardGame.pngMapPositionEntries();
+		for (int node = 0; node <= 200; node++) {
+			Entry<Integer, Integer> coordinate = coordinates.get(node);
+			assertThat(bundle.hasCoordinate(node)).isEqualTo(coordinate != null);
+			if (coordinate == null) continue;
+			assertThat(bundle.x(node)).isEqualTo(coordinate.getKey());
+			assertThat(bundle.y(node)).isEqualTo(coordinate.getValue());
+		}
+		assertThatThrownBy(() -> bundle.x(0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testStandardBundleIsCompiledOnce() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		MapBundle.standard(directory);
+		List<Path> files = files(directory);
+		assertThat(files).hasSize(1);
+		long modified = Files.getLastModifiedTime(files.get(0)).toMillis();
+		MapBundle.standard(directory);
+		assertThat(files(directory)).isEqualTo(files);
+		assertThat(Files.getLastModifiedTime(files.get(0)).toMillis()).isEqualTo(modified);
+	}
+
+	@Test
+	public void testDamagedBundleIsRejectedAndRecompiled() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		MapBundle.standard(directory);
+		Path file = files(directory).get(0);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 4);
+		}
+		assertThatThrownBy(() -> MapBundle.load(file)).isInstanceOf(IOException.class);
+		assertThat(MapBundle.standard(directory).graph())
+				.isEqualTo(StandardGame.standardGraph());
+		assertThat(MapBundle.load(file).hasCoordinate(199)).isTrue();
+	}
+
+	@Test
+	public void testCompilesFromTextFiles() throws Exception {
+		Path graph = Paths.get(getClass().getResource("/graph.txt").toURI());
+		Path positions = Paths.get(getClass().getResource("/pos.txt").toURI());
+		Path file = folder.getRoot().toPath().resolve("map.bundle");
+		MapBundle.main(new String[]{graph.toString(), positions.toString(), file.toString()});
+		MapBundle bundle = MapBundle.load(file);
+		assertThat(bundle.graph()).isEqualTo(StandardGame.standardGraph());
+		assertThat(bundle.x(1)).isEqualTo(StandardGame.pngMapPositionEntries().get(1).getKey());
+	}
+
+	private static List<Path> files(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.sorted().collect(Collectors.toList());
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import uk.ac.bris.cs.scotlandyard.ai.mcts.MctsPlayerFactory;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.simulation.RandomPlayerFactory;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationResult;
+import uk.ac.bris.cs.scotlandyard.simulation.Simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MctsPlayerFactory}
+ */
+public class MctsPlayerFactoryTest {
+
+	private Set<Move> offered;
+
+	@Test
+	public void testMakeMoveReturnsBeforeChoosingAValidMove() throws Exception {
+		MctsPlayerFactory factory = new MctsPlayerFactory(Duration.ofMillis(200), 2);
+		ScotlandYardModel model = TestGames.mrXToMove(moves -> offered = moves);
+		CompletableFuture<Move> chosen = new CompletableFuture<>();
+		long start = System.nanoTime();
+		factory.createPlayer(Colour.BLACK).makeMove(model, 35, offered, chosen::complete);
+		assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(200));
+		assertThat(offered).contains(chosen.get(5, TimeUnit.SECONDS));
+		factory.finish();
+	}
+
+	@Test
+	public void testFinishCancelsSearches() throws Exception {
+		MctsPlayerFactory factory = new MctsPlayerFactory(Duration.ofMillis(300), 1);
+		ScotlandYardModel model = TestGames.mrXToMove(moves -> offered = moves);
+		CompletableFuture<Move> chosen = new CompletableFuture<>();
+		factory.createPlayer(Colour.BLACK).makeMove(model, 35, offered, chosen::complete);
+		factory.finish();
+		Thread.sleep(500);
+		assertThat(chosen.isDone()).isFalse();
+	}
+
+	@Test
+	public void testFailedSearchStillMoves() throws Exception {
+		MctsPlayerFactory factory = new MctsPlayerFactory(Duration.ofMillis(100), 2);
+		ScotlandYardModel model = TestGames.mrXToMove(moves -> offered = moves);
+		// destinations off the map fail every playout
+		Set<Move> broken = new HashSet<>(Arrays.asList(
+				TestGames.taxi(Colour.BLACK, 300), TestGames.taxi(Colour.BLACK, 301)));
+		CompletableFuture<Move> chosen = new CompletableFuture<>();
+		factory.createPlayer(Colour.BLACK).makeMove(model, 35, broken, chosen::complete);
+		assertThat(broken).contains(chosen.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testPlaysCompleteGamesOnBothSides() throws Exception {
+		SimulationResult mrX = new Simulator.Builder(
+				() -> new MctsPlayerFactory(Duration.ofMillis(5), 2), RandomPlayerFactory::new)
+				.games(2).threads(1).build().run();
+		assertThat(mrX.games()).isEqualTo(2);
+		SimulationResult detectives = new Simulator.Builder(RandomPlayerFactory::new,
+				() -> new MctsPlayerFactory(Duration.ofMillis(5), 2))
+				.games(2).threads(1).build().run();
+		assertThat(detectives.games()).isEqualTo(2);
+	}
+
+}
@@ -0,0 +1,149 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import uk.ac.bris.cs.scotlandyard.metrics.GameMetrics;
+import uk.ac.bris.cs.scotlandyard.metrics.GameMetricsMXBean;
+import uk.ac.bris.cs.scotlandyard.metrics.LatencyHistogram;
+import uk.ac.bris.cs.scotlandyard.metrics.LatencySnapshot;
+import uk.ac.bris.cs.scotlandyard.metrics.ModelInstrumentation;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.simulation.RandomPlayerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+
+/**
+ * Tests for {@link ModelInstrumentation} and {@link LatencyHistogram}
+ */
+public class ModelInstrumentationTest {
+
+	private MBeanServer server;
+	private ModelInstrumentation instrumentation;
+	private ObjectName aggregateName;
+
+	@Before
+	public void setUp() throws Exception {
+		server = MBeanServerFactory.newMBeanServer();
+		instrumentation = new ModelInstrumentation(server, "test");
+		aggregateName = new ObjectName(ModelInstrumentation.DOMAIN + ":type=Games,name=\"test\"");
+	}
+
+	@Test
+	public void testPlayedGameIsCountedAndUnregisteredWhenOver() throws Exception {
+		RandomPlayerFactory random = new RandomPlayerFactory(42);
+		ScotlandYardGame game = instrumentation.instrument(ScotlandYardModel::new)
+				.createGame(StandardGame.ROUNDS, StandardGame.standardGraph(),
+						configuration(BLACK, random.createPlayer(BLACK), 35),
+						configuration(BLUE, random.createPlayer(BLUE), 26));
+		assertThat(server.queryNames(new ObjectName(ModelInstrumentation.DOMAIN
+				+ ":type=Game,*"), null)).hasSize(1);
+		while (!game.isGameOver()) game.startRotate();
+
+		GameMetricsMXBean metrics = JMX.newMXBeanProxy(server, aggregateName,
+				GameMetricsMXBean.class);
+		assertThat(metrics.getGamesFinished()).isEqualTo(1);
+		assertThat(metrics.getRoundsPlayed()).isEqualTo(game.getCurrentRound());
+		assertThat(metrics.getMovesAccepted()).isGreaterThanOrEqualTo(game.getCurrentRound());
+		assertThat(metrics.getMovesRejected()).isZero();
+		assertThat(metrics.getAccept().getCount()).isEqualTo(metrics.getMovesAccepted());
+		assertThat(metrics.getMoveGeneration().getCount()).isPositive();
+		assertThat(metrics.getDecisionTimes()).containsOnlyKeys(BLACK, BLUE);
+		assertThat(metrics.getDecisionTimes().get(BLACK).getCount()).isPositive();
+		assertThat(server.queryNames(new ObjectName(ModelInstrumentation.DOMAIN
+				+ ":type=Game,*"), null)).isEmpty();
+	}
+
+	@Test
+	public void testRejectedMoveAndSpectatorsAreCounted() throws Exception {
+		Waiting mrX = new Waiting();
+		ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS,
+				StandardGame.standardGraph(), configuration(BLACK, mrX, 35),
+				configuration(BLUE, new Waiting(), 26));
+		GameMetrics metrics = instrumentation.instrument(model);
+		model.registerSpectator(new Spectator() {});
+		model.startRotate();
+		assertThatThrownBy(() -> mrX.callback.accept(new PassMove(BLACK)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(metrics.getMovesRejected()).isEqualTo(1);
+		assertThat(instrumentation.aggregate().getMovesRejected()).isEqualTo(1);
+		assertThat(metrics.getDecisionTimes()).containsOnlyKeys(BLACK);
+		metrics.close();
+
+		Move move = mrX.moves.iterator().next();
+		model = new ScotlandYardModel(StandardGame.ROUNDS, StandardGame.standardGraph(),
+				configuration(BLACK, mrX, 35), configuration(BLUE, new Waiting(), 26));
+		metrics = instrumentation.instrument(model);
+		model.registerSpectator(new Spectator() {});
+		model.startRotate();
+		mrX.callback.accept(move);
+		assertThat(metrics.getMovesAccepted()).isEqualTo(1);
+		assertThat(metrics.getSpectatorDispatch().getCount()).isPositive();
+
+		metrics.close();
+		assertThat(server.queryNames(new ObjectName(ModelInstrumentation.DOMAIN
+				+ ":type=Game,*"), null)).isEmpty();
+		assertThat(server.isRegistered(aggregateName)).isTrue();
+	}
+
+	@Test
+	public void testHistogramPercentilesAreWithinPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertThat(histogram.snapshot().getCount()).isZero();
+		for (long value = 1; value <= 100_000; value++) histogram.record(value * 1000);
+		histogram.record(-5);
+		LatencySnapshot snapshot = histogram.snapshot();
+		assertThat(snapshot.getCount()).isEqualTo(100_001);
+		assertThat(snapshot.getMinNanos()).isZero();
+		assertThat(snapshot.getMaxNanos()).isEqualTo(100_000_000);
+		assertThat((double) snapshot.getP50Nanos()).isCloseTo(50_000_000, within(50_000_000 / 32.0));
+		assertThat((double) snapshot.getP99Nanos()).isCloseTo(99_000_000, within(99_000_000 / 32.0));
+		assertThat(snapshot.getP999Nanos()).isLessThanOrEqualTo(snapshot.getMaxNanos());
+		assertThat(snapshot.getMeanNanos()).isCloseTo(50_000_000, within(1000.0));
+	}
+
+	private static PlayerConfiguration configuration(Colour colour, Player player, int location) {
+		return new PlayerConfiguration.Builder(colour)
+				.using(player)
+				.with(colour.isMrX()
+						? StandardGame.generateMrXTickets()
+						: StandardGame.generateDetectiveTickets())
+				.at(location)
+				.build();
+	}
+
+	private static class Waiting implements Player {
+
+		private Set<Move> moves;
+		private Consumer<Move> callback;
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			this.moves = moves;
+			this.callback = callback;
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.MoveCodec;
+import uk.ac.bris.cs.scotlandyard.model.PackedMove;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link MoveCodec}
+ */
+public class MoveCodecTest {
+
+	@Test
+	public void testEveryKindOfMoveRoundTripsInItsSize() {
+		for (MoveCodec codec : MoveCodec.values()) {
+			int max = codec.maxDestination();
+			assertRoundTrip(codec, new PassMove(Colour.YELLOW), 1);
+			for (Colour colour : Colour.values())
+				for (Ticket ticket : Ticket.values())
+					for (int destination : new int[]{0, 1, 199, max})
+						assertRoundTrip(codec, new TicketMove(colour, ticket, destination),
+								codec == MoveCodec.NARROW ? 2 : 3);
+			for (Ticket first : Ticket.values())
+				for (Ticket second : Ticket.values())
+					assertRoundTrip(codec, new DoubleMove(Colour.BLACK, first, max, second, 1),
+							codec == MoveCodec.NARROW ? 3 : 4);
+			// as shown to detectives before Mr.X is first revealed
+			assertRoundTrip(codec, new DoubleMove(Colour.BLACK, Ticket.SECRET, 0,
+					Ticket.TAXI, 0), codec == MoveCodec.NARROW ? 3 : 4);
+		}
+	}
+
+	@Test
+	public void testBulkRoundTrip() {
+		List<Move> moves = Arrays.asList(new PassMove(Colour.RED),
+				new TicketMove(Colour.BLACK, Ticket.SECRET, 4000),
+				new DoubleMove(Colour.BLACK, Ticket.BUS, 4095, Ticket.TAXI, 2048),
+				new TicketMove(Colour.BLUE, Ticket.UNDERGROUND, 13));
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		MoveCodec.WIDE.encodeAll(moves, buffer);
+		assertThat(buffer.position()).isEqualTo(1 + 3 + 4 + 3);
+		buffer.flip();
+		assertThat(MoveCodec.WIDE.decodeAll(buffer)).isEqualTo(moves);
+
+		int[] packed = new int[moves.size()];
+		for (int i = 0; i < packed.length; i++) packed[i] = PackedMove.fromMove(moves.get(i));
+		buffer.clear();
+		MoveCodec.WIDE.encodeAll(packed, 0, packed.length, buffer);
+		buffer.flip();
+		int[] decoded = new int[8];
+		assertThat(MoveCodec.WIDE.decodeAll(buffer, decoded, 1, 7)).isEqualTo(packed.length);
+		assertThat(Arrays.copyOfRange(decoded, 1, 1 + packed.length)).isEqualTo(packed);
+	}
+
+	@Test
+	public void testForGraphPicksSmallestCodec() throws Exception {
+		assertThat(MoveCodec.forGraph(StandardGame.standardGraph())).isEqualTo(MoveCodec.NARROW);
+	}
+
+	@Test
+	public void testNarrowRejectsWideDestinations() {
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+		assertThatThrownBy(() -> MoveCodec.NARROW.encode(
+				new TicketMove(Colour.RED, Ticket.TAXI, 256), buffer))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(buffer.position()).isZero();
+	}
+
+	@Test
+	public void testOverflowWritesNothingAndUnderflowReadsNothing() {
+		ByteBuffer buffer = ByteBuffer.allocate(3);
+		Move move = new DoubleMove(Colour.BLACK, Ticket.TAXI, 1, Ticket.BUS, 2);
+		assertThatThrownBy(() -> MoveCodec.WIDE.encode(move, buffer))
+				.isInstanceOf(BufferOverflowException.class);
+		assertThat(buffer.position()).isZero();
+
+		MoveCodec.NARROW.encode(move, buffer);
+		buffer.flip().limit(2);
+		assertThatThrownBy(() -> MoveCodec.NARROW.decode(buffer))
+				.isInstanceOf(BufferUnderflowException.class);
+		assertThat(buffer.position()).isZero();
+	}
+
+	@Test
+	public void testRejectsBytesThatAreNotMoves() {
+		List<byte[]> invalid = new ArrayList<>();
+		invalid.add(new byte[]{0x03}); // no such kind
+		invalid.add(new byte[]{(byte) 0xE1, 1}); // no such colour
+		invalid.add(new byte[]{0x1D, 1}); // no such ticket
+		invalid.add(new byte[]{0x04}); // pass with a ticket
+		invalid.add(new byte[]{0x01, (byte) 0xFF, (byte) 0xFF}); // destination too large
+		for (byte[] bytes : invalid)
+			assertThatThrownBy(() -> MoveCodec.WIDE.decode(ByteBuffer.wrap(bytes)))
+					.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static void assertRoundTrip(MoveCodec codec, Move move, int size) {
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+		codec.encode(move, buffer);
+		assertThat(buffer.position()).isEqualTo(size);
+		assertThat(codec.encodedSize(PackedMove.fromMove(move))).isEqualTo(size);
+		buffer.flip();
+		assertThat(codec.decode(buffer)).isEqualTo(move);
+		assertThat(buffer.hasRemaining()).isFalse();
+	}
+
+}
@@ -0,0 +1,118 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.MrXLocationTracker;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+/**
+ * Tests for {@link MrXLocationTracker} against a set of possible locations
+ * recomputed from the graph edges on every move
+ */
+public class MrXLocationTrackerTest {
+
+	@Test
+	public void testTracksPossibleLocationsInRandomGames() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		for (int seed = 0; seed < 20; seed++) {
+			Random random = new Random(seed);
+			MrXLocationTracker tracker = new MrXLocationTracker(graph,
+					StandardGame.MRX_LOCATIONS);
+			Reference reference = new Reference(graph);
+			Player player = (view, location, moves, callback) -> {
+				// the location given to Mr.X is his actual location
+				if (view.getCurrentPlayer().isMrX())
+					assertThat(tracker.isPossible(location)).isTrue();
+				callback.accept(new ArrayList<>(moves).get(random.nextInt(moves.size())));
+			};
+			List<Integer> detectiveLocations = StandardGame.generateDetectiveLocations(seed, 5);
+			PlayerConfiguration[] detectives = new PlayerConfiguration[4];
+			for (int i = 0; i < detectives.length; i++)
+				detectives[i] = new PlayerConfiguration.Builder(Colour.values()[i + 2])
+						.using(player).with(StandardGame.generateDetectiveTickets())
+						.at(detectiveLocations.get(i + 1)).build();
+			ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS, graph,
+					new PlayerConfiguration.Builder(BLACK).using(player)
+							.with(StandardGame.generateMrXTickets())
+							.at(StandardGame.generateMrXLocation(seed)).build(),
+					new PlayerConfiguration.Builder(Colour.BLUE).using(player)
+							.with(StandardGame.generateDetectiveTickets())
+							.at(detectiveLocations.get(0)).build(),
+					detectives);
+			model.registerSpectator(tracker);
+			model.registerSpectator(reference);
+			model.registerSpectator(new Spectator() {
+				@Override
+				public void onMoveMade(ScotlandYardView view, Move move) {
+					assertThat(tracker.possibleLocationSet()).isEqualTo(reference.possible);
+				}
+			});
+			while (!model.isGameOver()) model.startRotate();
+		}
+	}
+
+	@Test
+	public void testStartsAnywhereWithoutStartLocations() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		assertThat(new MrXLocationTracker(graph).count()).isEqualTo(graph.size());
+	}
+
+	private static class Reference implements Spectator {
+
+		private final Graph<Integer, Transport> graph;
+		private Set<Integer> possible = new HashSet<>(StandardGame.MRX_LOCATIONS);
+
+		Reference(Graph<Integer, Transport> graph) {
+			this.graph = graph;
+		}
+
+		@Override
+		public void onMoveMade(ScotlandYardView view, Move move) {
+			if (!(move instanceof TicketMove)) return;
+			TicketMove ticketMove = (TicketMove) move;
+			if (move.colour().isDetective()) {
+				possible.remove(ticketMove.destination());
+			} else if (view.getRounds().get(view.getCurrentRound() - 1)) {
+				possible = new HashSet<>();
+				possible.add(ticketMove.destination());
+			} else {
+				Set<Integer> next = new HashSet<>();
+				for (int location : possible)
+					for (Edge<Integer, Transport> edge : graph.getEdgesFrom(
+							graph.getNode(location))) {
+						if (ticketMove.ticket() == Ticket.SECRET
+								|| Ticket.fromTransport(edge.data()) == ticketMove.ticket())
+							next.add(edge.destination().value());
+					}
+				for (Colour colour : view.getPlayers())
+					if (colour.isDetective())
+						view.getPlayerLocation(colour).ifPresent(next::remove);
+				possible = next;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.Bitboard;
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+import uk.ac.bris.cs.gamekit.graph.NeighbourMasks;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link NeighbourMasks} and {@link Bitboard}
+ */
+public class NeighbourMasksTest {
+
+	private static CompactGraph<Transport> graph;
+	private static NeighbourMasks<Transport> masks;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		graph = CompactGraph.copyOf(StandardGame.standardGraph(), Transport.class);
+		masks = NeighbourMasks.of(graph);
+	}
+
+	@Test
+	public void testMasksAreCachedOnGraph() {
+		assertThat(NeighbourMasks.of(graph)).isSameAs(masks);
+	}
+
+	@Test
+	public void testStandardMapFitsInFourWords() {
+		assertThat(masks.newBitboard().capacity()).isEqualTo(256);
+	}
+
+	@Test
+	public void testNeighboursMatchGraphEdges() {
+		Bitboard actual = masks.newBitboard();
+		for (int i = 0; i < graph.size(); i++) {
+			int value = graph.valueAt(i);
+			for (Transport transport : Transport.values()) {
+				Set<Integer> expected = new HashSet<>();
+				for (int slot = graph.edgesBegin(value); slot < graph.edgesEnd(value); slot++)
+					if (graph.data(slot) == transport) expected.add(graph.target(slot));
+				masks.neighbours(value, transport.ordinal(), actual);
+				assertThat(toSet(actual)).isEqualTo(expected);
+				for (int target : expected) {
+					assertThat(masks.hasEdge(value, transport.ordinal(), target)).isTrue();
+					assertThat(masks.isAdjacent(value, target)).isTrue();
+				}
+			}
+			masks.neighbours(value, actual);
+			assertThat(actual.cardinality()).isLessThanOrEqualTo(graph.degree(value));
+		}
+	}
+
+	@Test
+	public void testHasNeighbourOutside() {
+		Bitboard excluded = masks.newBitboard();
+		int value = graph.valueAt(0);
+		assertThat(masks.hasNeighbourOutside(value, excluded)).isTrue();
+		masks.neighbours(value, excluded);
+		assertThat(masks.hasNeighbourOutside(value, excluded)).isFalse();
+		for (Transport transport : Transport.values())
+			assertThat(masks.hasNeighbourOutside(value, transport.ordinal(), excluded)).isFalse();
+	}
+
+	@Test
+	public void testReachableIsUnionOfNeighbours() {
+		Bitboard from = masks.newBitboard();
+		Bitboard expected = masks.newBitboard();
+		Bitboard neighbours = masks.newBitboard();
+		for (int value : new int[]{1, 46, 199}) {
+			from.add(value);
+			masks.neighbours(value, neighbours);
+			expected.or(neighbours);
+		}
+		Bitboard actual = masks.newBitboard();
+		masks.reachable(from, actual);
+		assertThat(actual).isEqualTo(expected);
+		assertThatThrownBy(() -> masks.reachable(from, from))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testMissingNodeThrows() {
+		assertThatThrownBy(() -> masks.neighbours(0, masks.newBitboard()))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> masks.isAdjacent(500, 1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testSparseNodeValues() {
+		CompactGraph<Transport> sparse = new CompactGraph.Builder<>(Transport.class)
+				.addNode(1).addNode(2000).addNode(4095)
+				.addEdge(1, 2000, Transport.TAXI).addEdge(2000, 4095, Transport.BUS).build();
+		NeighbourMasks<Transport> sparseMasks = NeighbourMasks.of(sparse);
+		Bitboard neighbours = sparseMasks.newBitboard();
+		sparseMasks.neighbours(2000, neighbours);
+		assertThat(toSet(neighbours)).containsOnly(1, 4095);
+		assertThat(sparseMasks.hasEdge(4095, Transport.BUS.ordinal(), 2000)).isTrue();
+		Bitboard from = sparseMasks.newBitboard();
+		from.add(1);
+		from.add(3000);
+		Bitboard reachable = sparseMasks.newBitboard();
+		sparseMasks.reachable(from, reachable);
+		assertThat(toSet(reachable)).containsOnly(2000);
+		assertThatThrownBy(() -> sparseMasks.isAdjacent(3000, 1))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		// a row per node, but each with a bit for every value up to the largest
+		CompactGraph.Builder<Transport> huge = new CompactGraph.Builder<>(Transport.class);
+		for (int i = 0; i < 30; i++) huge.addNode(i);
+		huge.addNode(1 << 30);
+		assertThatThrownBy(() -> NeighbourMasks.of(huge.build()))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testBitboardOperations() {
+		Bitboard a = new Bitboard(200);
+		Bitboard b = new Bitboard(200);
+		a.add(1);
+		a.add(64);
+		a.add(199);
+		b.add(64);
+		b.add(100);
+		assertThat(a.contains(64)).isTrue();
+		assertThat(a.contains(2)).isFalse();
+		assertThat(a.contains(1000)).isFalse();
+		assertThat(a.intersects(b)).isTrue();
+		assertThat(a.nextSetBit(2)).isEqualTo(64);
+		assertThat(a.nextSetBit(200)).isEqualTo(-1);
+		Bitboard c = new Bitboard(200);
+		c.copyFrom(a);
+		c.andNot(b);
+		assertThat(toSet(c)).containsOnly(1, 199);
+		c.or(b);
+		assertThat(toSet(c)).containsOnly(1, 64, 100, 199);
+		c.and(b);
+		assertThat(toSet(c)).containsOnly(64, 100);
+		c.remove(64);
+		c.remove(100);
+		assertThat(c.isEmpty()).isTrue();
+		assertThat(a.toString()).isEqualTo("Bitboard{1, 64, 199}");
+	}
+
+	private static Set<Integer> toSet(Bitboard bitboard) {
+		Set<Integer> values = new HashSet<>();
+		for (int v = bitboard.nextSetBit(0); v >= 0; v = bitboard.nextSetBit(v + 1))
+			values.add(v);
+		return values;
+	}
+
+}
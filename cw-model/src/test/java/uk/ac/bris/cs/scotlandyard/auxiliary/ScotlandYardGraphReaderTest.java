@@ -2,6 +2,18 @@ package uk.ac.bris.cs.scotlandyard.auxiliary;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
 import uk.ac.bris.cs.scotlandyard.model.Transport;
@@ -10,6 +22,7 @@ import static java.util.Arrays.*;
 import static java.util.Collections.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.*;
 
 /**
@@ -58,4 +71,121 @@ public class ScotlandYardGraphReaderTest {
 		assertThatThrownBy(() -> fromLines(asList("2 1", "1", "2", "Foo Bar Baz")));
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testStreamingReadsTheSameGraph() throws Exception {
+		List<String> lines = Files.readAllLines(Paths.get(getClass().getResource("/graph.txt").toURI()));
+		try (InputStream stream = getClass().getResourceAsStream("/graph.txt")) {
+			assertThat(fromInputStream(stream)).isEqualTo(fromLines(lines));
+		}
+	}
+
+	@Test
+	public void testStreamingHandlesLineEndings() throws Exception {
+		ImmutableGraph<Integer, Transport> graph = fromInputStream(
+				stream("3 1\r\n1\r2\n3\r\n1 2 ferry"));
+		assertThat(graph).isEqualTo(fromLines(asList("3 1", "1", "2", "3", "1 2 Ferry")));
+	}
+
+	@Test
+	public void testStreamingReportsTheSameErrors() {
+		List<List<String>> invalid = asList(
+				emptyList(),
+				singletonList("Foo Bar Baz"),
+				asList("Foo 1", "1"),
+				asList("3 5", "1", "2", "3", "1 2 Ferry"),
+				asList("1 0", "Foo"),
+				asList("2 0", "", "1"),
+				asList("2 1", "1", "2", "Foo Bar Baz"),
+				asList("2 1", "1", "2", "1 2 Boat"),
+				asList("2 1", "1", "2", "1 3 Taxi"),
+				asList("2 1", "1", "2", "1  2 Taxi"),
+				asList("2 1", "1", "2", "1 99999999999 Taxi"));
+		for (List<String> lines : invalid) {
+			Throwable expected = catchThrowable(() -> fromLines(lines));
+			assertThat(expected).isInstanceOf(IllegalArgumentException.class);
+			assertThatThrownBy(() -> fromInputStream(stream(String.join("\n", lines))))
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessage(expected.getMessage());
+		}
+		// the line count is only known at the end of the stream
+		assertThatThrownBy(() -> fromInputStream(stream("4 1\n1\n2\n3\n1 2 Ferry")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testStreamingLargeMap() throws IOException {
+		int nodes = 100_000;
+		ImmutableGraph<Integer, Transport> graph = fromChannel(new SyntheticMap(nodes));
+		assertThat(graph.getNodes()).hasSize(nodes);
+		assertThat(graph.getEdges()).hasSize(4 * (nodes - 1));
+		assertThat(graph.getEdgesFrom(graph.getNode(nodes - 1))).hasSize(2);
+	}
+
+	@Test
+	public void testNonBlockingChannelsAreRejected() throws IOException {
+		ReadableByteChannel map = Channels.newChannel(stream("3 1\n1\n2\n3\n1 2 Ferry"));
+		ReadableByteChannel stalling = new ReadableByteChannel() {
+			private boolean stalled;
+
+			@Override public int read(ByteBuffer buffer) throws IOException {
+				if (stalled) return map.read(buffer);
+				stalled = true;
+				return 0;
+			}
+
+			@Override public boolean isOpen() { return true; }
+			@Override public void close() {}
+		};
+		assertThatThrownBy(() -> fromChannel(stalling)).isInstanceOf(IOException.class);
+
+		Pipe pipe = Pipe.open();
+		try {
+			pipe.source().configureBlocking(false);
+			assertThatThrownBy(() -> fromChannel(pipe.source()))
+					.isInstanceOf(IllegalArgumentException.class);
+		} finally {
+			pipe.source().close();
+			pipe.sink().close();
+		}
+	}
+
+	private static InputStream stream(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// a line of nodes joined by taxi and bus, generated as it is read
+	private static final class SyntheticMap implements ReadableByteChannel {
+
+		private final int nodes;
+		private int line;
+		private ByteBuffer pending = ByteBuffer.allocate(0);
+
+		SyntheticMap(int nodes) {
+			this.nodes = nodes;
+			pending = bytes(nodes + " " + 2 * (nodes - 1) + "\n");
+		}
+
+		@Override public int read(ByteBuffer buffer) {
+			if (!pending.hasRemaining()) {
+				int index = line++;
+				if (index < nodes) pending = bytes(index + "\n");
+				else if (index < nodes + 2 * (nodes - 1)) {
+					int edge = (index - nodes) / 2;
+					pending = bytes(edge + " " + (edge + 1)
+							+ ((index - nodes) % 2 == 0 ? " Taxi\n" : " Bus\n"));
+				} else return -1;
+			}
+			int count = Math.min(buffer.remaining(), pending.remaining());
+			for (int i = 0; i < count; i++) buffer.put(pending.get());
+			return count;
+		}
+
+		@Override public boolean isOpen() { return true; }
+		@Override public void close() {}
+
+		private static ByteBuffer bytes(String text) {
+			return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
+import uk.ac.bris.cs.scotlandyard.ai.Visualiser;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.simulation.RandomPlayerFactory;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationResult;
+import uk.ac.bris.cs.scotlandyard.simulation.Simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link Simulator}
+ */
+public class SimulatorTest {
+
+	@Test
+	public void testPlaysAllGames() throws Exception {
+		SimulationResult result = new Simulator.Builder(RandomPlayerFactory::new,
+				RandomPlayerFactory::new).games(200).threads(2).build().run();
+		assertThat(result.games()).isEqualTo(200);
+		assertThat(result.mrXWins() + result.detectiveWins()).isEqualTo(200);
+		long ended = 0;
+		for (int round = 0; round <= 24; round++) ended += result.gamesEndingIn(round);
+		assertThat(ended).isEqualTo(200);
+		assertThat(result.meanRounds()).isBetween(0.0, 24.0);
+		assertThat(result.moves()).isGreaterThan(200);
+		assertThat(result.gamesPerSecond()).isPositive();
+	}
+
+	@Test
+	public void testSameSeedsPlaySameGamesOnAnyNumberOfThreads() throws Exception {
+		SimulationResult single = seeded(1);
+		SimulationResult parallel = seeded(4);
+		assertThat(parallel.mrXWins()).isEqualTo(single.mrXWins());
+		assertThat(parallel.moves()).isEqualTo(single.moves());
+		for (int round = 0; round <= 24; round++)
+			assertThat(parallel.gamesEndingIn(round)).isEqualTo(single.gamesEndingIn(round));
+	}
+
+	@Test
+	public void testWaitsForPlayersMovingOnOtherThreads() throws Exception {
+		PlayerFactory threaded = colour -> (view, location, moves, callback) ->
+				new Thread(() -> callback.accept(moves.iterator().next())).start();
+		SimulationResult result = new Simulator.Builder(() -> threaded, () -> threaded)
+				.games(5).threads(1).build().run();
+		assertThat(result.games()).isEqualTo(5);
+	}
+
+	@Test
+	public void testSlowPlayerFailsRun() throws Exception {
+		PlayerFactory silent = colour -> (view, location, moves, callback) -> {};
+		Simulator simulator = new Simulator.Builder(() -> silent, RandomPlayerFactory::new)
+				.games(3).moveTimeout(10, TimeUnit.MILLISECONDS).build();
+		assertThatThrownBy(simulator::run).isInstanceOf(RuntimeException.class)
+				.hasMessageContaining("Game");
+	}
+
+	@Test
+	public void testInvalidMoveFailsRun() throws Exception {
+		Player cheat = (view, location, moves, callback) ->
+				callback.accept(new TicketMove(Colour.BLACK, Ticket.TAXI, 1000));
+		Simulator simulator = new Simulator.Builder(() -> colour -> cheat,
+				RandomPlayerFactory::new).games(1).build();
+		assertThatThrownBy(simulator::run).isInstanceOf(RuntimeException.class);
+	}
+
+	@Test
+	public void testFactoriesAreReadyBeforePlayersAreCreated() throws Exception {
+		List<String> calls = new CopyOnWriteArrayList<>();
+		PlayerFactory factory = new PlayerFactory() {
+			private final RandomPlayerFactory random = new RandomPlayerFactory();
+
+			@Override
+			public Player createPlayer(Colour colour) {
+				calls.add("createPlayer");
+				return random.createPlayer(colour);
+			}
+
+			@Override
+			public List<Spectator> createSpectators(ScotlandYardView view) {
+				calls.add("createSpectators");
+				return Collections.emptyList();
+			}
+
+			@Override
+			public void ready(Visualiser visualiser, ResourceProvider provider) {
+				calls.add("ready");
+			}
+
+			@Override
+			public void finish() {
+				calls.add("finish");
+			}
+		};
+		new Simulator.Builder(() -> factory, RandomPlayerFactory::new).games(1).build().run();
+		assertThat(calls).containsExactly("createSpectators", "ready", "createPlayer", "finish");
+	}
+
+	private static SimulationResult seeded(int threads) throws Exception {
+		return new Simulator.Builder(() -> new RandomPlayerFactory(1),
+				() -> new RandomPlayerFactory(2)).games(100).threads(threads).seed(7).build()
+				.run();
+	}
+
+}
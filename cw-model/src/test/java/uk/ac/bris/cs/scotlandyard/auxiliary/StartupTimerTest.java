@@ -0,0 +1,34 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.bris.cs.scotlandyard.StartupTimer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests for {@link StartupTimer}
+ */
+public class StartupTimerTest {
+
+	@Test
+	public void testPhasesAreKeptInOrderWithTheirFirstTime() throws InterruptedException {
+		List<String> lines = new ArrayList<>();
+		StartupTimer timer = new StartupTimer(lines::add);
+		Duration bundle = timer.mark("map bundle");
+		Thread.sleep(5);
+		Duration frame = timer.mark("first frame");
+		assertThat(timer.mark("map bundle")).isEqualTo(bundle);
+		assertThat(frame).isGreaterThanOrEqualTo(bundle);
+		assertThat(timer.phases()).containsExactly(
+				entry("map bundle", bundle), entry("first frame", frame));
+		assertThat(lines).hasSize(2);
+		assertThat(lines.get(1)).contains("first frame").contains(frame.toMillis() + "ms");
+	}
+
+}
@@ -2,6 +2,7 @@ package uk.ac.bris.cs.scotlandyard.auxiliary;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -12,19 +13,24 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
+import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.scotlandyard.auxiliary.AnonymousMoves.AnonymousDoubleMove;
 import uk.ac.bris.cs.scotlandyard.auxiliary.AnonymousMoves.AnonymousPassMove;
 import uk.ac.bris.cs.scotlandyard.auxiliary.AnonymousMoves.AnonymousTicketMove;
 import uk.ac.bris.cs.scotlandyard.harness.Requirement;
 import uk.ac.bris.cs.scotlandyard.model.Colour;
 import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
 import uk.ac.bris.cs.scotlandyard.model.PassMove;
 import uk.ac.bris.cs.scotlandyard.model.Player;
 import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
 import uk.ac.bris.cs.scotlandyard.model.Ticket;
 import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
 
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
@@ -363,6 +369,45 @@ public class TestGames {
 		};
 	}
 
+	/**
+	 * A game with the standard rounds and tickets between Mr.X at 35 and red
+	 * at 26
+	 *
+	 * @param graph the graph of the game
+	 * @param mrX the player of Mr.X
+	 * @param red the player of red
+	 * @return a game that has not started; never null
+	 */
+	public static ScotlandYardModel twoPlayerGame(Graph<Integer, Transport> graph, Player mrX,
+	                                              Player red) {
+		return new ScotlandYardModel(StandardGame.ROUNDS, graph,
+				new PlayerConfiguration.Builder(BLACK).using(mrX)
+						.with(StandardGame.generateMrXTickets()).at(35).build(),
+				new PlayerConfiguration.Builder(RED).using(red)
+						.with(StandardGame.generateDetectiveTickets()).at(26).build());
+	}
+
+	/**
+	 * {@link #twoPlayerGame(Graph, Player, Player)} on the standard map
+	 */
+	public static ScotlandYardModel twoPlayerGame(Player mrX, Player red) throws IOException {
+		return twoPlayerGame(StandardGame.standardGraph(), mrX, red);
+	}
+
+	/**
+	 * A {@link #twoPlayerGame(Player, Player)} waiting for Mr.X's first move,
+	 * which is never made
+	 *
+	 * @param offered receives the moves Mr.X was offered
+	 * @return the started game; never null
+	 */
+	public static ScotlandYardModel mrXToMove(Consumer<Set<Move>> offered) throws IOException {
+		ScotlandYardModel model = twoPlayerGame(
+				(view, location, moves, callback) -> offered.accept(moves), dummyPlayer());
+		model.startRotate();
+		return model;
+	}
+
 	/**
 	 * Any given valid Mr.X configuration that does nothing
 	 */
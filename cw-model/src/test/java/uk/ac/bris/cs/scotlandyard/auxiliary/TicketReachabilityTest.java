@@ -0,0 +1,119 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.ai.DistanceOracle;
+import uk.ac.bris.cs.scotlandyard.ai.TicketReachability;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.makeTickets;
+
+/**
+ * Tests for {@link TicketReachability} against an exhaustive search over
+ * (node, tickets) states
+ */
+public class TicketReachabilityTest {
+
+	private static Graph<Integer, Transport> graph;
+	private static TicketReachability reachability;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		graph = StandardGame.standardGraph();
+		reachability = new TicketReachability(graph);
+	}
+
+	@Test
+	public void testMatchesExhaustiveSearch() {
+		Random random = new Random(7);
+		for (int round = 0; round < 40; round++) {
+			int source = graph.getNodes().get(random.nextInt(graph.size())).value();
+			Map<Ticket, Integer> tickets = makeTickets(random.nextInt(4), random.nextInt(3),
+					random.nextInt(2), 0, random.nextInt(3));
+			Map<Integer, Integer> expected = exhaustive(source, tickets);
+			for (Node<Integer> node : graph.getNodes())
+				assertThat(reachability.minMoves(source, node.value(), tickets))
+						.as("%d to %d with %s", source, node.value(), tickets)
+						.isEqualTo(expected.getOrDefault(node.value(),
+								TicketReachability.UNREACHABLE));
+			int moves = random.nextInt(4);
+			Set<Integer> within = new HashSet<>();
+			expected.forEach((node, distance) -> {
+				if (distance <= moves) within.add(node);
+			});
+			assertThat(reachability.reachableWithin(source, moves, tickets)).isEqualTo(within);
+		}
+	}
+
+	@Test
+	public void testPlentyOfTicketsMatchesHopDistance() {
+		DistanceOracle distances = DistanceOracle.compute(graph);
+		Map<Ticket, Integer> tickets = makeTickets(100, 100, 100, 0, 100);
+		for (int to = 1; to <= 199; to++)
+			assertThat(reachability.minMoves(1, to, tickets)).isEqualTo(distances.distance(1, to));
+	}
+
+	@Test
+	public void testNoTicketsReachesOnlySource() {
+		assertThat(reachability.reachableWithin(46, 10, TestGames.noTickets()))
+				.containsExactly(46);
+	}
+
+	@Test
+	public void testUndergroundNeedsUndergroundTickets() {
+		// 46 and 74 are only one underground edge apart
+		assertThat(reachability.minMoves(46, 74, makeTickets(0, 0, 1, 0, 0))).isEqualTo(1);
+		assertThat(reachability.minMoves(46, 74, makeTickets(0, 0, 0, 0, 1))).isEqualTo(1);
+		assertThat(reachability.minMoves(46, 74, makeTickets(20, 20, 0, 0, 0)))
+				.isGreaterThan(1);
+	}
+
+	private static Map<Integer, Integer> exhaustive(int source, Map<Ticket, Integer> tickets) {
+		Map<Integer, Integer> distances = new HashMap<>();
+		Set<List<Integer>> visited = new HashSet<>();
+		Queue<List<Integer>> queue = new ArrayDeque<>();
+		// node, moves, taxi, bus, underground, secret
+		List<Integer> start = Arrays.asList(source, 0, tickets.get(Ticket.TAXI),
+				tickets.get(Ticket.BUS), tickets.get(Ticket.UNDERGROUND),
+				tickets.get(Ticket.SECRET));
+		queue.add(start);
+		visited.add(Arrays.asList(source, start.get(2), start.get(3), start.get(4),
+				start.get(5)));
+		while (!queue.isEmpty()) {
+			List<Integer> state = queue.remove();
+			distances.putIfAbsent(state.get(0), state.get(1));
+			for (Edge<Integer, Transport> edge : graph.getEdgesFrom(graph.getNode(state.get(0)))) {
+				int position = edge.data() == Transport.FERRY ? -1 : edge.data().ordinal();
+				for (int used : new int[]{position, 3}) {
+					if (used < 0 || state.get(2 + used) == 0) continue;
+					Integer[] next = state.toArray(new Integer[0]);
+					next[0] = edge.destination().value();
+					next[1] = state.get(1) + 1;
+					next[2 + used]--;
+					List<Integer> key = Arrays.asList(next[0], next[2], next[3], next[4], next[5]);
+					if (visited.add(key)) queue.add(Arrays.asList(next));
+				}
+			}
+		}
+		return distances;
+	}
+
+}
@@ -0,0 +1,107 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import uk.ac.bris.cs.scotlandyard.ai.AI;
+import uk.ac.bris.cs.scotlandyard.ai.ManagedAI.VisualiserType;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.simulation.RandomPlayerFactory;
+import uk.ac.bris.cs.scotlandyard.simulation.Tournament;
+import uk.ac.bris.cs.scotlandyard.simulation.TournamentResult;
+import uk.ac.bris.cs.scotlandyard.simulation.TournamentResult.WinRate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link Tournament}
+ */
+public class TournamentTest {
+
+	private static final List<AI> AIS = Arrays.asList(
+			AI.fromName("Random", VisualiserType.NONE, RandomPlayerFactory.class),
+			AI.fromName("First", VisualiserType.NONE, FirstMoveFactory.class));
+
+	@Test
+	public void testPlaysEveryPairing() throws Exception {
+		TournamentResult result = new Tournament.Builder(AIS).gamesPerPairing(20)
+				.parallelism(3).build().run();
+		assertThat(result.names()).containsExactly("Random", "First");
+		for (String mrX : result.names()) {
+			for (String detectives : result.names()) {
+				WinRate rate = result.mrXWins(mrX, detectives);
+				assertThat(rate.games()).isEqualTo(20);
+				assertThat(rate.lower()).isLessThanOrEqualTo(rate.rate());
+				assertThat(rate.upper()).isGreaterThanOrEqualTo(rate.rate());
+			}
+			assertThat(result.asMrX(mrX).games()).isEqualTo(40);
+			assertThat(result.asDetectives(mrX).games()).isEqualTo(40);
+		}
+		long mrXWins = result.asMrX("Random").wins() + result.asMrX("First").wins();
+		long detectiveWins = result.asDetectives("Random").wins()
+				+ result.asDetectives("First").wins();
+		assertThat(mrXWins + detectiveWins).isEqualTo(80);
+	}
+
+	@Test
+	public void testDeterministicPlayersGiveSameResultsOnAnyParallelism() throws Exception {
+		List<AI> ais = AIS.subList(1, 2);
+		TournamentResult single = new Tournament.Builder(ais).gamesPerPairing(30)
+				.parallelism(1).seed(3).build().run();
+		TournamentResult parallel = new Tournament.Builder(ais).gamesPerPairing(30)
+				.parallelism(4).seed(3).build().run();
+		assertThat(parallel.mrXWins("First", "First").wins())
+				.isEqualTo(single.mrXWins("First", "First").wins());
+	}
+
+	@Test
+	public void testWilsonIntervalNarrowsWithGames() throws Exception {
+		TournamentResult few = new Tournament.Builder(AIS.subList(1, 2)).gamesPerPairing(5)
+				.build().run();
+		TournamentResult many = new Tournament.Builder(AIS.subList(1, 2)).gamesPerPairing(100)
+				.build().run();
+		WinRate a = few.mrXWins("First", "First");
+		WinRate b = many.mrXWins("First", "First");
+		assertThat(b.upper() - b.lower()).isLessThan(a.upper() - a.lower());
+		assertThat(a.lower()).isBetween(0.0, 1.0);
+		assertThat(a.upper()).isBetween(0.0, 1.0);
+	}
+
+	@Test
+	public void testBundledAIsPlayBothSides() throws Exception {
+		List<AI> bundled = AI.loadAll();
+		TournamentResult result = new Tournament.Builder(bundled).gamesPerPairing(1)
+				.detectives(2).parallelism(4).moveTimeout(300, TimeUnit.MILLISECONDS)
+				.build().run();
+		for (String mrX : result.names())
+			for (String detectives : result.names())
+				assertThat(result.mrXWins(mrX, detectives).games()).isEqualTo(1);
+		assertThat(result.names()).hasSize(bundled.size());
+	}
+
+	@Test
+	public void testUnknownNameThrows() throws Exception {
+		TournamentResult result = new Tournament.Builder(AIS.subList(1, 2)).gamesPerPairing(1)
+				.build().run();
+		assertThatThrownBy(() -> result.asMrX("Missing"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	/**
+	 * Always plays the first move it is given
+	 */
+	public static class FirstMoveFactory implements PlayerFactory {
+
+		@Override
+		public Player createPlayer(Colour colour) {
+			return (view, location, moves, callback) -> callback.accept(moves.iterator().next());
+		}
+	}
+
+}
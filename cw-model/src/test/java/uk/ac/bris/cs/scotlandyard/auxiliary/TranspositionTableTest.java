@@ -0,0 +1,98 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.bris.cs.scotlandyard.ai.TranspositionTable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.ai.TranspositionTable.MISS;
+
+/**
+ * Tests for {@link TranspositionTable}
+ */
+public class TranspositionTableTest {
+
+	@Test
+	public void testStoreThenProbe() {
+		TranspositionTable table = new TranspositionTable(1024);
+		table.store(42L, 0x1234, -300, 7, TranspositionTable.LOWER);
+		long entry = table.probe(42L);
+		assertThat(entry).isNotEqualTo(MISS);
+		assertThat(TranspositionTable.move(entry)).isEqualTo(0x1234);
+		assertThat(TranspositionTable.score(entry)).isEqualTo(-300);
+		assertThat(TranspositionTable.depth(entry)).isEqualTo(7);
+		assertThat(TranspositionTable.bound(entry)).isEqualTo(TranspositionTable.LOWER);
+		assertThat(table.probe(43L)).isEqualTo(MISS);
+	}
+
+	@Test
+	public void testEmptyMoveAndScoreAreNotMisses() {
+		TranspositionTable table = new TranspositionTable(16);
+		table.store(1L, 0, 0, 0, TranspositionTable.EXACT);
+		assertThat(table.probe(1L)).isNotEqualTo(MISS);
+	}
+
+	@Test
+	public void testValuesAreClamped() {
+		TranspositionTable table = new TranspositionTable(16);
+		table.store(5L, -1, 1 << 20, 1000, TranspositionTable.UPPER);
+		long entry = table.probe(5L);
+		assertThat(TranspositionTable.move(entry)).isEqualTo(-1);
+		assertThat(TranspositionTable.score(entry)).isEqualTo(Short.MAX_VALUE);
+		assertThat(TranspositionTable.depth(entry)).isEqualTo(255);
+	}
+
+	@Test
+	public void testCapacityIsRoundedUp() {
+		assertThat(new TranspositionTable(1).capacity()).isEqualTo(4);
+		assertThat(new TranspositionTable(1000).capacity()).isEqualTo(1024);
+		assertThat(TranspositionTable.ofMegabytes(1).capacity()).isEqualTo(1 << 16);
+	}
+
+	@Test
+	public void testDeeperEntriesSurviveReplacement() {
+		// a single bucket, the deep entry must survive shallow stores
+		TranspositionTable table = new TranspositionTable(4);
+		table.store(1L, 1, 0, 50, TranspositionTable.EXACT);
+		for (long key = 2; key < 100; key++)
+			table.store(key, (int) key, 0, 1, TranspositionTable.EXACT);
+		assertThat(TranspositionTable.move(table.probe(1L))).isEqualTo(1);
+		table.newSearch();
+		table.clear();
+		assertThat(table.probe(1L)).isEqualTo(MISS);
+	}
+
+	@Test
+	public void testConcurrentUseNeverReturnsMismatchedEntries() throws InterruptedException {
+		TranspositionTable table = new TranspositionTable(256);
+		AtomicInteger mismatches = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			long seed = t;
+			threads.add(new Thread(() -> {
+				Random random = new Random(seed);
+				for (int i = 0; i < 200_000; i++) {
+					long key = random.nextInt(4096) * 0x9E3779B97F4A7C15L;
+					if (random.nextBoolean()) {
+						table.store(key, (int) key, (short) (key >>> 7), 3,
+								TranspositionTable.EXACT);
+					} else {
+						long entry = table.probe(key);
+						if (entry != MISS && (TranspositionTable.move(entry) != (int) key
+								|| TranspositionTable.score(entry) != (short) (key >>> 7)))
+							mismatches.incrementAndGet();
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+		assertThat(mismatches.get()).isZero();
+	}
+
+}
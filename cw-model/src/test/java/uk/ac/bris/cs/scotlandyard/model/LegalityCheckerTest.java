@@ -0,0 +1,98 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import uk.ac.bris.cs.gamekit.graph.CompactGraph;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link LegalityChecker} accepts exactly the moves
+ * {@link MoveGenerator} generates
+ */
+public class LegalityCheckerTest {
+
+	private static CompactGraph<Transport> graph;
+
+	@BeforeClass
+	public static void setUp() throws IOException, URISyntaxException {
+		graph = CompactGraph.copyOf(ScotlandYardGraphReader.fromLines(Files.readAllLines(
+				Paths.get(LegalityCheckerTest.class.getResource("/game_graph.txt").toURI()))),
+				Transport.class);
+	}
+
+	@Test
+	public void testAgreesWithGeneratedMoves() {
+		MoveGenerator generator = new MoveGenerator(graph);
+		LegalityChecker checker = new LegalityChecker(graph);
+		Random random = new Random(42);
+		Colour[] colours = Colour.values();
+		for (int state = 0; state < 2000; state++) {
+			Colour colour = colours[random.nextInt(colours.length)];
+			int location = graph.valueAt(random.nextInt(graph.size()));
+			int[] tickets = new int[Ticket.values().length];
+			// small counts so running out of tickets is common
+			for (int t = 0; t < tickets.length; t++) tickets[t] = random.nextInt(3);
+			int[] occupied = new int[5];
+			for (int i = 0; i < occupied.length; i++)
+				occupied[i] = graph.valueAt(random.nextInt(graph.size()));
+			int occupiedCount = random.nextInt(occupied.length + 1);
+			boolean doubleAllowed = random.nextBoolean();
+
+			generator.generate(colour, location, tickets, occupied, occupiedCount, doubleAllowed);
+			int[] valid = generator.toArray();
+			for (int move : candidates(colour, location)) {
+				boolean expected = Arrays.binarySearch(valid, move) >= 0;
+				assertThat(checker.isValid(move, colour, location, tickets, occupied,
+						occupiedCount, doubleAllowed))
+						.as("%s by %s at %d", PackedMove.toString(move), colour, location)
+						.isEqualTo(expected);
+			}
+			for (int move : valid)
+				assertThat(checker.isValid(move, colour, location, tickets, occupied,
+						occupiedCount, doubleAllowed)).isTrue();
+		}
+	}
+
+	@Test
+	public void testRejectsMovesOfOtherColours() {
+		LegalityChecker checker = new LegalityChecker(graph);
+		int[] tickets = new int[Ticket.values().length];
+		Arrays.fill(tickets, 5);
+		int location = graph.valueAt(0);
+		int destination = graph.target(graph.edgesBegin(location));
+		int move = PackedMove.ticket(Colour.RED, Ticket.SECRET, destination);
+		assertThat(checker.isValid(move, Colour.BLACK, location, tickets, new int[0], 0, true))
+				.isFalse();
+		assertThat(checker.isValid(PackedMove.NONE, Colour.BLACK, location, tickets,
+				new int[0], 0, true)).isFalse();
+	}
+
+	// every ticket and double move to nodes within two edges, plus a pass
+	private static List<Integer> candidates(Colour colour, int location) {
+		List<Integer> moves = new ArrayList<>();
+		moves.add(PackedMove.pass(colour));
+		for (int slot = graph.edgesBegin(location); slot < graph.edgesEnd(location); slot++) {
+			int first = graph.target(slot);
+			for (Ticket ticket : Ticket.values()) {
+				moves.add(PackedMove.ticket(colour, ticket, first));
+				if (!colour.isMrX()) continue;
+				for (int next = graph.edgesBegin(first); next < graph.edgesEnd(first); next++)
+					for (Ticket second : Ticket.values())
+						moves.add(PackedMove.doubleMove(ticket, first, second, graph.target(next)));
+			}
+		}
+		return moves;
+	}
+
+}
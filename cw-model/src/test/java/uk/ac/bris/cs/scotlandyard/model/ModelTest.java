@@ -16,5 +16,8 @@ import org.junit.runners.Suite;
 		ModelRoundTest.class,
 		ModelPlayerTest.class,
 		ModelValidMoveTest.class,
-		ModelSpectatorTest.class})
+		ModelSpectatorTest.class,
+		LegalityCheckerTest.class,
+		SearchStateTest.class,
+		SpectatorBusTest.class})
 public class ModelTest {}
@@ -0,0 +1,156 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+/**
+ * Plays random games on {@link ScotlandYardModel} and a {@link SearchState}
+ * side by side, then undoes every move of the {@link SearchState}
+ */
+public class SearchStateTest {
+
+	@Test
+	public void testFollowsModelAndUndoesEveryMove() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		for (int seed = 0; seed < 30; seed++) {
+			Random random = new Random(seed);
+			RandomPlayer player = new RandomPlayer(random);
+			List<Integer> detectiveLocations = StandardGame.generateDetectiveLocations(seed, 5);
+			List<PlayerConfiguration> detectives = new ArrayList<>();
+			Colour[] colours = Colour.values();
+			for (int i = 0; i < detectiveLocations.size(); i++)
+				detectives.add(new PlayerConfiguration.Builder(colours[i + 1]).using(player)
+						.with(StandardGame.generateDetectiveTickets())
+						.at(detectiveLocations.get(i)).build());
+			int mrXLocation = StandardGame.generateMrXLocation(seed);
+			PlayerConfiguration mrX = new PlayerConfiguration.Builder(BLACK).using(player)
+					.with(StandardGame.generateMrXTickets()).at(mrXLocation).build();
+			ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS, graph, mrX,
+					detectives.get(0), detectives.subList(1, detectives.size())
+					.toArray(new PlayerConfiguration[0]));
+
+			SearchState state = SearchState.fromView(model, mrXLocation);
+			SearchState initial = state.copy();
+			player.state = state;
+			while (!model.isGameOver()) model.startRotate();
+
+			assertThat(state.isGameOver()).isTrue();
+			assertThat(state.mrXWon()).isEqualTo(model.getWinningPlayers().contains(BLACK));
+			assertThat(state.depth()).isGreaterThan(0);
+			while (state.depth() > 0) state.undo();
+			assertSameState(state, initial);
+		}
+	}
+
+	@Test
+	public void testRejectsMovesOfOtherPlayers() throws IOException {
+		ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS,
+				StandardGame.standardGraph(),
+				new PlayerConfiguration.Builder(BLACK).using(new RandomPlayer(new Random()))
+						.with(StandardGame.generateMrXTickets()).at(35).build(),
+				new PlayerConfiguration.Builder(Colour.RED).using(new RandomPlayer(new Random()))
+						.with(StandardGame.generateDetectiveTickets()).at(26).build());
+		SearchState state = SearchState.fromView(model, 35);
+		assertThatThrownBy(() -> state.apply(PackedMove.pass(Colour.RED)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(state::undo).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void testUndoRestoresHash() throws IOException {
+		ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS,
+				StandardGame.standardGraph(),
+				new PlayerConfiguration.Builder(BLACK).using(new RandomPlayer(new Random()))
+						.with(StandardGame.generateMrXTickets()).at(35).build(),
+				new PlayerConfiguration.Builder(Colour.RED).using(new RandomPlayer(new Random()))
+						.with(StandardGame.generateDetectiveTickets()).at(26).build());
+		SearchState state = SearchState.fromView(model, 35);
+		long initial = state.hash();
+		state.generateMoves();
+		int first = state.move(0);
+		state.apply(first);
+		assertThat(state.hash()).isNotEqualTo(initial);
+		state.undo();
+		assertThat(state.hash()).isEqualTo(initial);
+	}
+
+	@Test
+	public void testWithMrXAtMatchesStateFromView() throws IOException {
+		ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS,
+				StandardGame.standardGraph(),
+				new PlayerConfiguration.Builder(BLACK).using(new RandomPlayer(new Random()))
+						.with(StandardGame.generateMrXTickets()).at(35).build(),
+				new PlayerConfiguration.Builder(Colour.RED).using(new RandomPlayer(new Random()))
+						.with(StandardGame.generateDetectiveTickets()).at(26).build());
+		SearchState state = SearchState.fromView(model, 35);
+		SearchState moved = state.withMrXAt(45);
+		assertSameState(moved, SearchState.fromView(model, 45));
+		assertThat(state.location(0)).isEqualTo(35);
+	}
+
+	private static void assertSameState(SearchState actual, SearchState expected) {
+		assertThat(actual.currentPlayer()).isEqualTo(expected.currentPlayer());
+		assertThat(actual.currentRound()).isEqualTo(expected.currentRound());
+		assertThat(actual.lastLocation()).isEqualTo(expected.lastLocation());
+		assertThat(actual.hash()).isEqualTo(expected.hash());
+		for (int i = 0; i < expected.playerCount(); i++) {
+			assertThat(actual.location(i)).isEqualTo(expected.location(i));
+			for (Ticket ticket : Ticket.values())
+				assertThat(actual.tickets(i, ticket)).isEqualTo(expected.tickets(i, ticket));
+		}
+	}
+
+	private static class RandomPlayer implements Player {
+
+		private final Random random;
+		private SearchState state;
+
+		RandomPlayer(Random random) {
+			this.random = random;
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			int current = state.currentPlayer();
+			assertThat(state.isGameOver()).isFalse();
+			// a copy computes its hash from scratch
+			assertThat(state.hash()).isEqualTo(state.copy().hash());
+			assertThat(state.colour(current)).isEqualTo(view.getCurrentPlayer());
+			assertThat(state.location(current)).isEqualTo(location);
+			assertThat(state.currentRound()).isEqualTo(view.getCurrentRound());
+			assertThat(state.lastLocation()).isEqualTo(view.getPlayerLocation(BLACK).orElse(-1));
+			for (int i = 0; i < state.playerCount(); i++) {
+				Colour colour = state.colour(i);
+				if (colour.isDetective())
+					assertThat(view.getPlayerLocation(colour)).contains(state.location(i));
+				for (Ticket ticket : Ticket.values())
+					assertThat(view.getPlayerTickets(colour, ticket))
+							.contains(state.tickets(i, ticket));
+			}
+
+			Set<Move> generated = new HashSet<>();
+			int count = state.generateMoves();
+			for (int i = 0; i < count; i++) generated.add(PackedMove.toMove(state.move(i)));
+			assertThat(generated).isEqualTo(new HashSet<>(moves));
+
+			Move move = new ArrayList<>(moves).get(random.nextInt(moves.size()));
+			state.apply(PackedMove.fromMove(move));
+			callback.accept(move);
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import uk.ac.bris.cs.scotlandyard.auxiliary.TestGames;
+import uk.ac.bris.cs.scotlandyard.model.SpectatorBus.Backpressure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+
+/**
+ * Tests for {@link SpectatorBus} and spectators registered on
+ * {@link ScotlandYardModel} with a {@link Backpressure}
+ */
+public class SpectatorBusTest {
+
+	@Test
+	public void testCapacityMustBeAPowerOfTwo() {
+		assertThatThrownBy(() -> new SpectatorBus(0))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new SpectatorBus(12))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testAsynchronousSpectatorSeesWhatADirectSpectatorSees() throws Exception {
+		for (Backpressure backpressure : Backpressure.values()) {
+			ScotlandYardModel model = randomGame(backpressure.ordinal());
+			Recorder direct = new Recorder(null);
+			Recorder async = new Recorder(null);
+			model.registerSpectator(direct);
+			model.registerSpectator(async, backpressure);
+			assertThat(model.getSpectators()).containsExactly(direct, async);
+			while (!model.isGameOver()) model.startRotate();
+			assertThat(async.gameOver.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(async.events).isEqualTo(direct.events);
+			assertThat(model.getSpectatorBus().get().dropped(async)).isZero();
+		}
+	}
+
+	@Test
+	public void testUnregisterStopsAsynchronousSpectator() throws Exception {
+		ScotlandYardModel model = randomGame(0);
+		Recorder async = new Recorder(null);
+		model.registerSpectator(async, Backpressure.DROP);
+		model.unregisterSpectator(async);
+		assertThat(model.getSpectators()).isEmpty();
+		assertThat(model.getSpectatorBus().get().isSubscribed(async)).isFalse();
+		while (!model.isGameOver()) model.startRotate();
+		assertThat(async.events).isEmpty();
+	}
+
+	@Test
+	public void testBlockWaitsForSlowSpectator() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Recorder slow = new Recorder(release);
+		SpectatorBus bus = new SpectatorBus(4);
+		bus.subscribe(slow, Backpressure.BLOCK);
+		ScotlandYardModel view = randomGame(0);
+		Thread game = new Thread(() -> {
+			for (int round = 1; round <= 10; round++) bus.roundStarted(view, round);
+			bus.gameOver(view, Collections.singleton(BLACK));
+		});
+		game.start();
+		// the game only parks when the ring is full
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (game.getState() != Thread.State.TIMED_WAITING) {
+			assertThat(System.nanoTime() - deadline).as("game parked").isNegative();
+			Thread.yield();
+		}
+		assertThat(slow.events.size()).isLessThanOrEqualTo(1);
+		release.countDown();
+		game.join(TimeUnit.SECONDS.toMillis(5));
+		assertThat(game.isAlive()).isFalse();
+		assertThat(slow.gameOver.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(slow.events).hasSize(11);
+		assertThat(bus.dropped(slow)).isZero();
+	}
+
+	@Test
+	public void testDropAndCoalesceNeverHoldUpTheGame() throws Exception {
+		for (Backpressure backpressure : new Backpressure[]{Backpressure.DROP,
+				Backpressure.COALESCE}) {
+			CountDownLatch release = new CountDownLatch(1);
+			Recorder slow = new Recorder(release);
+			SpectatorBus bus = new SpectatorBus(4);
+			bus.subscribe(slow, backpressure);
+			ScotlandYardModel view = randomGame(0);
+			bus.roundStarted(view, 1);
+			assertThat(slow.waiting.await(5, TimeUnit.SECONDS)).isTrue();
+			for (int round = 2; round <= 20; round++) bus.roundStarted(view, round);
+			bus.gameOver(view, Collections.singleton(BLACK));
+			release.countDown();
+			assertThat(slow.gameOver.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(bus.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+
+			// the first event is the one the spectator was stuck on
+			assertThat(slow.events.get(0)).isEqualTo("round 1");
+			assertThat(slow.events.get(slow.events.size() - 1)).isEqualTo("game over [BLACK]");
+			assertThat(slow.events.size() + bus.dropped(slow)).isEqualTo(21);
+			if (backpressure == Backpressure.COALESCE)
+				assertThat(slow.events).hasSize(2);
+			else assertThat(slow.events).hasSize(1 + 4);
+		}
+	}
+
+	private static ScotlandYardModel randomGame(int seed) throws IOException {
+		Random random = new Random(seed);
+		Player player = (view, location, moves, callback) -> callback
+				.accept(new ArrayList<>(moves).get(random.nextInt(moves.size())));
+		return TestGames.twoPlayerGame(player, player);
+	}
+
+	// records events with what the view showed at the time
+	private static class Recorder implements Spectator {
+
+		private final CountDownLatch release;
+		private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+		private final CountDownLatch gameOver = new CountDownLatch(1);
+		private final CountDownLatch waiting = new CountDownLatch(1);
+
+		Recorder(CountDownLatch release) {
+			this.release = release;
+		}
+
+		private void record(String event) {
+			if (release != null) {
+				waiting.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+			}
+			events.add(event);
+		}
+
+		@Override
+		public void onMoveMade(ScotlandYardView view, Move move) {
+			record(move + " at round " + view.getCurrentRound() + ", "
+					+ view.getPlayerLocation(RED).orElse(-1) + " "
+					+ view.getPlayerTickets(BLACK, Ticket.SECRET).orElse(-1));
+		}
+
+		@Override
+		public void onRoundStarted(ScotlandYardView view, int round) {
+			record("round " + round);
+		}
+
+		@Override
+		public void onRotationComplete(ScotlandYardView view) {
+			record("rotation " + view.getCurrentPlayer());
+		}
+
+		@Override
+		public void onGameOver(ScotlandYardView view, Set<Colour> winningPlayers) {
+			record("game over " + winningPlayers);
+			gameOver.countDown();
+		}
+	}
+
+}